@@ -0,0 +1,252 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 有界的异步日志环形缓冲区.
+ *
+ * <p>调用线程只把 tag, 格式串和参数引用写进预分配的槽位, 不拼字符串, 不分配内存.
+ * 格式化和真正的输出在单独的写线程上完成. 缓冲区满时丢弃新日志并计数.
+ *
+ * <p>格式串用 {@code {}} 占位. 对象参数在写线程上才转成字符串, 所以只应传不可变对象或基本类型.
+ */
+public class AsyncLogWriter {
+
+    /** 日志最终的输出方式, Android 上是 Log.println */
+    public interface Printer {
+        void println(int priority, String tag, String message);
+    }
+
+    private static final int ARG_NONE = 0;
+    private static final int ARG_OBJECT = 1;
+    private static final int ARG_LONG = 2;
+    private static final int ARG_DOUBLE = 3;
+
+    private static final class Entry {
+        int priority;
+        String tag;
+        String format;
+        int argCount;
+        final int[] argTypes = new int[2];
+        final Object[] objects = new Object[2];
+        final long[] longs = new long[2];
+        final double[] doubles = new double[2];
+
+        void clearRefs() {
+            tag = null;
+            format = null;
+            objects[0] = null;
+            objects[1] = null;
+        }
+    }
+
+    private final Printer printer;
+    private final Entry[] ring;
+    private final String threadName;
+    private int head;
+    private int size;
+    private long dropped;
+    private long reportedDropped;
+    @Nullable
+    private Thread writerThread;
+
+    // 只在写线程上使用
+    private final StringBuilder message = new StringBuilder(256);
+    private final Entry current = new Entry();
+
+    public AsyncLogWriter(int capacity, @NonNull Printer printer, @NonNull String threadName) {
+        this.printer = printer;
+        this.threadName = threadName;
+        this.ring = new Entry[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Entry();
+        }
+    }
+
+    public synchronized void write(int priority, String tag, String format) {
+        Entry entry = claim();
+        if (entry == null) { return; }
+        entry.argCount = 0;
+        publish(entry, priority, tag, format);
+    }
+
+    public synchronized void write(int priority, String tag, String format, @Nullable Object arg) {
+        Entry entry = claim();
+        if (entry == null) { return; }
+        entry.argCount = 1;
+        setObject(entry, 0, arg);
+        publish(entry, priority, tag, format);
+    }
+
+    public synchronized void write(int priority, String tag, String format, @Nullable Object arg0, @Nullable Object arg1) {
+        Entry entry = claim();
+        if (entry == null) { return; }
+        entry.argCount = 2;
+        setObject(entry, 0, arg0);
+        setObject(entry, 1, arg1);
+        publish(entry, priority, tag, format);
+    }
+
+    public synchronized void write(int priority, String tag, String format, long arg) {
+        Entry entry = claim();
+        if (entry == null) { return; }
+        entry.argCount = 1;
+        setLong(entry, 0, arg);
+        publish(entry, priority, tag, format);
+    }
+
+    public synchronized void write(int priority, String tag, String format, long arg0, @Nullable Object arg1) {
+        Entry entry = claim();
+        if (entry == null) { return; }
+        entry.argCount = 2;
+        setLong(entry, 0, arg0);
+        setObject(entry, 1, arg1);
+        publish(entry, priority, tag, format);
+    }
+
+    public synchronized void write(int priority, String tag, String format, long arg0, long arg1) {
+        Entry entry = claim();
+        if (entry == null) { return; }
+        entry.argCount = 2;
+        setLong(entry, 0, arg0);
+        setLong(entry, 1, arg1);
+        publish(entry, priority, tag, format);
+    }
+
+    public synchronized void write(int priority, String tag, String format, double arg) {
+        Entry entry = claim();
+        if (entry == null) { return; }
+        entry.argCount = 1;
+        entry.argTypes[0] = ARG_DOUBLE;
+        entry.doubles[0] = arg;
+        publish(entry, priority, tag, format);
+    }
+
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    public synchronized int getPendingCount() {
+        return size;
+    }
+
+    /** 在当前线程把缓冲区里的日志全部输出, 用于测试和退出前 */
+    public void flush() {
+        while (drainOne()) {
+            // continue
+        }
+    }
+
+    // claim 和 publish 都在 write 的锁内调用
+    @Nullable
+    private Entry claim() {
+        if (size == ring.length) {
+            dropped++;
+            return null;
+        }
+        return ring[(head + size) % ring.length];
+    }
+
+    private void publish(Entry entry, int priority, String tag, String format) {
+        entry.priority = priority;
+        entry.tag = tag;
+        entry.format = format;
+        size++;
+        if (writerThread == null) {
+            writerThread = new Thread(this::runWriter, threadName);
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+        if (size == 1) {
+            notifyAll();
+        }
+    }
+
+    private static void setObject(Entry entry, int index, @Nullable Object value) {
+        entry.argTypes[index] = ARG_OBJECT;
+        entry.objects[index] = value;
+    }
+
+    private static void setLong(Entry entry, int index, long value) {
+        entry.argTypes[index] = ARG_LONG;
+        entry.longs[index] = value;
+    }
+
+    private void runWriter() {
+        while (true) {
+            synchronized (this) {
+                while (size == 0) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+            flush();
+        }
+    }
+
+    // 写线程和 flush 可能同时排空, 用 current 串行化
+    private boolean drainOne() {
+        synchronized (current) {
+            long droppedSinceReport;
+            synchronized (this) {
+                if (size == 0) { return false; }
+                copy(ring[head], current);
+                ring[head].clearRefs();
+                head = (head + 1) % ring.length;
+                size--;
+                droppedSinceReport = dropped - reportedDropped;
+                reportedDropped = dropped;
+            }
+            if (droppedSinceReport > 0) {
+                printer.println(current.priority, current.tag, "dropped " + droppedSinceReport + " log lines");
+            }
+            printer.println(current.priority, current.tag, format(current));
+            current.clearRefs();
+            return true;
+        }
+    }
+
+    private static void copy(Entry from, Entry to) {
+        to.priority = from.priority;
+        to.tag = from.tag;
+        to.format = from.format;
+        to.argCount = from.argCount;
+        for (int i = 0; i < 2; i++) {
+            to.argTypes[i] = i < from.argCount ? from.argTypes[i] : ARG_NONE;
+            to.objects[i] = from.objects[i];
+            to.longs[i] = from.longs[i];
+            to.doubles[i] = from.doubles[i];
+        }
+    }
+
+    private String format(Entry entry) {
+        StringBuilder builder = message;
+        builder.setLength(0);
+        String format = entry.format;
+        int arg = 0;
+        int start = 0;
+        int index;
+        while (arg < entry.argCount && (index = format.indexOf("{}", start)) >= 0) {
+            builder.append(format, start, index);
+            switch (entry.argTypes[arg]) {
+                case ARG_LONG:
+                    builder.append(entry.longs[arg]);
+                    break;
+                case ARG_DOUBLE:
+                    builder.append(entry.doubles[arg]);
+                    break;
+                default:
+                    builder.append(entry.objects[arg]);
+                    break;
+            }
+            arg++;
+            start = index + 2;
+        }
+        builder.append(format, start, format.length());
+        return builder.toString();
+    }
+}
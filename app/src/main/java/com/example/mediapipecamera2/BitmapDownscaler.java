@@ -0,0 +1,45 @@
+package com.example.mediapipecamera2;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 把解码后的 Bitmap 缩小到送进 Hands 的尺寸.
+ *
+ * <p>像素缓冲区按尺寸复用, 输出 Bitmap 从 {@link BitmapPool} 取, 原图缩小后还回池里.
+ * 只在解码线程上使用.
+ */
+class BitmapDownscaler {
+
+    private final BitmapPool bitmapPool;
+    private int[] src = new int[0];
+    private int[] dst = new int[0];
+
+    BitmapDownscaler(@NonNull BitmapPool bitmapPool) {
+        this.bitmapPool = bitmapPool;
+    }
+
+    /** 尺寸已经一致时原样返回 */
+    @NonNull
+    Bitmap scale(@NonNull Bitmap in, int width, int height) {
+        int inWidth = in.getWidth();
+        int inHeight = in.getHeight();
+        if (inWidth == width && inHeight == height) {
+            return in;
+        }
+        if (src.length != inWidth * inHeight) {
+            src = new int[inWidth * inHeight];
+        }
+        if (dst.length != width * height) {
+            dst = new int[width * height];
+        }
+        in.getPixels(src, 0, inWidth, 0, 0, inWidth, inHeight);
+        ArgbScaler.scale(src, inWidth, inHeight, dst, width, height);
+
+        Bitmap out = bitmapPool.acquire(width, height, Bitmap.Config.ARGB_8888);
+        out.setPixels(dst, 0, width, 0, 0, width, height);
+        bitmapPool.recycle(in);
+        return out;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.mediapipecamera2;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+
+/**
+ * 解码用的 Bitmap 池, 容量固定.
+ *
+ * <p>送进 Hands 的 Bitmap 包装成 {@link Frame}, 各阶段都释放之后由 {@link FramePool}
+ * {@link #recycle} 回空闲列表, 供下一帧的 inBitmap 复用.
+ * 摄像头线程取用, 最后释放帧的线程归还, 所以方法都是同步的.
+ */
+public class BitmapPool {
+
+    private final Bitmap[] free;
+    private int freeCount;
+
+    // 只在解码时使用, 不需要租借
+    private byte[] scratch = new byte[0];
+
+    private long hits;
+    private long misses;
+
+    public BitmapPool(int capacity) {
+        free = new Bitmap[capacity];
+    }
+
+    /**
+     * 取一个至少能容纳 byteCount 字节的空闲 Bitmap, 没有时返回 null 并记一次 miss.
+     */
+    @Nullable
+    public synchronized Bitmap acquire(int byteCount) {
+        for (int i = freeCount - 1; i >= 0; i--) {
+            Bitmap bitmap = free[i];
+            if (bitmap.getAllocationByteCount() >= byteCount) {
+                free[i] = free[--freeCount];
+                free[freeCount] = null;
+                hits++;
+                return bitmap;
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /** 取一个宽高和格式都符合的 Bitmap, 池里没有时新建 */
+    @NonNull
+    public Bitmap acquire(int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = acquire(width * height * 4);
+        if (bitmap == null) {
+            return Bitmap.createBitmap(width, height, config);
+        }
+        if (bitmap.getWidth() != width || bitmap.getHeight() != height || bitmap.getConfig() != config) {
+            bitmap.reconfigure(width, height, config);
+        }
+        return bitmap;
+    }
+
+    /** 至少 size 字节的临时缓冲区, 下次调用前有效 */
+    public synchronized byte[] acquireBytes(int size) {
+        if (scratch.length < size) {
+            scratch = new byte[size];
+        }
+        return scratch;
+    }
+
+    /** 直接放回空闲列表, 池满时交给 GC */
+    public synchronized void recycle(@NonNull Bitmap bitmap) {
+        if (freeCount < free.length && bitmap.isMutable() && !bitmap.isRecycled()) {
+            free[freeCount++] = bitmap;
+        }
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < free.length; i++) {
+            free[i] = null;
+        }
+        freeCount = 0;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "BitmapPool hit=%d miss=%d free=%d",
+                hits, misses, freeCount);
+    }
+}
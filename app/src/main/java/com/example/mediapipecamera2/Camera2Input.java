@@ -1,6 +1,7 @@
 package com.example.mediapipecamera2;
 
 import android.content.Context;
+import android.graphics.ImageFormat;
 
 import androidx.annotation.NonNull;
 
@@ -18,6 +19,10 @@ public class Camera2Input {
 
     private Camera2Helper.OnImageAvailableListener onImageAvailableListener;
 
+    private Camera2Helper.OnCameraStartedListener onCameraStartedListener;
+
+    private int imageFormat = ImageFormat.JPEG;
+
     public Camera2Input() {}
 
 
@@ -30,8 +35,30 @@ public class Camera2Input {
         customOnCameraErrorListener = listener;
     }
 
+    /** 会话配置好开始出流时在主线程回调, 从暂停恢复时不回调 */
+    public void setOnCameraStartedListener(Camera2Helper.OnCameraStartedListener listener) {
+        onCameraStartedListener = listener;
+    }
+
+    /**
+     * 设置采集格式
+     * @param format {@link ImageFormat#JPEG} 或 {@link ImageFormat#YUV_420_888}
+     */
+    public void setImageFormat(int format) {
+        imageFormat = format;
+    }
+
 
     public void start(@NonNull Context context, @NonNull String cameraId) {
+        start(context, cameraId, CaptureSizeSelector.DEFAULT);
+    }
+
+    /**
+     * 打开摄像头
+     * @param sizeSelector 采集分辨率的选择策略
+     */
+    public void start(@NonNull Context context, @NonNull String cameraId,
+                      @NonNull CaptureSizeSelector sizeSelector) {
 
         if (null == onImageAvailableListener) {
             throw new MediaPipeException(
@@ -40,13 +67,55 @@ public class Camera2Input {
         }
 
         camera2Helper.setOnImageAvailableListener(onImageAvailableListener);
+        camera2Helper.setImageFormat(imageFormat);
+        camera2Helper.setSizeSelector(sizeSelector);
 
         if (customOnCameraErrorListener != null) {
             camera2Helper.setOnCameraErrorListener(customOnCameraErrorListener);
         }
+        camera2Helper.setOnCameraStartedListener(onCameraStartedListener);
 
         camera2Helper.startCamera(context, cameraId);
 
     }
 
+    /** 暂停出流, 设备和会话保持打开, 之后 {@link #resume()} 或 {@link #start} 很快恢复 */
+    public void pause() {
+        camera2Helper.pauseCamera();
+    }
+
+    /** 从 {@link #pause()} 恢复出流 */
+    public void resume() {
+        camera2Helper.resumeCamera();
+    }
+
+    /** 关闭摄像头, 之后需要重新 {@link #start} */
+    public void stop() {
+        camera2Helper.stopCamera();
+    }
+
+    @NonNull
+    public CameraLifecycle.State getState() {
+        return camera2Helper.getState();
+    }
+
+    /** 最近一次从暂停恢复到第一帧的耗时, 单位纳秒, 还没有时为 -1 */
+    public long getLastResumeLatency() {
+        return camera2Helper.getLastResumeLatency();
+    }
+
+    /** 把原始帧上的关键点转到屏幕方向的变换, 由 SENSOR_ORIENTATION, LENS_FACING 和屏幕旋转决定 */
+    @NonNull
+    public LandmarkTransform getLandmarkTransform() {
+        return camera2Helper.getLandmarkTransform();
+    }
+
+    /**
+     * 一帧推理结果回来了, 用于按推理吞吐调整传感器帧率
+     * @param nowNanos SystemClock.elapsedRealtimeNanos()
+     */
+    public void onInferenceResult(long nowNanos) {
+        camera2Helper.onInferenceResult(nowNanos);
+    }
+
 }
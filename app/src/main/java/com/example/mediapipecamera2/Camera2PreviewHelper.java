@@ -15,12 +15,14 @@ import android.hardware.camera2.CameraMetadata;
 import android.hardware.camera2.CaptureRequest;
 import android.hardware.camera2.params.StreamConfigurationMap;
 import android.media.ImageReader;
+import android.os.Build;
 import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
+import android.util.Range;
 import android.util.Size;
-import android.util.SparseIntArray;
 import android.view.Surface;
 import android.view.WindowManager;
 
@@ -28,7 +30,12 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.app.ActivityCompat;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 
@@ -60,22 +67,12 @@ public class Camera2PreviewHelper extends Camera2Helper {
         }
     }
 
-    private static final SparseIntArray ORIENTATIONS = new SparseIntArray();
-
-    static {
-        ORIENTATIONS.append(Surface.ROTATION_0, 90);
-        ORIENTATIONS.append(Surface.ROTATION_90, 0);
-        ORIENTATIONS.append(Surface.ROTATION_180, 270);
-        ORIENTATIONS.append(Surface.ROTATION_270, 180);
-    }
-
 
     private static final String TAG = "Camera2Helper";
     private String cameraId;
     protected CameraDevice cameraDevice;
     protected CameraCaptureSession cameraCaptureSessions;
     protected CaptureRequest.Builder captureRequestBuilder;
-    protected CameraCharacteristics characteristics;
     private Size imageDimension;
     private ImageReader imageReader;
     private static final int REQUEST_CAMERA_PERMISSION = 200;
@@ -87,24 +84,140 @@ public class Camera2PreviewHelper extends Camera2Helper {
 
     private int mSensorOrientation;
 
+    // ImageReader 的输出格式, JPEG 或 YUV_420_888
+    private int imageFormat = ImageFormat.JPEG;
+
+    private CaptureSizeSelector sizeSelector = CaptureSizeSelector.DEFAULT;
+
+    // 按推理吞吐调整传感器帧率, 摄像头不支持设置帧率范围时为 null
+    @Nullable
+    private volatile FrameRateGovernor frameRateGovernor;
+    @Nullable
+    private List<Range<Integer>> fpsRanges;
+
+    // 把原始帧上的关键点转到屏幕方向
+    private volatile LandmarkTransform landmarkTransform = LandmarkTransform.IDENTITY;
+
+    // 进程内共用, 第一次打开摄像头时读文件
+    @Nullable
+    private static CameraCapabilityCache capabilityCache;
+    private static boolean capabilitiesValidated;
+
+    // 暂停超过这个时间就关闭摄像头, 不在后台一直占着设备
+    private static final long STANDBY_TIMEOUT_MS = 30_000L;
+
+    private final CameraLifecycle lifecycle = new CameraLifecycle();
+    private final Runnable standbyTimeout = () -> {
+        Log.d(TAG, "standby timeout, closing camera");
+        closeCamera();
+    };
+
     public Camera2PreviewHelper() {
+        // 打开过程中被暂停时, 第一次出流发生在 resumeCamera 里, 两条路径都从这里通知
+        lifecycle.setOnStartedListener(() -> {
+            if (onCameraStartedListener != null) {
+                onCameraStartedListener.onCameraStarted(null);
+            }
+        });
+    }
+
+    /** 设置采集格式, 需要在 {@link #startCamera} 之前调用 */
+    public void setImageFormat(int format) {
+        if (format != ImageFormat.JPEG && format != ImageFormat.YUV_420_888) {
+            throw new IllegalArgumentException("Unsupported image format: " + format);
+        }
+        imageFormat = format;
+    }
 
+    /** 设置采集分辨率的选择策略, 需要在 {@link #startCamera} 之前调用 */
+    public void setSizeSelector(@NonNull CaptureSizeSelector selector) {
+        sizeSelector = selector;
     }
 
+    /**
+     * 打开摄像头并出流. 同一个摄像头已经打开时不重新打开: 暂停中的直接恢复, 其他状态什么也不做.
+     * 需要在主线程调用
+     */
     @Override
     public void startCamera(@NonNull Context ctx,@NonNull String cameraId) {
+        if (lifecycle.getState() != CameraLifecycle.State.CLOSED && cameraId.equals(this.cameraId)) {
+            resumeCamera();
+            return;
+        }
         this.context = ctx;
         this.cameraId = cameraId;
 
         closeCamera();
         startBackgroundThread();
+        lifecycle.open();
         openCamera(null);
     }
 
+    /** 停止出流, 设备和会话保留, {@link #resumeCamera()} 时一次 setRepeatingRequest 恢复. 需要在主线程调用 */
+    public void pauseCamera() {
+        if (!lifecycle.pause()) {
+            return;
+        }
+        Log.d(TAG, "pause camera");
+        CameraCaptureSession session = cameraCaptureSessions;
+        if (session != null) {
+            try {
+                session.stopRepeating();
+            } catch (CameraAccessException | IllegalStateException e) {
+                e.printStackTrace();
+            }
+        }
+        if (mainHandler != null) {
+            mainHandler.postDelayed(standbyTimeout, STANDBY_TIMEOUT_MS);
+        }
+    }
+
+    /** 从暂停恢复出流; 会话还没配置好时等 onConfigured 再出流. 需要在主线程调用 */
+    public void resumeCamera() {
+        if (lifecycle.getState() != CameraLifecycle.State.PAUSED) {
+            return;
+        }
+        if (mainHandler != null) {
+            mainHandler.removeCallbacks(standbyTimeout);
+        }
+        if (cameraCaptureSessions == null) {
+            // 会话还没配置好, 回到 OPEN 等 onConfigured
+            lifecycle.close();
+            lifecycle.open();
+            return;
+        }
+        lifecycle.resume(SystemClock.elapsedRealtimeNanos());
+        Log.d(TAG, "resume camera");
+        updatePreview();
+    }
+
+    /** 关闭会话和设备, 停止后台线程. 需要在主线程调用 */
+    public void stopCamera() {
+        closeCamera();
+    }
+
+    @NonNull
+    public CameraLifecycle.State getState() {
+        return lifecycle.getState();
+    }
+
+    /** 最近一次从暂停恢复到第一帧的耗时, 单位纳秒, 还没有时为 -1 */
+    public long getLastResumeLatency() {
+        return lifecycle.getLastResumeLatency();
+    }
+
     private void closeCamera() {
         try {
-            stopBackgroundThread();
+            lifecycle.close();
+            if (mainHandler != null) {
+                mainHandler.removeCallbacks(standbyTimeout);
+            }
             Log.d(TAG, "Closing camera");
+            // 先关会话和设备, 再停它们回调所在的线程
+            if (null != cameraCaptureSessions) {
+                cameraCaptureSessions.close();
+                cameraCaptureSessions = null;
+            }
             if (null != cameraDevice) {
                 cameraDevice.close();
                 cameraDevice = null;
@@ -113,6 +226,7 @@ public class Camera2PreviewHelper extends Camera2Helper {
                 imageReader.close();
                 imageReader = null;
             }
+            stopBackgroundThread();
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -121,20 +235,30 @@ public class Camera2PreviewHelper extends Camera2Helper {
     private void openCamera(@Nullable Size targetSize) {
         CameraManager manager = (CameraManager) context.getSystemService(Context.CAMERA_SERVICE);
         try {
+            // 有缓存时直接用缓存选择参数, 真正的查询放到后台线程上校验
+            CameraCapabilityCache cache = getCapabilityCache(context);
             if (cameraId == null) {
-                cameraId = manager.getCameraIdList()[1];
+                List<String> ids = cache.getCameraIds();
+                cameraId = ids.size() > 1 ? ids.get(1) : manager.getCameraIdList()[1];
                 Log.d(TAG, "openCamera: not input cameraId, set front camera");
             }
-            Log.d(TAG, "Cameras count = " + manager.getCameraIdList().length);
 
+            CameraCapabilities capabilities = cache.get(cameraId);
+            if (capabilities == null) {
+                capabilities = readCapabilities(manager, cameraId);
+                Log.d(TAG, "openCamera: capabilities from camera service " + capabilities);
+            } else {
+                Log.d(TAG, "openCamera: capabilities from cache " + capabilities);
+            }
+            validateCapabilitiesOnce(manager, cache);
 
-            characteristics = manager.getCameraCharacteristics(cameraId);
-            StreamConfigurationMap map = characteristics.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
-            assert map != null;
+            mSensorOrientation = capabilities.getSensorOrientation();
 
-            mSensorOrientation = characteristics.get(CameraCharacteristics.SENSOR_ORIENTATION);
+            fpsRanges = toRanges(capabilities);
+            frameRateGovernor = capabilities.createFrameRateGovernor();
 
             int displayRotation = ((WindowManager) context.getSystemService(Context.WINDOW_SERVICE)).getDefaultDisplay().getRotation();
+            landmarkTransform = createLandmarkTransform(capabilities, displayRotation);
             boolean swappedDimensions = false;
             switch (displayRotation) {
                 case Surface.ROTATION_0:
@@ -153,16 +277,23 @@ public class Camera2PreviewHelper extends Camera2Helper {
                     Log.e(TAG, "Display rotation is invalid: " + displayRotation);
             }
 
-            imageDimension = map.getOutputSizes(ImageReader.class)[0];
+            imageDimension = chooseOutputSize(capabilities.getWidths(imageFormat),
+                    capabilities.getHeights(imageFormat), swappedDimensions);
+            Log.d(TAG, "openCamera: capture size " + imageDimension);
 
             if (onImageAvailableListener != null) {
 
                 imageReader = ImageReader.newInstance(imageDimension.getWidth(),
                         imageDimension.getHeight(),
-                        ImageFormat.JPEG,
+                        imageFormat,
                         2);
 
                 imageReader.setOnImageAvailableListener(imageReader -> {
+                    long resumeLatency = lifecycle.onFrame(SystemClock.elapsedRealtimeNanos());
+                    if (resumeLatency >= 0) {
+                        PipelineStats.INSTANCE.record(PipelineStats.Stage.RESUME_TO_FIRST_FRAME, resumeLatency);
+                        Log.d(TAG, "resume to first frame " + resumeLatency / 1_000_000 + " ms");
+                    }
                     if (onImageAvailableListener != null) {
                         onImageAvailableListener.onImageAvailable(imageReader);
                     }
@@ -170,6 +301,7 @@ public class Camera2PreviewHelper extends Camera2Helper {
 
             } else {
                 Log.e(TAG, "imageAvailableListener is not set");
+                lifecycle.close();
                 return;
             }
 
@@ -185,6 +317,8 @@ public class Camera2PreviewHelper extends Camera2Helper {
                         REQUEST_CAMERA_PERMISSION);
 
                 Log.d(TAG,"Permission issue");
+                // 授权之后重新 startCamera
+                lifecycle.close();
                 return;
             }
             Log.d(TAG, "Opening camera from manager " + cameraId);
@@ -192,9 +326,121 @@ public class Camera2PreviewHelper extends Camera2Helper {
 
         } catch (CameraAccessException e) {
             e.printStackTrace();
+            lifecycle.close();
         }
     }
 
+    @Nullable
+    private static List<Range<Integer>> toRanges(CameraCapabilities capabilities) {
+        int count = capabilities.getFpsRangeCount();
+        if (count == 0) {
+            return null;
+        }
+        List<Range<Integer>> ranges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ranges.add(new Range<>(capabilities.getMinFps(i), capabilities.getMaxFps(i)));
+        }
+        Log.d(TAG, "fps ranges " + ranges);
+        return ranges;
+    }
+
+    private static synchronized CameraCapabilityCache getCapabilityCache(Context context) {
+        if (capabilityCache == null) {
+            File file = new File(context.getFilesDir(), CameraCapabilityCache.FILE_NAME);
+            capabilityCache = new CameraCapabilityCache(file, Build.FINGERPRINT);
+        }
+        return capabilityCache;
+    }
+
+    /** 拷贝用到的参数, 每个摄像头一次 getCameraCharacteristics */
+    private static CameraCapabilities readCapabilities(CameraManager manager, String cameraId)
+            throws CameraAccessException {
+        CameraCharacteristics characteristics = manager.getCameraCharacteristics(cameraId);
+        StreamConfigurationMap map = characteristics.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+        int[] formats = new int[]{ImageFormat.JPEG, ImageFormat.YUV_420_888};
+        int[][] widths = new int[formats.length][];
+        int[][] heights = new int[formats.length][];
+        for (int i = 0; i < formats.length; i++) {
+            Size[] sizes = map == null ? null : map.getOutputSizes(formats[i]);
+            int count = sizes == null ? 0 : sizes.length;
+            widths[i] = new int[count];
+            heights[i] = new int[count];
+            for (int k = 0; k < count; k++) {
+                widths[i][k] = sizes[k].getWidth();
+                heights[i][k] = sizes[k].getHeight();
+            }
+        }
+        Range<Integer>[] ranges = characteristics.get(CameraCharacteristics.CONTROL_AE_AVAILABLE_TARGET_FPS_RANGES);
+        int rangeCount = ranges == null ? 0 : ranges.length;
+        int[] minFps = new int[rangeCount];
+        int[] maxFps = new int[rangeCount];
+        for (int i = 0; i < rangeCount; i++) {
+            minFps[i] = ranges[i].getLower();
+            maxFps[i] = ranges[i].getUpper();
+        }
+        Integer facing = characteristics.get(CameraCharacteristics.LENS_FACING);
+        Integer orientation = characteristics.get(CameraCharacteristics.SENSOR_ORIENTATION);
+        return new CameraCapabilities(cameraId,
+                facing == null ? CameraCharacteristics.LENS_FACING_EXTERNAL : facing,
+                orientation == null ? 0 : orientation,
+                formats, widths, heights, minFps, maxFps);
+    }
+
+    /** 每个进程校验一次, 单独的低优先级线程, 不占用出帧的 Camera Background 线程 */
+    private static synchronized void validateCapabilitiesOnce(CameraManager manager, CameraCapabilityCache cache) {
+        if (capabilitiesValidated) {
+            return;
+        }
+        capabilitiesValidated = true;
+        Thread thread = new Thread(() -> {
+            android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_BACKGROUND);
+            validateCapabilities(manager, cache);
+        }, "CameraCapabilities");
+        thread.start();
+    }
+
+    /** 重新查询全部摄像头, 与缓存不同时覆盖, 下次打开生效 */
+    private static void validateCapabilities(CameraManager manager, CameraCapabilityCache cache) {
+        try {
+            String[] ids = manager.getCameraIdList();
+            List<CameraCapabilities> fresh = new ArrayList<>(ids.length);
+            for (String id : ids) {
+                fresh.add(readCapabilities(manager, id));
+            }
+            if (cache.update(fresh)) {
+                Log.d(TAG, "camera capabilities cache updated, " + fresh.size() + " cameras");
+            }
+        } catch (CameraAccessException | IOException | RuntimeException e) {
+            Log.e(TAG, "validate camera capabilities failed", e);
+        }
+    }
+
+    /**
+     * 一帧推理结果回来了, 吞吐持续变化时切换传感器帧率范围并重新下发 repeating request
+     * @param nowNanos 当前时间, SystemClock.elapsedRealtimeNanos()
+     */
+    public void onInferenceResult(long nowNanos) {
+        FrameRateGovernor governor = frameRateGovernor;
+        if (governor == null) {
+            return;
+        }
+        int range = governor.onResult(nowNanos);
+        Handler handler = mainHandler;
+        if (range >= 0 && handler != null) {
+            Log.d(TAG, String.format(Locale.US, "throughput %.1f fps, switch fps range to [%d, %d]", governor.getThroughput(),
+                    governor.getMinFps(range), governor.getMaxFps(range)));
+            handler.post(this::updatePreview);
+        }
+    }
+
+    private Size chooseOutputSize(@Nullable int[] widths, @Nullable int[] heights, boolean swappedDimensions) {
+        if (widths == null || heights == null || widths.length == 0) {
+            throw new IllegalStateException("No output sizes for format " + imageFormat);
+        }
+        int index = Math.max(sizeSelector.select(widths, heights, swappedDimensions), 0);
+        return new Size(widths[index], heights[index]);
+    }
+
     protected final CameraDevice.StateCallback stateCallback = new CameraDevice.StateCallback() {
         @Override
         public void onOpened(@NonNull CameraDevice camera) {
@@ -204,16 +450,20 @@ public class Camera2PreviewHelper extends Camera2Helper {
         }
 
         @Override
-        public void onDisconnected(@NonNull CameraDevice cameraDevice) {
-            cameraDevice.close();
+        public void onDisconnected(@NonNull CameraDevice camera) {
+            // 被其他应用抢占, 下次 startCamera 重新打开
+            Log.d(TAG, "camera disconnected");
+            closeCamera();
+            camera.close();
         }
 
         @Override
         public void onError(@NonNull CameraDevice device, int i) {
             try {
                 Log.e(TAG, "Error on  CameraDevice");
+                closeCamera();
+                // 出错时可能还没走到 onOpened
                 device.close();
-                cameraDevice = null;
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -227,12 +477,8 @@ public class Camera2PreviewHelper extends Camera2Helper {
             Log.d(TAG, "Creating camera preview");
             captureRequestBuilder = cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
             captureRequestBuilder.set(CaptureRequest.LENS_OPTICAL_STABILIZATION_MODE, CaptureRequest.LENS_OPTICAL_STABILIZATION_MODE_ON);
-            WindowManager manager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
-            int rotation = manager.getDefaultDisplay().getRotation();
-
-//            int rotation = getDisplayRotation(characteristics);
-            captureRequestBuilder.set(CaptureRequest.JPEG_ORIENTATION, getOrientation(rotation));
-//            captureRequestBuilder.set(CaptureRequest.JPEG_ORIENTATION, frameRotation);
+            // 不设置 JPEG_ORIENTATION: 很多 HAL 只写 EXIF, BitmapFactory 又不读 EXIF, 像素是否旋转过无法确定.
+            // 两种格式都输出传感器方向的原始帧, 旋转全部由 LandmarkTransform 处理
             captureRequestBuilder.addTarget(imageReader.getSurface());
 
             cameraDevice.createCaptureSession(Arrays.asList(imageReader.getSurface()), new CameraCaptureSession.StateCallback() {
@@ -242,7 +488,10 @@ public class Camera2PreviewHelper extends Camera2Helper {
                         return;
                     }
                     cameraCaptureSessions = cameraCaptureSession;
-                    updatePreview();
+                    // 打开过程中被暂停时先不出流, 等 resumeCamera
+                    if (lifecycle.stream()) {
+                        updatePreview();
+                    }
                 }
 
                 @Override
@@ -255,26 +504,21 @@ public class Camera2PreviewHelper extends Camera2Helper {
         }
     }
 
-    private int getOrientation(int rotation) {
-        // Sensor orientation is 90 for most devices, or 270 for some devices (eg. Nexus 5X)
-        // We have to take that into account and rotate JPEG properly.
-        // For devices with orientation of 90, we simply return our mapping from ORIENTATIONS.
-        // For devices with orientation of 270, we need to rotate the JPEG 180 degrees.
-        return (ORIENTATIONS.get(rotation) + mSensorOrientation + 270) % 360;
-    }
-
 
     protected void updatePreview() {
-        if (null == cameraDevice) {
+        if (null == cameraDevice || null == cameraCaptureSessions) {
             Log.e(TAG, "updatePreview error , return");
             return;
         }
-        WindowManager manager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
-        int rotation = manager.getDefaultDisplay().getRotation();
-
-//            int rotation = getDisplayRotation(characteristics);
-        captureRequestBuilder.set(CaptureRequest.JPEG_ORIENTATION, getOrientation(rotation));
+        // 暂停时帧率调整等更新不能把流重新打开
+        if (lifecycle.getState() != CameraLifecycle.State.STREAMING) {
+            return;
+        }
         captureRequestBuilder.set(CaptureRequest.CONTROL_MODE, CameraMetadata.CONTROL_MODE_AUTO);
+        FrameRateGovernor governor = frameRateGovernor;
+        if (governor != null && fpsRanges != null) {
+            captureRequestBuilder.set(CaptureRequest.CONTROL_AE_TARGET_FPS_RANGE, fpsRanges.get(governor.getCurrentRange()));
+        }
         try {
             cameraCaptureSessions.setRepeatingRequest(captureRequestBuilder.build(), null, mBackgroundHandler);
         } catch (CameraAccessException e) {
@@ -286,28 +530,39 @@ public class Camera2PreviewHelper extends Camera2Helper {
     protected int getDisplayRotation(CameraCharacteristics cameraCharacteristics) {
         WindowManager manager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
         int rotation = manager.getDefaultDisplay().getRotation();
-        int degress = 0;
-        switch (rotation) {
+        int sensorOrientation = cameraCharacteristics.get(CameraCharacteristics.SENSOR_ORIENTATION);
+        boolean front = cameraCharacteristics.get(CameraCharacteristics.LENS_FACING) == CameraCharacteristics.LENS_FACING_FRONT;
+        return LandmarkTransform.displayRotation(sensorOrientation, front, toDegrees(rotation));
+    }
+
+    private static int toDegrees(int surfaceRotation) {
+        switch (surfaceRotation) {
             case Surface.ROTATION_90:
-                degress = 90;
-                break;
+                return 90;
             case Surface.ROTATION_180:
-                degress = 180;
-                break;
+                return 180;
             case Surface.ROTATION_270:
-                degress = 270;
-                break;
+                return 270;
             default:
-                degress = 0;
-                break;
+                return 0;
         }
+    }
 
-        int sensorOrientation = cameraCharacteristics.get(CameraCharacteristics.SENSOR_ORIENTATION);
-        if (cameraCharacteristics.get(CameraCharacteristics.LENS_FACING) == CameraCharacteristics.LENS_FACING_FRONT) {
-            return (360 - (sensorOrientation + degress) % 360) % 360;
-        } else  {
-            return (sensorOrientation - degress + 360) % 360;
-        }
+    /**
+     * 原始帧上的关键点到屏幕方向的变换. 帧不经过任何旋转 (不设置 JPEG_ORIENTATION), 两种格式一样
+     */
+    private LandmarkTransform createLandmarkTransform(CameraCapabilities capabilities, int displayRotation) {
+        boolean front = capabilities.isFrontFacing();
+        LandmarkTransform transform = LandmarkTransform.forCamera(
+                mSensorOrientation, front, toDegrees(displayRotation), 0);
+        Log.d(TAG, "openCamera: sensor " + mSensorOrientation + ", front " + front + ", " + transform);
+        return transform;
+    }
+
+    /** 把原始帧上的关键点转到屏幕方向的变换, 摄像头打开之前为不变换 */
+    @NonNull
+    public LandmarkTransform getLandmarkTransform() {
+        return landmarkTransform;
     }
 
     protected void startBackgroundThread() {
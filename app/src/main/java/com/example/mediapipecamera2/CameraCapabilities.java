@@ -0,0 +1,211 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 一个摄像头用到的能力参数快照: 各输出格式的尺寸, 帧率范围, 传感器方向和朝向.
+ *
+ * <p>从 CameraCharacteristics 拷贝出来后不再需要 binder 调用, 可以写进 {@link CameraCapabilityCache}.
+ * 朝向使用 CameraCharacteristics.LENS_FACING 的取值. 不可变, 数组在构造时拷贝.
+ */
+public final class CameraCapabilities {
+
+    /** 与 CameraCharacteristics.LENS_FACING_FRONT 相同 */
+    public static final int LENS_FACING_FRONT = 0;
+
+    // 序列化时各数组长度的上限
+    private static final int MAX_COUNT = 4096;
+
+    private final String cameraId;
+    private final int lensFacing;
+    private final int sensorOrientation;
+    // 第 i 种输出格式 formats[i] 的尺寸为 widths[i][k] x heights[i][k]
+    private final int[] formats;
+    private final int[][] widths;
+    private final int[][] heights;
+    private final int[] minFps;
+    private final int[] maxFps;
+
+    public CameraCapabilities(@NonNull String cameraId, int lensFacing, int sensorOrientation,
+                              @NonNull int[] formats, @NonNull int[][] widths, @NonNull int[][] heights,
+                              @NonNull int[] minFps, @NonNull int[] maxFps) {
+        if (formats.length != widths.length || formats.length != heights.length) {
+            throw new IllegalArgumentException("formats and sizes do not match");
+        }
+        if (minFps.length != maxFps.length) {
+            throw new IllegalArgumentException("Invalid fps ranges: " + minFps.length + "/" + maxFps.length);
+        }
+        this.cameraId = cameraId;
+        this.lensFacing = lensFacing;
+        this.sensorOrientation = sensorOrientation;
+        this.formats = formats.clone();
+        this.widths = new int[formats.length][];
+        this.heights = new int[formats.length][];
+        for (int i = 0; i < formats.length; i++) {
+            if (widths[i].length != heights[i].length) {
+                throw new IllegalArgumentException("widths and heights do not match for format " + formats[i]);
+            }
+            this.widths[i] = widths[i].clone();
+            this.heights[i] = heights[i].clone();
+        }
+        this.minFps = minFps.clone();
+        this.maxFps = maxFps.clone();
+    }
+
+    @NonNull
+    public String getCameraId() {
+        return cameraId;
+    }
+
+    public int getLensFacing() {
+        return lensFacing;
+    }
+
+    public boolean isFrontFacing() {
+        return lensFacing == LENS_FACING_FRONT;
+    }
+
+    public int getSensorOrientation() {
+        return sensorOrientation;
+    }
+
+    /** 输出格式 format 的各尺寸的宽, 不支持该格式时为 null; 返回内部数组, 不要修改 */
+    @Nullable
+    public int[] getWidths(int format) {
+        int i = indexOf(format);
+        return i < 0 ? null : widths[i];
+    }
+
+    /** 与 {@link #getWidths(int)} 一一对应的高 */
+    @Nullable
+    public int[] getHeights(int format) {
+        int i = indexOf(format);
+        return i < 0 ? null : heights[i];
+    }
+
+    /** 帧率范围个数, 下标与 {@link #getMinFps}/{@link #getMaxFps} 一致 */
+    public int getFpsRangeCount() {
+        return minFps.length;
+    }
+
+    public int getMinFps(int range) {
+        return minFps[range];
+    }
+
+    public int getMaxFps(int range) {
+        return maxFps[range];
+    }
+
+    /** 不支持设置帧率范围时为 null */
+    @Nullable
+    public FrameRateGovernor createFrameRateGovernor() {
+        return minFps.length == 0 ? null : new FrameRateGovernor(minFps, maxFps);
+    }
+
+    private int indexOf(int format) {
+        for (int i = 0; i < formats.length; i++) {
+            if (formats[i] == format) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    void writeTo(@NonNull DataOutput out) throws IOException {
+        out.writeUTF(cameraId);
+        out.writeByte(lensFacing);
+        out.writeShort(sensorOrientation);
+        out.writeInt(formats.length);
+        for (int i = 0; i < formats.length; i++) {
+            out.writeInt(formats[i]);
+            out.writeInt(widths[i].length);
+            for (int k = 0; k < widths[i].length; k++) {
+                out.writeInt(widths[i][k]);
+                out.writeInt(heights[i][k]);
+            }
+        }
+        out.writeInt(minFps.length);
+        for (int i = 0; i < minFps.length; i++) {
+            out.writeInt(minFps[i]);
+            out.writeInt(maxFps[i]);
+        }
+    }
+
+    @NonNull
+    static CameraCapabilities readFrom(@NonNull DataInput in) throws IOException {
+        String cameraId = in.readUTF();
+        int lensFacing = in.readUnsignedByte();
+        int sensorOrientation = in.readUnsignedShort();
+        int formatCount = readCount(in);
+        int[] formats = new int[formatCount];
+        int[][] widths = new int[formatCount][];
+        int[][] heights = new int[formatCount][];
+        for (int i = 0; i < formatCount; i++) {
+            formats[i] = in.readInt();
+            int sizeCount = readCount(in);
+            widths[i] = new int[sizeCount];
+            heights[i] = new int[sizeCount];
+            for (int k = 0; k < sizeCount; k++) {
+                widths[i][k] = in.readInt();
+                heights[i][k] = in.readInt();
+            }
+        }
+        int rangeCount = readCount(in);
+        int[] minFps = new int[rangeCount];
+        int[] maxFps = new int[rangeCount];
+        for (int i = 0; i < rangeCount; i++) {
+            minFps[i] = in.readInt();
+            maxFps[i] = in.readInt();
+        }
+        return new CameraCapabilities(cameraId, lensFacing, sensorOrientation, formats, widths, heights, minFps, maxFps);
+    }
+
+    /** 读一个个数, 文件损坏时不按读到的值分配数组 */
+    static int readCount(@NonNull DataInput in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_COUNT) {
+            throw new IOException("Invalid count " + count);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (this == o) { return true; }
+        if (!(o instanceof CameraCapabilities)) { return false; }
+        CameraCapabilities that = (CameraCapabilities) o;
+        return lensFacing == that.lensFacing
+                && sensorOrientation == that.sensorOrientation
+                && cameraId.equals(that.cameraId)
+                && Arrays.equals(formats, that.formats)
+                && Arrays.deepEquals(widths, that.widths)
+                && Arrays.deepEquals(heights, that.heights)
+                && Arrays.equals(minFps, that.minFps)
+                && Arrays.equals(maxFps, that.maxFps);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = cameraId.hashCode();
+        result = 31 * result + lensFacing;
+        result = 31 * result + sensorOrientation;
+        result = 31 * result + Arrays.hashCode(formats);
+        result = 31 * result + Arrays.deepHashCode(widths);
+        result = 31 * result + Arrays.hashCode(maxFps);
+        return result;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "CameraCapabilities{id=" + cameraId + ", facing=" + lensFacing
+                + ", orientation=" + sensorOrientation + ", formats=" + Arrays.toString(formats)
+                + ", fpsRanges=" + minFps.length + "}";
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 摄像头能力参数的持久化缓存, 省掉打开摄像头时的 getCameraIdList/getCameraCharacteristics.
+ *
+ * <p>文件放在 files 目录, 头部记录设备指纹 (Build.FINGERPRINT), 指纹不同 (换机, 系统升级) 时整个缓存作废.
+ * 第一次 {@link #get}/{@link #getCameraIds} 时才读文件; 调用方在后台重新查询后用 {@link #update} 校验,
+ * 内容变化时覆盖文件.
+ *
+ * <pre>
+ * int magic, int version, UTF fingerprint, int cameraCount
+ * cameraCount 个 {@link CameraCapabilities}
+ * </pre>
+ */
+public final class CameraCapabilityCache {
+
+    private static final String TAG = "CameraCapabilityCache";
+
+    static final int MAGIC = 0x43435043; // "CCPC"
+    // 2: 尺寸, 帧率和各个个数改为 int; 1 用 byte/short 写, 高速模式的帧率会被截断
+    static final int VERSION = 2;
+    public static final String FILE_NAME = "camera-capabilities.bin";
+
+    private final File file;
+    private final String fingerprint;
+
+    private boolean loaded;
+    // 按 getCameraIdList 的顺序
+    private List<CameraCapabilities> cameras = Collections.emptyList();
+
+    /**
+     * @param file 缓存文件, 一般为 files 目录下的 {@link #FILE_NAME}
+     * @param fingerprint 设备指纹, 与文件中的不同时忽略文件
+     */
+    public CameraCapabilityCache(@NonNull File file, @NonNull String fingerprint) {
+        this.file = file;
+        this.fingerprint = fingerprint;
+    }
+
+    /** 缓存的摄像头 id, 顺序与 getCameraIdList 一致; 没有缓存时为空 */
+    @NonNull
+    public synchronized List<String> getCameraIds() {
+        load();
+        List<String> ids = new ArrayList<>(cameras.size());
+        for (CameraCapabilities camera : cameras) {
+            ids.add(camera.getCameraId());
+        }
+        return ids;
+    }
+
+    /** 缓存的能力参数, 没有时为 null */
+    @Nullable
+    public synchronized CameraCapabilities get(@NonNull String cameraId) {
+        load();
+        for (CameraCapabilities camera : cameras) {
+            if (camera.getCameraId().equals(cameraId)) {
+                return camera;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 用重新查询到的全部摄像头校验缓存, 不同时替换并写文件
+     * @return 缓存是否有变化
+     */
+    public synchronized boolean update(@NonNull List<CameraCapabilities> fresh) throws IOException {
+        load();
+        if (cameras.equals(fresh)) {
+            return false;
+        }
+        cameras = Collections.unmodifiableList(new ArrayList<>(fresh));
+        save();
+        return true;
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!file.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                if (HandLogUtil.ENABLED) {
+                    HandLogUtil.logd(TAG, "ignore cache with unknown format: {}", file);
+                }
+                return;
+            }
+            if (!fingerprint.equals(in.readUTF())) {
+                if (HandLogUtil.ENABLED) {
+                    HandLogUtil.logd(TAG, "ignore cache from another build: {}", file);
+                }
+                return;
+            }
+            int count = CameraCapabilities.readCount(in);
+            List<CameraCapabilities> list = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                list.add(CameraCapabilities.readFrom(in));
+            }
+            cameras = Collections.unmodifiableList(list);
+        } catch (IOException | IllegalArgumentException e) {
+            // 损坏的缓存当作没有, 后台校验时会重写
+            HandLogUtil.loge(TAG, "read cache failed", e);
+        }
+    }
+
+    /** 先写临时文件再改名, 写到一半被杀掉时不会留下损坏的缓存 */
+    private void save() throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(fingerprint);
+            out.writeInt(cameras.size());
+            for (CameraCapabilities camera : cameras) {
+                camera.writeTo(out);
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("rename " + tmp + " to " + file + " failed");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 摄像头的生命周期状态, 以及从恢复出流到第一帧的耗时.
+ *
+ * <pre>
+ * CLOSED --open--> OPEN --stream--> STREAMING <--pause/resume--> PAUSED
+ *   ^                                                              |
+ *   +------------------------- close (任意状态) -------------------+
+ * </pre>
+ *
+ * <p>OPEN 表示设备正在打开或会话还没配置好; PAUSED 时设备和会话都保留, 只停了 repeating request,
+ * 恢复时一次 setRepeatingRequest 即可. 会话配置好之前暂停也进入 PAUSED, 配置好之后 {@link #stream()} 不出流.
+ *
+ * <p>每次 open 之后第一次进入 STREAMING 时回调 {@link OnStartedListener}, 不论是会话配置好时的
+ * {@link #stream()}, 还是打开过程中被暂停后的 {@link #resume}.
+ *
+ * <p>状态只在主线程上修改, {@link #onFrame} 在 ImageReader 的线程上调用. 时间由调用方传入, 不依赖 Android.
+ */
+public final class CameraLifecycle {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        STREAMING,
+        PAUSED
+    }
+
+    /** 本次 open 之后第一次出流, 在改变状态的线程上回调 */
+    public interface OnStartedListener {
+        void onStarted();
+    }
+
+    private volatile State state = State.CLOSED;
+    // 本次 open 之后是否已经进入过 STREAMING
+    private boolean started;
+    private OnStartedListener onStartedListener;
+    // 从 PAUSED 恢复出流的时间, 收到第一帧后清零
+    private volatile long resumeNanos;
+    private long lastResumeLatency = -1;
+
+    public synchronized void setOnStartedListener(OnStartedListener listener) {
+        onStartedListener = listener;
+    }
+
+    @NonNull
+    public State getState() {
+        return state;
+    }
+
+    /** CLOSED -> OPEN */
+    public synchronized boolean open() {
+        if (state != State.CLOSED) {
+            return false;
+        }
+        state = State.OPEN;
+        started = false;
+        return true;
+    }
+
+    /** OPEN -> STREAMING, 会话配置好之后调用, 调用方随后下发 repeating request */
+    public boolean stream() {
+        OnStartedListener listener;
+        synchronized (this) {
+            if (state != State.OPEN) {
+                return false;
+            }
+            state = State.STREAMING;
+            listener = takeStartedListener();
+        }
+        if (listener != null) {
+            listener.onStarted();
+        }
+        return true;
+    }
+
+    /**
+     * PAUSED -> STREAMING, 调用方随后下发 repeating request
+     * @param nowNanos 当前时间, 恢复耗时的起点
+     */
+    public boolean resume(long nowNanos) {
+        OnStartedListener listener;
+        synchronized (this) {
+            if (state != State.PAUSED) {
+                return false;
+            }
+            state = State.STREAMING;
+            resumeNanos = nowNanos;
+            listener = takeStartedListener();
+        }
+        if (listener != null) {
+            listener.onStarted();
+        }
+        return true;
+    }
+
+    /** 进入 STREAMING 时调用, 本次 open 之后第一次时返回需要回调的监听 */
+    private OnStartedListener takeStartedListener() {
+        if (started) {
+            return null;
+        }
+        started = true;
+        return onStartedListener;
+    }
+
+    /** OPEN/STREAMING -> PAUSED, 调用方随后停止 repeating request */
+    public synchronized boolean pause() {
+        if (state != State.OPEN && state != State.STREAMING) {
+            return false;
+        }
+        state = State.PAUSED;
+        resumeNanos = 0;
+        return true;
+    }
+
+    /** 任意状态 -> CLOSED; 已经关闭时返回 false */
+    public synchronized boolean close() {
+        resumeNanos = 0;
+        if (state == State.CLOSED) {
+            return false;
+        }
+        state = State.CLOSED;
+        return true;
+    }
+
+    /**
+     * 收到一帧
+     * @return 恢复之后的第一帧返回从恢复到现在的耗时, 其他情况返回 -1
+     */
+    public long onFrame(long nowNanos) {
+        if (resumeNanos == 0) {
+            return -1;
+        }
+        synchronized (this) {
+            long start = resumeNanos;
+            if (start == 0) {
+                return -1;
+            }
+            resumeNanos = 0;
+            lastResumeLatency = nowNanos - start;
+            return lastResumeLatency;
+        }
+    }
+
+    /** 最近一次恢复到第一帧的耗时, 还没有时为 -1 */
+    public synchronized long getLastResumeLatency() {
+        return lastResumeLatency;
+    }
+
+    @Override
+    public String toString() {
+        return "CameraLifecycle{" + state + "}";
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.mediapipecamera2;
+
+/**
+ * 采集分辨率选择策略.
+ *
+ * <p>目标分辨率按显示方向给出. 传感器方向和显示方向相差 90/270 度时 (swappedDimensions),
+ * 先把目标宽高交换, 再和传感器方向的输出尺寸比较.
+ *
+ * <p>选择顺序:
+ * <ol>
+ *   <li>覆盖目标且宽高比一致的最小尺寸</li>
+ *   <li>覆盖目标的最小尺寸</li>
+ *   <li>都不满足时取面积最大的尺寸</li>
+ * </ol>
+ */
+public final class CaptureSizeSelector {
+
+    /** 手部模型的输入只有几百像素, 640x480 足够检测和跟踪 */
+    public static final CaptureSizeSelector DEFAULT = new CaptureSizeSelector(480, 640);
+
+    private static final float ASPECT_TOLERANCE = 0.05f;
+
+    private final int targetWidth;
+    private final int targetHeight;
+
+    public CaptureSizeSelector(int targetWidth, int targetHeight) {
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            throw new IllegalArgumentException(
+                    "Invalid target size: " + targetWidth + "x" + targetHeight);
+        }
+        this.targetWidth = targetWidth;
+        this.targetHeight = targetHeight;
+    }
+
+    public int getTargetWidth() {
+        return targetWidth;
+    }
+
+    public int getTargetHeight() {
+        return targetHeight;
+    }
+
+    /**
+     * @param widths 输出尺寸的宽, 传感器方向
+     * @param heights 输出尺寸的高, 与 widths 一一对应
+     * @param swappedDimensions 传感器方向与显示方向是否相差 90/270 度
+     * @return 选中的下标, 没有可选尺寸时为 -1
+     */
+    public int select(int[] widths, int[] heights, boolean swappedDimensions) {
+        int wantWidth = swappedDimensions ? targetHeight : targetWidth;
+        int wantHeight = swappedDimensions ? targetWidth : targetHeight;
+        float wantAspect = (float) wantWidth / wantHeight;
+
+        int bestMatching = -1;
+        int bestCovering = -1;
+        int largest = -1;
+        for (int i = 0; i < widths.length; i++) {
+            int width = widths[i];
+            int height = heights[i];
+            if (largest < 0 || area(width, height) > area(widths[largest], heights[largest])) {
+                largest = i;
+            }
+            if (width < wantWidth || height < wantHeight) {
+                continue;
+            }
+            if (bestCovering < 0 || area(width, height) < area(widths[bestCovering], heights[bestCovering])) {
+                bestCovering = i;
+            }
+            float aspect = (float) width / height;
+            if (Math.abs(aspect - wantAspect) <= ASPECT_TOLERANCE * wantAspect
+                    && (bestMatching < 0 || area(width, height) < area(widths[bestMatching], heights[bestMatching]))) {
+                bestMatching = i;
+            }
+        }
+
+        if (bestMatching >= 0) { return bestMatching; }
+        if (bestCovering >= 0) { return bestCovering; }
+        return largest;
+    }
+
+    private static long area(int width, int height) {
+        return (long) width * height;
+    }
+}
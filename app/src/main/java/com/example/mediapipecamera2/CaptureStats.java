@@ -0,0 +1,59 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+
+/**
+ * 统计采集帧率和每帧在回调线程上的 CPU 耗时 (解码 + send), 每个统计窗口输出一次.
+ */
+public class CaptureStats {
+
+    private static final long DEFAULT_WINDOW_NANOS = 2_000_000_000L;
+
+    private final String name;
+    private final long windowNanos;
+
+    private long windowStartNanos = -1;
+    private int frames;
+    private long cpuNanos;
+
+    public CaptureStats(String name) {
+        this(name, DEFAULT_WINDOW_NANOS);
+    }
+
+    public CaptureStats(String name, long windowNanos) {
+        this.name = name;
+        this.windowNanos = windowNanos;
+    }
+
+    /**
+     * 记录一帧.
+     * @param nowNanos 当前时间, 单调时钟
+     * @param frameCpuNanos 这一帧消耗的线程 CPU 时间
+     * @return 统计窗口结束时返回汇总, 否则为 null
+     */
+    @Nullable
+    public String onFrame(long nowNanos, long frameCpuNanos) {
+        if (windowStartNanos < 0) {
+            windowStartNanos = nowNanos;
+        }
+        frames++;
+        cpuNanos += frameCpuNanos;
+
+        long elapsed = nowNanos - windowStartNanos;
+        if (elapsed < windowNanos) {
+            return null;
+        }
+
+        float fps = frames * 1e9f / elapsed;
+        float cpuMsPerFrame = cpuNanos / 1e6f / frames;
+        String summary = String.format(Locale.US,
+                "%s: %.1f fps, cpu %.2f ms/frame", name, fps, cpuMsPerFrame);
+
+        windowStartNanos = nowNanos;
+        frames = 0;
+        cpuNanos = 0;
+        return summary;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.Nullable;
+
+/**
+ * 两个缓冲区的交换: 一个在前台显示, 另一个在后台绘制.
+ *
+ * <p>绘制线程 {@link #beginDraw} 取得后台缓冲, 画完 {@link #endDraw} 标记就绪;
+ * 显示线程 {@link #swap} 把就绪的后台缓冲换到前台, 真正换上 (比如 setImageDrawable) 之后调用
+ * {@link #releaseFront}, 原来的前台才交还给绘制线程. 在这之前原来的前台可能还在屏幕上,
+ * beginDraw 返回 false, 不会画它.
+ * 就绪之后还没交换时又开始画, 画的是同一个后台缓冲, 上一次的结果不会显示, 记为覆盖.
+ * 正在画的缓冲不会被交换出去.
+ *
+ * <p>缓冲区本身由调用方创建, 尺寸变化时在绘制线程上用 {@link #setBack} 替换.
+ */
+public final class DoubleBuffer<T> {
+
+    private final Object[] buffers = new Object[2];
+    // 还没有交换过时为 -1
+    private int front = -1;
+    private boolean drawing;
+    private boolean ready;
+    // 换下来的前台还没有 releaseFront, 可能还在显示
+    private boolean backInUse;
+    // backInUse 时有过 beginDraw, releaseFront 时告诉显示线程
+    private boolean drawBlocked;
+
+    private long swapCount;
+    private long overwrittenCount;
+
+    private int backIndex() {
+        return front == 0 ? 1 : 0;
+    }
+
+    /**
+     * 开始画后台缓冲, 在 {@link #endDraw} 之前不会被交换. 成功后用 {@link #getBack} 取缓冲
+     * @return 后台缓冲还没有被 {@link #releaseFront} 交还时为 false, 这时不能画
+     */
+    public synchronized boolean beginDraw() {
+        if (drawing) {
+            throw new IllegalStateException("Already drawing");
+        }
+        if (backInUse) {
+            drawBlocked = true;
+            return false;
+        }
+        if (ready) {
+            overwrittenCount++;
+            ready = false;
+        }
+        drawing = true;
+        return true;
+    }
+
+    /** 正在画的后台缓冲, 只能在 beginDraw 和 endDraw 之间调用; 还没创建时为 null */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public synchronized T getBack() {
+        if (!drawing) {
+            throw new IllegalStateException("Not drawing");
+        }
+        return (T) buffers[backIndex()];
+    }
+
+    /** 替换后台缓冲, 只能在 beginDraw 和 endDraw 之间调用 */
+    public synchronized void setBack(T buffer) {
+        if (!drawing) {
+            throw new IllegalStateException("Not drawing");
+        }
+        buffers[backIndex()] = buffer;
+    }
+
+    /** 后台缓冲画完了, 等待交换 */
+    public synchronized void endDraw() {
+        if (!drawing) {
+            throw new IllegalStateException("Not drawing");
+        }
+        drawing = false;
+        ready = true;
+    }
+
+    /** 放弃这次绘制, 后台缓冲的内容不再显示 */
+    public synchronized void cancelDraw() {
+        drawing = false;
+    }
+
+    /**
+     * 有画好的后台缓冲时换到前台. 换上之后要调用 {@link #releaseFront}, 否则不能再画
+     * @return 新的前台缓冲, 没有画好的时为 null
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public synchronized T swap() {
+        if (!ready) {
+            return null;
+        }
+        ready = false;
+        backInUse = front >= 0;
+        front = backIndex();
+        swapCount++;
+        return (T) buffers[front];
+    }
+
+    /**
+     * 显示线程已经换上 {@link #swap} 返回的缓冲, 原来的前台不再显示, 交还给绘制线程
+     * @return 期间有 beginDraw 因此返回 false, 需要重新安排绘制时为 true
+     */
+    public synchronized boolean releaseFront() {
+        backInUse = false;
+        boolean blocked = drawBlocked;
+        drawBlocked = false;
+        return blocked;
+    }
+
+    /** 正在显示的缓冲, 还没交换过时为 null */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public synchronized T getFront() {
+        return front < 0 ? null : (T) buffers[front];
+    }
+
+    public synchronized long getSwapCount() {
+        return swapCount;
+    }
+
+    /** 画好了但被下一次绘制覆盖, 没有显示过的次数 */
+    public synchronized long getOverwrittenCount() {
+        return overwrittenCount;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 一帧图像和它的引用计数, 由 {@link FramePool#obtain} 取得.
+ *
+ * <p>每个使用这一帧的阶段 ({@link Owner}) 开始持有时 {@link #retain}, 用完后 {@link #release},
+ * 计数归零时像素缓冲回到池里, 这之后不能再访问. Frame 对象本身也会被池复用,
+ * 所以 release 之后不能再保留对它的引用.
+ *
+ * <p>池打开泄漏检测时还按阶段记录引用, 释放了自己没有持有的引用会直接抛异常,
+ * {@link FramePool#checkLeaks} 能报告长时间没有释放的帧被哪些阶段持有.
+ */
+public final class Frame<T> {
+
+    /** 持有帧的阶段 */
+    public enum Owner {
+        /** 摄像头回调, 从解码完到交给调度器 */
+        CAPTURE,
+        /** {@link FrameScheduler}, 从提交到丢弃或结果回来 */
+        SCHEDULER,
+        /** hands.send 调用期间 */
+        INFERENCE,
+        /** 绘制, 比如 {@link HandsResultImageView} 合成期间 */
+        RENDERER,
+        /** 录制 */
+        RECORDER
+    }
+
+    private static final Owner[] OWNERS = Owner.values();
+
+    private final FramePool<T> pool;
+    private final AtomicInteger refCount = new AtomicInteger();
+    // 每个阶段持有的引用数, 只在检测泄漏时记录
+    private final AtomicIntegerArray ownerCounts = new AtomicIntegerArray(OWNERS.length);
+
+    private T pixels;
+    private long timestamp;
+    private int width;
+    private int height;
+    private int rotation;
+    private boolean frontFacing;
+    // 从池里取出的时间, 用于检测泄漏
+    long obtainNanos;
+
+    Frame(@NonNull FramePool<T> pool) {
+        this.pool = pool;
+    }
+
+    void set(T pixels, long timestamp, int width, int height, int rotation, boolean frontFacing,
+             Owner owner, long nowNanos) {
+        this.pixels = pixels;
+        this.timestamp = timestamp;
+        this.width = width;
+        this.height = height;
+        this.rotation = rotation;
+        this.frontFacing = frontFacing;
+        obtainNanos = nowNanos;
+        for (int i = 0; i < OWNERS.length; i++) {
+            ownerCounts.set(i, 0);
+        }
+        if (pool.detectsLeaks()) {
+            ownerCounts.set(owner.ordinal(), 1);
+        }
+        refCount.set(1);
+    }
+
+    /** 归零后由池调用, 交出像素缓冲 */
+    T clear() {
+        T released = pixels;
+        pixels = null;
+        return released;
+    }
+
+    /** owner 开始持有这一帧 */
+    @NonNull
+    public Frame<T> retain(@NonNull Owner owner) {
+        int count;
+        do {
+            count = refCount.get();
+            if (count <= 0) {
+                throw new IllegalStateException(owner + " retained released frame " + timestamp);
+            }
+        } while (!refCount.compareAndSet(count, count + 1));
+        if (pool.detectsLeaks()) {
+            ownerCounts.incrementAndGet(owner.ordinal());
+        }
+        return this;
+    }
+
+    /** owner 用完了这一帧, 最后一个引用释放时像素缓冲回到池里 */
+    public void release(@NonNull Owner owner) {
+        if (pool.detectsLeaks() && ownerCounts.decrementAndGet(owner.ordinal()) < 0) {
+            ownerCounts.incrementAndGet(owner.ordinal());
+            throw new IllegalStateException(owner + " does not hold frame " + timestamp);
+        }
+        int count = refCount.decrementAndGet();
+        if (count == 0) {
+            pool.recycle(this);
+        } else if (count < 0) {
+            throw new IllegalStateException(owner + " released frame " + timestamp + " too many times");
+        }
+    }
+
+    @NonNull
+    public T getPixels() {
+        T p = pixels;
+        if (p == null || refCount.get() <= 0) {
+            throw new IllegalStateException("Frame " + timestamp + " already released");
+        }
+        return p;
+    }
+
+    public int getRefCount() {
+        return refCount.get();
+    }
+
+    /** 传感器时间戳, 同时是送进 graph 的时间戳 */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /** 转到屏幕方向需要顺时针旋转的角度, 见 {@link LandmarkTransform#getRotation()} */
+    public int getRotation() {
+        return rotation;
+    }
+
+    public boolean isFrontFacing() {
+        return frontFacing;
+    }
+
+    /** 持有这一帧的阶段, 只在检测泄漏时有效 */
+    @NonNull
+    String describeOwners() {
+        StringBuilder owners = new StringBuilder();
+        for (Owner owner : OWNERS) {
+            int count = ownerCounts.get(owner.ordinal());
+            if (count > 0) {
+                if (owners.length() > 0) {
+                    owners.append(',');
+                }
+                owners.append(owner);
+                if (count > 1) {
+                    owners.append('x').append(count);
+                }
+            }
+        }
+        return owners.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * {@link Frame} 的池. 帧的引用计数归零时像素缓冲交给 {@link Recycler} (比如放回 {@link BitmapPool}),
+ * Frame 对象留在这里复用, 稳定运行时不分配.
+ *
+ * <p>打开泄漏检测 (debug 包) 时记录每一帧被哪些阶段持有, {@link #checkLeaks} 报告取出后
+ * 超过指定时间还没释放的帧. 摄像头线程取用, 各阶段在各自的线程上释放, 所以方法都是同步的.
+ */
+public class FramePool<T> {
+
+    /** 接收引用计数归零的像素缓冲 */
+    public interface Recycler<T> {
+        void recycle(@NonNull T pixels);
+    }
+
+    /** 取当前时间, 单位纳秒 */
+    public interface Clock {
+        long nanoTime();
+    }
+
+    /** 没有按时释放的帧 */
+    public interface LeakListener<T> {
+        /**
+         * @param owners 还持有这一帧的阶段, 例如 "SCHEDULER,RENDERER"
+         */
+        void onLeak(@NonNull Frame<T> frame, long ageNanos, @NonNull String owners);
+    }
+
+    private final Recycler<T> recycler;
+    private final Clock clock;
+    private final boolean detectLeaks;
+
+    // 创建过的所有 Frame, 检测泄漏时遍历
+    private final List<Frame<T>> frames = new ArrayList<>();
+    private final List<Frame<T>> free = new ArrayList<>();
+
+    private long obtained;
+    private long recycled;
+
+    public FramePool(@NonNull Recycler<T> recycler, @NonNull Clock clock, boolean detectLeaks) {
+        this.recycler = recycler;
+        this.clock = clock;
+        this.detectLeaks = detectLeaks;
+    }
+
+    boolean detectsLeaks() {
+        return detectLeaks;
+    }
+
+    /**
+     * 包装一帧, 引用计数为 1, 由 owner 持有
+     * @param rotation 转到屏幕方向需要顺时针旋转的角度
+     */
+    @NonNull
+    public synchronized Frame<T> obtain(@NonNull T pixels, long timestamp, int width, int height,
+                                        int rotation, boolean frontFacing, @NonNull Frame.Owner owner) {
+        Frame<T> frame;
+        if (free.isEmpty()) {
+            frame = new Frame<>(this);
+            frames.add(frame);
+        } else {
+            frame = free.remove(free.size() - 1);
+        }
+        frame.set(pixels, timestamp, width, height, rotation, frontFacing, owner, clock.nanoTime());
+        obtained++;
+        return frame;
+    }
+
+    /** 引用计数归零 */
+    void recycle(@NonNull Frame<T> frame) {
+        T pixels = frame.clear();
+        synchronized (this) {
+            free.add(frame);
+            recycled++;
+        }
+        if (pixels != null) {
+            recycler.recycle(pixels);
+        }
+    }
+
+    /**
+     * 报告取出后超过 maxAgeNanos 还没释放的帧, 没有打开泄漏检测时什么也不做
+     * @return 泄漏的帧数
+     */
+    public synchronized int checkLeaks(long maxAgeNanos, @NonNull LeakListener<T> listener) {
+        if (!detectLeaks) {
+            return 0;
+        }
+        long now = clock.nanoTime();
+        int leaks = 0;
+        for (int i = 0; i < frames.size(); i++) {
+            Frame<T> frame = frames.get(i);
+            long age = now - frame.obtainNanos;
+            if (frame.getRefCount() > 0 && age > maxAgeNanos) {
+                leaks++;
+                listener.onLeak(frame, age, frame.describeOwners());
+            }
+        }
+        return leaks;
+    }
+
+    /** 还没释放的帧数 */
+    public synchronized int getLiveCount() {
+        return (int) (obtained - recycled);
+    }
+
+    /** 创建过的 Frame 对象数, 稳定运行时不再增长 */
+    public synchronized int getCreatedCount() {
+        return frames.size();
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "FramePool obtained=%d live=%d created=%d",
+                obtained, obtained - recycled, frames.size());
+    }
+}
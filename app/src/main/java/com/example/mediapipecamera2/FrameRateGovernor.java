@@ -0,0 +1,163 @@
+package com.example.mediapipecamera2;
+
+/**
+ * 按推理吞吐选择 CONTROL_AE_TARGET_FPS_RANGE.
+ *
+ * <p>传感器出帧比推理快时多出来的帧只会被 {@link FrameScheduler} 丢掉, 白白消耗 ISP 和解码.
+ * 这里按固定窗口统计每秒出结果的帧数, 选上限刚好高于吞吐 (留 {@link #HEADROOM} 余量) 的范围.
+ * 吞吐已经追上当前范围的上限时, 说明瓶颈可能是传感器, 试探上一档.
+ *
+ * <p>同一个新选择要连续 {@link #SUSTAIN_WINDOWS} 个窗口都成立才切换, 避免来回抖动.
+ *
+ * <p>时间由调用方传入, 不依赖 Android, 可以直接做单元测试.
+ */
+public final class FrameRateGovernor {
+
+    static final long WINDOW_NANOS = 1_000_000_000L;
+    static final int SUSTAIN_WINDOWS = 3;
+    // 选范围时在吞吐上留的余量
+    static final float HEADROOM = 1.2f;
+    // 吞吐达到当前上限的这个比例时认为被传感器限制
+    static final float SATURATED = 0.9f;
+
+    private final int[] minFps;
+    private final int[] maxFps;
+
+    private int current;
+
+    private long windowStartNanos = -1;
+    private int windowFrames;
+    private float throughput;
+
+    private int proposed = -1;
+    private int proposedWindows;
+
+    /**
+     * @param minFps 可用范围的下限, CONTROL_AE_AVAILABLE_TARGET_FPS_RANGES 的 getLower()
+     * @param maxFps 可用范围的上限, 与 minFps 一一对应
+     */
+    public FrameRateGovernor(int[] minFps, int[] maxFps) {
+        if (minFps.length == 0 || minFps.length != maxFps.length) {
+            throw new IllegalArgumentException("Invalid fps ranges: " + minFps.length + "/" + maxFps.length);
+        }
+        this.minFps = minFps.clone();
+        this.maxFps = maxFps.clone();
+        // 还没有测量时用最高的范围, 不限制推理
+        current = highest();
+    }
+
+    /** 当前选中的范围下标 */
+    public synchronized int getCurrentRange() {
+        return current;
+    }
+
+    public int getMinFps(int range) {
+        return minFps[range];
+    }
+
+    public int getMaxFps(int range) {
+        return maxFps[range];
+    }
+
+    /** 最近一个完整窗口的吞吐, 帧/秒 */
+    public synchronized float getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * 一帧推理结果回来了
+     * @param nowNanos 当前时间
+     * @return 需要切换到的范围下标, 不需要切换时为 -1
+     */
+    public synchronized int onResult(long nowNanos) {
+        if (windowStartNanos < 0) {
+            windowStartNanos = nowNanos;
+        }
+        windowFrames++;
+        long elapsed = nowNanos - windowStartNanos;
+        if (elapsed < WINDOW_NANOS) {
+            return -1;
+        }
+
+        throughput = windowFrames * 1e9f / elapsed;
+        windowStartNanos = nowNanos;
+        windowFrames = 0;
+
+        int wanted = target(throughput);
+        if (wanted == current) {
+            proposed = -1;
+            proposedWindows = 0;
+            return -1;
+        }
+        if (wanted != proposed) {
+            proposed = wanted;
+            proposedWindows = 0;
+        }
+        if (++proposedWindows < SUSTAIN_WINDOWS) {
+            return -1;
+        }
+        current = wanted;
+        proposed = -1;
+        proposedWindows = 0;
+        return current;
+    }
+
+    /** 重新开始统计, 例如摄像头重新打开之后; 已选中的范围保留 */
+    public synchronized void reset() {
+        windowStartNanos = -1;
+        windowFrames = 0;
+        proposed = -1;
+        proposedWindows = 0;
+    }
+
+    private int target(float fps) {
+        if (fps >= maxFps[current] * SATURATED) {
+            int higher = nextHigher(maxFps[current]);
+            return higher >= 0 ? higher : current;
+        }
+        return select(fps * HEADROOM);
+    }
+
+    /**
+     * 上限不低于 wantFps 的范围中上限最小的一个, 上限相同时取下限高的 (帧间隔更稳定);
+     * 没有时取上限最高的
+     */
+    int select(float wantFps) {
+        int best = -1;
+        for (int i = 0; i < maxFps.length; i++) {
+            if (maxFps[i] < wantFps) {
+                continue;
+            }
+            if (best < 0 || maxFps[i] < maxFps[best]
+                    || (maxFps[i] == maxFps[best] && minFps[i] > minFps[best])) {
+                best = i;
+            }
+        }
+        return best >= 0 ? best : highest();
+    }
+
+    private int nextHigher(int fps) {
+        int best = -1;
+        for (int i = 0; i < maxFps.length; i++) {
+            if (maxFps[i] <= fps) {
+                continue;
+            }
+            if (best < 0 || maxFps[i] < maxFps[best]
+                    || (maxFps[i] == maxFps[best] && minFps[i] > minFps[best])) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private int highest() {
+        int best = 0;
+        for (int i = 1; i < maxFps.length; i++) {
+            if (maxFps[i] > maxFps[best]
+                    || (maxFps[i] == maxFps[best] && minFps[i] > minFps[best])) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+/**
+ * 摄像头和 Hands graph 之间的帧调度.
+ *
+ * <p>记录已经 send 但结果还没回来的帧, 同时在途的帧不超过 maxInFlight.
+ * 满了以后新帧放进唯一的等待位, 更新的帧会顶掉旧的 (latest-wins), 被顶掉的帧记为丢弃.
+ * 有结果回来腾出位置时, 等待位里的帧立即发送.
+ *
+ * <p>所有 send 都在持锁时提交给 sendExecutor, sendExecutor 必须是单线程的,
+ * 这样送进 graph 的时间戳始终递增.
+ *
+ * <p>每一帧最终要么被丢弃, 要么完成, 分别回调 {@link OnFrameDroppedListener} 和
+ * {@link OnFrameCompletedListener}, 调用方在这两处归还帧的缓冲区.
+ * send 失败的帧不会有结果, 由 {@link #onSendFailed} 立即完成, 否则它会一直占着在途的位置.
+ */
+public class FrameScheduler<T> {
+
+    /** 推理入口, 对应 hands.send; 抛出 RuntimeException 表示这一帧没有送进 graph */
+    public interface Sink<T> {
+        void send(@NonNull T frame, long timestamp);
+    }
+
+    /** send 失败, 在 sendExecutor 上回调, 之后这一帧按完成处理 */
+    public interface OnSendFailedListener {
+        void onSendFailed(long timestamp, @NonNull RuntimeException e);
+    }
+
+    /** 被丢弃的帧, 用来归还缓冲区 */
+    public interface OnFrameDroppedListener<T> {
+        void onFrameDropped(@NonNull T frame, long timestamp);
+    }
+
+    /** 结果已经回来, 或者重置时还在途, 之后 graph 不会再用到这一帧 */
+    public interface OnFrameCompletedListener<T> {
+        void onFrameCompleted(@NonNull T frame, long timestamp);
+    }
+
+    private final int maxInFlight;
+    private final Sink<T> sink;
+    private final Executor sendExecutor;
+    @Nullable
+    private OnFrameDroppedListener<T> onFrameDroppedListener;
+    @Nullable
+    private OnFrameCompletedListener<T> onFrameCompletedListener;
+    @Nullable
+    private OnSendFailedListener onSendFailedListener;
+
+    private final long[] inFlightTimestamps;
+    private final Object[] inFlightFrames;
+    private int inFlight;
+
+    @Nullable
+    private T pendingFrame;
+    private long pendingTimestamp;
+
+    private long submitted;
+    private long sent;
+    private long dropped;
+    private long completed;
+    private long failed;
+
+    public FrameScheduler(int maxInFlight, @NonNull Sink<T> sink, @NonNull Executor sendExecutor) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+        this.sink = sink;
+        this.sendExecutor = sendExecutor;
+        this.inFlightTimestamps = new long[maxInFlight];
+        this.inFlightFrames = new Object[maxInFlight];
+    }
+
+    public synchronized void setOnFrameDroppedListener(@Nullable OnFrameDroppedListener<T> listener) {
+        onFrameDroppedListener = listener;
+    }
+
+    public synchronized void setOnFrameCompletedListener(@Nullable OnFrameCompletedListener<T> listener) {
+        onFrameCompletedListener = listener;
+    }
+
+    public synchronized void setOnSendFailedListener(@Nullable OnSendFailedListener listener) {
+        onSendFailedListener = listener;
+    }
+
+    /** 摄像头来了一帧 */
+    public synchronized void submit(@NonNull T frame, long timestamp) {
+        submitted++;
+        if (pendingFrame == null && inFlight < maxInFlight) {
+            dispatch(frame, timestamp);
+            return;
+        }
+        if (pendingFrame != null) {
+            drop(pendingFrame, pendingTimestamp);
+        }
+        pendingFrame = frame;
+        pendingTimestamp = timestamp;
+    }
+
+    /**
+     * 时间戳为 timestamp 的结果回来了.
+     * graph 内部丢掉的帧不会有结果, 所以不晚于 timestamp 的在途帧都算完成.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void onResult(long timestamp) {
+        int kept = 0;
+        for (int i = 0; i < inFlight; i++) {
+            if (inFlightTimestamps[i] <= timestamp) {
+                completed++;
+                if (onFrameCompletedListener != null) {
+                    onFrameCompletedListener.onFrameCompleted((T) inFlightFrames[i], inFlightTimestamps[i]);
+                }
+            } else {
+                inFlightTimestamps[kept] = inFlightTimestamps[i];
+                inFlightFrames[kept] = inFlightFrames[i];
+                kept++;
+            }
+        }
+        for (int i = kept; i < inFlight; i++) {
+            inFlightFrames[i] = null;
+        }
+        inFlight = kept;
+        dispatchPending();
+    }
+
+    /**
+     * 时间戳为 timestamp 的帧没有送进 graph, 不会有结果. 这一帧立即完成, 腾出的位置交给等待位里的帧.
+     * Sink 抛出异常时自动调用; 已经不在途 (比如重置过) 时什么也不做
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void onSendFailed(long timestamp) {
+        for (int i = 0; i < inFlight; i++) {
+            if (inFlightTimestamps[i] != timestamp) {
+                continue;
+            }
+            T frame = (T) inFlightFrames[i];
+            for (int j = i + 1; j < inFlight; j++) {
+                inFlightTimestamps[j - 1] = inFlightTimestamps[j];
+                inFlightFrames[j - 1] = inFlightFrames[j];
+            }
+            inFlight--;
+            inFlightFrames[inFlight] = null;
+            failed++;
+            if (onFrameCompletedListener != null) {
+                onFrameCompletedListener.onFrameCompleted(frame, timestamp);
+            }
+            break;
+        }
+        dispatchPending();
+    }
+
+    private void dispatchPending() {
+        if (pendingFrame != null && inFlight < maxInFlight) {
+            T frame = pendingFrame;
+            pendingFrame = null;
+            dispatch(frame, pendingTimestamp);
+        }
+    }
+
+    /**
+     * 清空在途和等待的帧, 用于重新打开摄像头或重建 graph.
+     * 在途的帧可能还有 send 排在 sendExecutor 里, 所以完成回调也提交给 sendExecutor, 排在这些 send 之后.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void reset() {
+        if (pendingFrame != null) {
+            drop(pendingFrame, pendingTimestamp);
+            pendingFrame = null;
+        }
+        final OnFrameCompletedListener<T> listener = onFrameCompletedListener;
+        if (listener != null && inFlight > 0) {
+            final Object[] frames = new Object[inFlight];
+            final long[] timestamps = new long[inFlight];
+            System.arraycopy(inFlightFrames, 0, frames, 0, inFlight);
+            System.arraycopy(inFlightTimestamps, 0, timestamps, 0, inFlight);
+            sendExecutor.execute(() -> {
+                for (int i = 0; i < frames.length; i++) {
+                    listener.onFrameCompleted((T) frames[i], timestamps[i]);
+                }
+            });
+        }
+        for (int i = 0; i < inFlight; i++) {
+            inFlightFrames[i] = null;
+        }
+        inFlight = 0;
+    }
+
+    private void dispatch(final T frame, final long timestamp) {
+        inFlightTimestamps[inFlight] = timestamp;
+        inFlightFrames[inFlight] = frame;
+        inFlight++;
+        sent++;
+        sendExecutor.execute(() -> send(frame, timestamp));
+    }
+
+    /** sendExecutor 上执行 */
+    private void send(T frame, long timestamp) {
+        try {
+            sink.send(frame, timestamp);
+        } catch (RuntimeException e) {
+            OnSendFailedListener listener;
+            synchronized (this) {
+                listener = onSendFailedListener;
+            }
+            if (listener != null) {
+                listener.onSendFailed(timestamp, e);
+            }
+            onSendFailed(timestamp);
+        }
+    }
+
+    private void drop(T frame, long timestamp) {
+        dropped++;
+        if (onFrameDroppedListener != null) {
+            onFrameDroppedListener.onFrameDropped(frame, timestamp);
+        }
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized long getSubmittedCount() {
+        return submitted;
+    }
+
+    public synchronized long getSentCount() {
+        return sent;
+    }
+
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    public synchronized long getCompletedCount() {
+        return completed;
+    }
+
+    /** send 失败的帧数, 不计入 {@link #getCompletedCount()} */
+    public synchronized long getFailedCount() {
+        return failed;
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US,
+                "FrameScheduler submitted=%d sent=%d dropped=%d completed=%d failed=%d inFlight=%d",
+                submitted, sent, dropped, completed, failed, inFlight);
+    }
+}
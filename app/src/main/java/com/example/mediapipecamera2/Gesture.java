@@ -0,0 +1,72 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.Nullable;
+
+/** 手势识别结果, label 为常量字符串, 识别过程中不会产生新的字符串 */
+public enum Gesture {
+    ZERO("0", 0),
+    ONE("1", 1),
+    TWO("2", 2),
+    THREE("3", 3),
+    FOUR("4", 4),
+    FIVE("5", 5),
+    // 6 ~ 10 只能由两只手的数字相加得到
+    SIX("6", 6),
+    SEVEN("7", 7),
+    EIGHT("8", 8),
+    NINE("9", 9),
+    TEN("10", 10),
+    OK("OK"),
+    ROCK("Rock"),
+    THUMBS_UP("ThumbsUp");
+
+    /** 一只手最多能比的数字, 规则只能输出不超过它的数字手势 */
+    public static final int MAX_HAND_COUNT = 5;
+
+    private static final Gesture[] COUNTS = new Gesture[]{
+            ZERO, ONE, TWO, THREE, FOUR, FIVE, SIX, SEVEN, EIGHT, NINE, TEN};
+
+    private final String label;
+    // 数字手势对应的数字, 其他手势为 -1
+    private final int count;
+
+    Gesture(String label) {
+        this(label, -1);
+    }
+
+    Gesture(String label, int count) {
+        this.label = label;
+        this.count = count;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public boolean isCount() {
+        return count >= 0;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /** 伸直手指个数对应的数字手势, 两只手时最多为 10 */
+    public static Gesture ofCount(int count) {
+        return COUNTS[count];
+    }
+
+    /**
+     * 合并两只手的结果: 都是数字时相加, 否则以 primary 为准, 只有一只手识别出来时取那一只.
+     * 相加超过 10 时 (不应出现) 也取 primary.
+     */
+    @Nullable
+    public static Gesture combine(@Nullable Gesture primary, @Nullable Gesture secondary) {
+        if (primary == null) { return secondary; }
+        if (secondary == null) { return primary; }
+        if (primary.isCount() && secondary.isCount() && primary.count + secondary.count < COUNTS.length) {
+            return COUNTS[primary.count + secondary.count];
+        }
+        return primary;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 手势规则文件的解析和编译, 规则放在 assets/{@value #ASSET_NAME}.
+ *
+ * <p>每行一条规则, 从上到下第一条匹配的生效, 没有匹配的不识别; # 之后是注释.
+ * <pre>
+ * &lt;手势&gt; [条件 ...]
+ *   手势: {@link Gesture} 的名字, COUNT 表示按伸直的手指数数, NONE 表示不识别
+ *   palm=front|back                                 掌心朝向
+ *   thumb|index|middle|ring|pinky=straight|bent     手指状态
+ *   near(a,b) above(a,b) left(a,b)                  关键点关系, 前面加 ! 取反, a b 为关键点下标 0 ~ 20
+ * </pre>
+ * 没写的条件不限制. 例如 {@code OK palm=front middle=straight near(4,8)}.
+ *
+ * <p>加载时把所有特征组合逐一代入规则, 编译成 {@link GestureTable}; 不同的关键点关系最多
+ * {@link GestureTable#MAX_RELATIONS} 个, 相同的关系只占一位.
+ */
+public final class GestureRules {
+
+    public static final String ASSET_NAME = "gesture_rules.txt";
+
+    private static final String[] FINGERS = {"thumb", "index", "middle", "ring", "pinky"};
+
+    /** 一条规则: 特征与 care 按位与之后等于 value 时匹配 */
+    private static final class Rule {
+        int care;
+        int value;
+        // null 且 count 为 false 表示不识别
+        Gesture gesture;
+        boolean count;
+    }
+
+    private final List<Rule> rules = new ArrayList<>();
+    private final List<GestureTable.Relation> relations = new ArrayList<>();
+    private final List<int[]> relationLandmarks = new ArrayList<>();
+
+    private GestureRules() {}
+
+    /** 读取并编译 UTF-8 的规则文件, 不关闭输入流 */
+    @NonNull
+    public static GestureTable load(@NonNull InputStream in) throws IOException {
+        return parse(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析并编译规则
+     * @throws IllegalArgumentException 规则有误, 信息中带行号
+     */
+    @NonNull
+    public static GestureTable parse(@NonNull Reader reader) throws IOException {
+        GestureRules rules = new GestureRules();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            try {
+                rules.addRule(line.split("\\s+"));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return rules.compile();
+    }
+
+    private void addRule(String[] tokens) {
+        Rule rule = new Rule();
+        if ("COUNT".equals(tokens[0])) {
+            rule.count = true;
+        } else if (!"NONE".equals(tokens[0])) {
+            try {
+                rule.gesture = Gesture.valueOf(tokens[0]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown gesture " + tokens[0]);
+            }
+            // 两只手相加最多为 10, 单只手超过 5 时合并会越界
+            if (rule.gesture.getCount() > Gesture.MAX_HAND_COUNT) {
+                throw new IllegalArgumentException("Gesture " + tokens[0]
+                        + " is only a sum of two hands, one hand counts at most " + Gesture.MAX_HAND_COUNT);
+            }
+        }
+        for (int i = 1; i < tokens.length; i++) {
+            addCondition(rule, tokens[i]);
+        }
+        rules.add(rule);
+    }
+
+    private void addCondition(Rule rule, String token) {
+        int eq = token.indexOf('=');
+        if (eq > 0) {
+            String key = token.substring(0, eq);
+            String value = token.substring(eq + 1);
+            if ("palm".equals(key)) {
+                setBit(rule, GestureTable.PALM_FRONT, parseState(value, "front", "back"), token);
+                return;
+            }
+            for (int f = 0; f < FINGERS.length; f++) {
+                if (FINGERS[f].equals(key)) {
+                    setBit(rule, 1 << f, parseState(value, "straight", "bent"), token);
+                    return;
+                }
+            }
+            throw new IllegalArgumentException("Unknown condition " + token);
+        }
+
+        boolean negate = token.startsWith("!");
+        String call = negate ? token.substring(1) : token;
+        int open = call.indexOf('(');
+        int comma = call.indexOf(',');
+        if (open <= 0 || comma < open || !call.endsWith(")")) {
+            throw new IllegalArgumentException("Unknown condition " + token);
+        }
+        GestureTable.Relation relation;
+        try {
+            relation = GestureTable.Relation.valueOf(call.substring(0, open).toUpperCase(Locale.US));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown relation " + token);
+        }
+        int a = parseLandmark(call.substring(open + 1, comma));
+        int b = parseLandmark(call.substring(comma + 1, call.length() - 1));
+        setBit(rule, 1 << (GestureTable.RELATION_SHIFT + relationIndex(relation, a, b)), !negate, token);
+    }
+
+    private static boolean parseState(String value, String on, String off) {
+        if (on.equals(value)) { return true; }
+        if (off.equals(value)) { return false; }
+        throw new IllegalArgumentException("Expected " + on + " or " + off + ": " + value);
+    }
+
+    private static int parseLandmark(String text) {
+        int landmark;
+        try {
+            landmark = Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid landmark " + text);
+        }
+        if (landmark < 0 || landmark >= HandFrame.NUM_LANDMARKS) {
+            throw new IllegalArgumentException("Invalid landmark " + landmark);
+        }
+        return landmark;
+    }
+
+    private static void setBit(Rule rule, int bit, boolean on, String token) {
+        if ((rule.care & bit) != 0 && ((rule.value & bit) != 0) != on) {
+            throw new IllegalArgumentException("Conflicting condition " + token);
+        }
+        rule.care |= bit;
+        if (on) {
+            rule.value |= bit;
+        }
+    }
+
+    /** 相同的关系共用一位 */
+    private int relationIndex(GestureTable.Relation relation, int a, int b) {
+        for (int i = 0; i < relations.size(); i++) {
+            int[] landmarks = relationLandmarks.get(i);
+            if (relations.get(i) == relation && landmarks[0] == a && landmarks[1] == b) {
+                return i;
+            }
+        }
+        if (relations.size() == GestureTable.MAX_RELATIONS) {
+            throw new IllegalArgumentException("Too many relations, at most " + GestureTable.MAX_RELATIONS);
+        }
+        relations.add(relation);
+        relationLandmarks.add(new int[]{a, b});
+        return relations.size() - 1;
+    }
+
+    /** 每个特征组合取第一条匹配规则的结果 */
+    private GestureTable compile() {
+        int relationCount = relations.size();
+        Gesture[] table = new Gesture[1 << (GestureTable.RELATION_SHIFT + relationCount)];
+        for (int features = 0; features < table.length; features++) {
+            for (Rule rule : rules) {
+                if ((features & rule.care) == rule.value) {
+                    table[features] = rule.count
+                            ? Gesture.ofCount(Integer.bitCount(features & GestureTable.FINGER_MASK))
+                            : rule.gesture;
+                    break;
+                }
+            }
+        }
+        int[] landmarkA = new int[relationCount];
+        int[] landmarkB = new int[relationCount];
+        for (int i = 0; i < relationCount; i++) {
+            landmarkA[i] = relationLandmarks.get(i)[0];
+            landmarkB[i] = relationLandmarks.get(i)[1];
+        }
+        return new GestureTable(table, relations.toArray(new GestureTable.Relation[0]), landmarkA, landmarkB);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 手势特征到手势的扁平决策表.
+ *
+ * <p>特征的低 5 位表示每根手指是否伸直 (见 {@link #THUMB} ~ {@link #PINKY}), 第 5 位表示掌心朝向正面
+ * ({@link #PALM_FRONT}), 之后每一位表示一个关键点关系 (见 {@link Relation}) 是否成立.
+ * 表由 {@link GestureRules} 在加载时编译, 每种特征组合直接存放第一条匹配规则的结果,
+ * 识别时只是计算特征位再做一次数组查找, 耗时与规则条数无关, 也不产生分配.
+ */
+public final class GestureTable {
+
+    public static final int THUMB = 1;
+    public static final int INDEX = 1 << 1;
+    public static final int MIDDLE = 1 << 2;
+    public static final int RING = 1 << 3;
+    public static final int PINKY = 1 << 4;
+
+    public static final int FINGER_MASK = (1 << 5) - 1;
+    public static final int PALM_FRONT = 1 << 5;
+    /** 第一个关键点关系所在的位 */
+    public static final int RELATION_SHIFT = 6;
+    /** 关键点关系最多的个数, 表最大 2^16 项 */
+    public static final int MAX_RELATIONS = 10;
+
+    /** 两个关键点 a, b 之间的关系, 都用像素坐标计算 */
+    public enum Relation {
+        /** a, b 的距离小于手掌长度 (手腕到中指根部) 的 1/3 */
+        NEAR,
+        /** a 在 b 的上方 (画面坐标) */
+        ABOVE,
+        /** a 在 b 的左侧 (画面坐标, 镜像时左右也是镜像后的) */
+        LEFT
+    }
+
+    static final int NEAR_DIVISOR = 3;
+
+    private final Gesture[] table;
+    private final int mask;
+    // 第 i 个关系为 relations[i](landmarkA[i], landmarkB[i])
+    private final Relation[] relations;
+    private final int[] landmarkA;
+    private final int[] landmarkB;
+
+    GestureTable(@NonNull Gesture[] table, @NonNull Relation[] relations,
+                 @NonNull int[] landmarkA, @NonNull int[] landmarkB) {
+        if (table.length != 1 << (RELATION_SHIFT + relations.length)) {
+            throw new IllegalArgumentException("Invalid table size " + table.length
+                    + " for " + relations.length + " relations");
+        }
+        this.table = table;
+        this.mask = table.length - 1;
+        this.relations = relations;
+        this.landmarkA = landmarkA;
+        this.landmarkB = landmarkB;
+    }
+
+    /** 掌心朝向正面时数伸直的手指, 0 ~ 5; 反面不识别 */
+    public static GestureTable counting() {
+        Gesture[] table = new Gesture[1 << RELATION_SHIFT];
+        for (int fingerMask = 0; fingerMask <= FINGER_MASK; fingerMask++) {
+            table[fingerMask | PALM_FRONT] = Gesture.ofCount(Integer.bitCount(fingerMask));
+        }
+        return new GestureTable(table, new Relation[0], new int[0], new int[0]);
+    }
+
+    /**
+     * 在数数的基础上识别 OK, Rock 和 ThumbsUp.
+     *
+     * <p>只依赖手指状态, 所以 OK 只能按 "中指 无名指 小拇指伸直" 近似, 会覆盖对应的数字 3.
+     * 需要用关键点关系区分时写成规则文件, 见 {@link GestureRules}.
+     */
+    public static GestureTable extended() {
+        return counting()
+                .define(MIDDLE | RING | PINKY, Gesture.OK)
+                .define(INDEX | PINKY, Gesture.ROCK)
+                .define(THUMB, Gesture.THUMBS_UP);
+    }
+
+    /** 设置掌心朝向正面时某个手指状态对应的手势, 不论关键点关系如何; null 表示不识别 */
+    public GestureTable define(int fingerMask, @Nullable Gesture gesture) {
+        int base = (fingerMask & FINGER_MASK) | PALM_FRONT;
+        for (int r = 0; r < 1 << relations.length; r++) {
+            table[base | r << RELATION_SHIFT] = gesture;
+        }
+        return this;
+    }
+
+    /** 关键点关系的个数 */
+    public int getRelationCount() {
+        return relations.length;
+    }
+
+    /** 表项个数 */
+    public int size() {
+        return table.length;
+    }
+
+    /**
+     * 计算一只手的特征
+     * @param hand 21 个关键点齐全的手
+     * @param fingerMask 手指状态掩码
+     * @param palmFront 掌心是否朝向正面
+     */
+    public int features(@NonNull HandFrame hand, int fingerMask, boolean palmFront) {
+        int features = (fingerMask & FINGER_MASK) | (palmFront ? PALM_FRONT : 0);
+        if (relations.length == 0) {
+            return features;
+        }
+        int[] px = hand.px;
+        int[] py = hand.py;
+        long palmX = px[9] - px[0];
+        long palmY = py[9] - py[0];
+        long palmSquared = palmX * palmX + palmY * palmY;
+        for (int i = 0; i < relations.length; i++) {
+            int a = landmarkA[i];
+            int b = landmarkB[i];
+            boolean holds;
+            switch (relations[i]) {
+                case NEAR:
+                    long dx = px[a] - px[b];
+                    long dy = py[a] - py[b];
+                    // 比较平方, 不开方
+                    holds = (dx * dx + dy * dy) * (NEAR_DIVISOR * NEAR_DIVISOR) < palmSquared;
+                    break;
+                case ABOVE:
+                    holds = py[a] < py[b];
+                    break;
+                default:
+                    holds = px[a] < px[b];
+                    break;
+            }
+            if (holds) {
+                features |= 1 << (RELATION_SHIFT + i);
+            }
+        }
+        return features;
+    }
+
+    /** 查表, 未识别时为 null */
+    @Nullable
+    public Gesture classify(int features) {
+        return table[features & mask];
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * 文字贴图集的排布和文字排版, 与 GL 和 Canvas 无关.
+ *
+ * <p>每个字符占一个格子, 按行从左到右排进宽度不超过 maxWidth 的贴图, 贴图宽高取 2 的幂.
+ * 格子四周留 padding 像素, 避免线性过滤时采到相邻字符. 渲染端按 {@link #getCellX}/{@link #getCellY}
+ * 把字符画进同样大小的 Bitmap, 只上传一次; 之后每次换文字只调用 {@link #layout} 重写四边形顶点.
+ *
+ * <p>坐标单位为像素, 原点在左上角, y 向下; 纹理坐标的 v 同样从上往下.
+ */
+public final class GlyphAtlas {
+
+    /** 每个顶点: x, y, u, v */
+    public static final int FLOATS_PER_VERTEX = 4;
+    /** 每个字符两个三角形 */
+    public static final int VERTICES_PER_GLYPH = 6;
+
+    private final char[] chars;
+    private final float[] advances;
+    private final int lineHeight;
+    private final int padding;
+    // 字符到下标, 不在贴图中的为 -1
+    private final int[] indexOf;
+    private final int[] cellX;
+    private final int[] cellY;
+    private final int[] cellWidth;
+    private final int width;
+    private final int height;
+
+    /**
+     * @param chars 贴图中的字符, 不能重复
+     * @param advances 每个字符的步进宽度, 与 chars 一一对应
+     * @param lineHeight 行高, 字符格子的高度 (不含 padding)
+     * @param padding 格子四周留白
+     * @param maxWidth 贴图最大宽度
+     */
+    public GlyphAtlas(@NonNull String chars, @NonNull float[] advances, int lineHeight, int padding, int maxWidth) {
+        if (chars.length() != advances.length) {
+            throw new IllegalArgumentException("chars and advances do not match");
+        }
+        this.chars = chars.toCharArray();
+        this.advances = advances.clone();
+        this.lineHeight = lineHeight;
+        this.padding = padding;
+
+        int maxChar = 0;
+        for (char c : this.chars) {
+            maxChar = Math.max(maxChar, c);
+        }
+        indexOf = new int[maxChar + 1];
+        Arrays.fill(indexOf, -1);
+
+        int count = this.chars.length;
+        cellX = new int[count];
+        cellY = new int[count];
+        cellWidth = new int[count];
+        int cellHeight = lineHeight + 2 * padding;
+        int x = 0;
+        int y = 0;
+        int usedWidth = 0;
+        for (int i = 0; i < count; i++) {
+            char c = this.chars[i];
+            if (indexOf[c] >= 0) {
+                throw new IllegalArgumentException("Duplicate char " + c);
+            }
+            indexOf[c] = i;
+            int w = (int) Math.ceil(advances[i]) + 2 * padding;
+            if (w > maxWidth) {
+                throw new IllegalArgumentException("Glyph " + c + " wider than atlas: " + w);
+            }
+            if (x + w > maxWidth) {
+                x = 0;
+                y += cellHeight;
+            }
+            cellX[i] = x;
+            cellY[i] = y;
+            cellWidth[i] = w;
+            x += w;
+            usedWidth = Math.max(usedWidth, x);
+        }
+        width = powerOfTwo(usedWidth);
+        height = powerOfTwo(y + cellHeight);
+    }
+
+    private static int powerOfTwo(int n) {
+        int p = 1;
+        while (p < n) {
+            p <<= 1;
+        }
+        return p;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getGlyphCount() {
+        return chars.length;
+    }
+
+    public char getChar(int glyph) {
+        return chars[glyph];
+    }
+
+    /** 格子左上角, 含 padding; 字符的左边界在 getCellX + getPadding */
+    public int getCellX(int glyph) {
+        return cellX[glyph];
+    }
+
+    public int getCellY(int glyph) {
+        return cellY[glyph];
+    }
+
+    public int getPadding() {
+        return padding;
+    }
+
+    public int getLineHeight() {
+        return lineHeight;
+    }
+
+    /** 字符在贴图中的下标, 没有时为 -1 */
+    public int indexOf(char c) {
+        return c < indexOf.length ? indexOf[c] : -1;
+    }
+
+    /** 一行文字的宽度, 不在贴图中的字符不占位置 */
+    public float measure(@NonNull CharSequence text) {
+        float w = 0f;
+        for (int i = 0; i < text.length(); i++) {
+            int glyph = indexOf(text.charAt(i));
+            if (glyph >= 0) {
+                w += advances[glyph];
+            }
+        }
+        return w;
+    }
+
+    /**
+     * 把一行文字排成四边形, 每个字符 {@link #VERTICES_PER_GLYPH} 个顶点, 不分配.
+     * 不在贴图中的字符跳过, out 放不下的部分截掉.
+     * @param left 第一个字符的左边界
+     * @param top 行的上边界
+     * @return 写入的顶点数
+     */
+    public int layout(@NonNull CharSequence text, float left, float top, @NonNull float[] out) {
+        int maxGlyphs = out.length / (VERTICES_PER_GLYPH * FLOATS_PER_VERTEX);
+        int glyphs = 0;
+        float pen = left;
+        float invWidth = 1f / width;
+        float invHeight = 1f / height;
+        for (int i = 0; i < text.length() && glyphs < maxGlyphs; i++) {
+            int glyph = indexOf(text.charAt(i));
+            if (glyph < 0) {
+                continue;
+            }
+            // 四边形包含 padding, 与格子一样大, 字符本身落在 pen 处
+            float x0 = pen - padding;
+            float y0 = top - padding;
+            float x1 = x0 + cellWidth[glyph];
+            float y1 = y0 + lineHeight + 2 * padding;
+            float u0 = cellX[glyph] * invWidth;
+            float v0 = cellY[glyph] * invHeight;
+            float u1 = (cellX[glyph] + cellWidth[glyph]) * invWidth;
+            float v1 = (cellY[glyph] + lineHeight + 2 * padding) * invHeight;
+
+            int o = glyphs * VERTICES_PER_GLYPH * FLOATS_PER_VERTEX;
+            o = put(out, o, x0, y0, u0, v0);
+            o = put(out, o, x0, y1, u0, v1);
+            o = put(out, o, x1, y0, u1, v0);
+            o = put(out, o, x1, y0, u1, v0);
+            o = put(out, o, x0, y1, u0, v1);
+            put(out, o, x1, y1, u1, v1);
+
+            pen += advances[glyph];
+            glyphs++;
+        }
+        return glyphs * VERTICES_PER_GLYPH;
+    }
+
+    private static int put(float[] out, int o, float x, float y, float u, float v) {
+        out[o] = x;
+        out[o + 1] = y;
+        out[o + 2] = u;
+        out[o + 3] = v;
+        return o + FLOATS_PER_VERTEX;
+    }
+}
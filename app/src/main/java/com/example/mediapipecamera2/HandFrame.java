@@ -0,0 +1,149 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * 单只手的关键点数据, 使用扁平的基本类型数组按关键点下标保存坐标.
+ *
+ * <p>实例由 {@link Pool} 管理并原地填充, 预热之后每帧不再产生堆分配.
+ */
+public final class HandFrame {
+
+    public static final int NUM_LANDMARKS = 21;
+
+    public enum Handedness {
+        LEFT,
+        RIGHT;
+
+        public Handedness opposite() {
+            return this == LEFT ? RIGHT : LEFT;
+        }
+
+        /** MediaPipe 返回的 label 在部分平台上会多一个换行符, 这里只比较前缀, 避免 replace 产生新字符串 */
+        @Nullable
+        public static Handedness fromLabel(@Nullable String label) {
+            if (label == null) { return null; }
+            if (label.startsWith("Left")) { return LEFT; }
+            if (label.startsWith("Right")) { return RIGHT; }
+            return null;
+        }
+    }
+
+    // 归一化坐标
+    final float[] x = new float[NUM_LANDMARKS];
+    final float[] y = new float[NUM_LANDMARKS];
+    // 像素坐标
+    final int[] px = new int[NUM_LANDMARKS];
+    final int[] py = new int[NUM_LANDMARKS];
+
+    private int landmarkCount;
+    @Nullable
+    private Handedness handedness;
+    private float score;
+    // 坐标是否是镜像后的, 镜像时拇指在小拇指的另一侧
+    private boolean mirrored;
+
+    HandFrame() {}
+
+    /** 用快照中第 hand 只手的关键点原地填充 */
+    void set(LandmarkSnapshot snapshot, int hand, Handedness handedness, int width, int height) {
+        int count = snapshot.landmarkCount[hand];
+        int offset = hand * LandmarkSnapshot.NUM_LANDMARKS;
+        for (int j = 0; j < count; j++) {
+            float lx = snapshot.x[offset + j];
+            float ly = snapshot.y[offset + j];
+            x[j] = lx;
+            y[j] = ly;
+            px[j] = (int) (lx * width);
+            py[j] = (int) (ly * height);
+        }
+        this.landmarkCount = count;
+        this.handedness = handedness;
+        this.score = snapshot.score[hand];
+        this.mirrored = snapshot.mirrored;
+    }
+
+    void clear() {
+        landmarkCount = 0;
+        handedness = null;
+        score = 0f;
+        mirrored = false;
+    }
+
+    /** 21 个关键点是否齐全 */
+    public boolean isComplete() {
+        return landmarkCount == NUM_LANDMARKS;
+    }
+
+    public int getLandmarkCount() {
+        return landmarkCount;
+    }
+
+    @Nullable
+    public Handedness getHandedness() {
+        return handedness;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    public boolean isMirrored() {
+        return mirrored;
+    }
+
+    public float getX(int landmark) {
+        return x[landmark];
+    }
+
+    public float getY(int landmark) {
+        return y[landmark];
+    }
+
+    public int getPixelX(int landmark) {
+        return px[landmark];
+    }
+
+    public int getPixelY(int landmark) {
+        return py[landmark];
+    }
+
+    /**
+     * 预分配的 {@link HandFrame} 池. 每帧开始时 {@link #releaseAll()}, 之后按需 {@link #acquire()}.
+     * 容量不足时才会扩容, 所以只在预热阶段分配.
+     */
+    static final class Pool {
+        private HandFrame[] frames;
+        private int used;
+
+        Pool(int capacity) {
+            frames = new HandFrame[Math.max(1, capacity)];
+            for (int i = 0; i < frames.length; i++) {
+                frames[i] = new HandFrame();
+            }
+        }
+
+        HandFrame acquire() {
+            if (used == frames.length) {
+                int oldLength = frames.length;
+                frames = Arrays.copyOf(frames, oldLength * 2);
+                for (int i = oldLength; i < frames.length; i++) {
+                    frames[i] = new HandFrame();
+                }
+            }
+            HandFrame frame = frames[used++];
+            frame.clear();
+            return frame;
+        }
+
+        void releaseAll() {
+            used = 0;
+        }
+
+        int capacity() {
+            return frames.length;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 把一帧的关键点写成顶点数据, 供 {@link HandsResultGlRenderer} 一次上传, 每种图元一次绘制.
+ *
+ * <p>与 GL 无关, 可以在 JVM 上直接检查生成的顶点. 每个顶点 {@link #FLOATS_PER_VERTEX} 个 float:
+ * x, y (归一化坐标) 和 r, g, b, a. {@link #build} 先写全部 GL_LINES 的顶点, 紧接着写全部 GL_TRIANGLES 的顶点.
+ */
+public interface HandGeometryBuilder {
+
+    int FLOATS_PER_VERTEX = 6;
+
+    /** 最多的顶点数, 调用方按它预分配顶点数组和 GL 缓冲 */
+    int getMaxVertexCount();
+
+    /**
+     * 写入一帧的顶点, 不分配
+     * @param vertices 至少 {@link #getMaxVertexCount()} * {@link #FLOATS_PER_VERTEX} 个 float
+     */
+    void build(@NonNull LandmarkSnapshot landmarks, @NonNull float[] vertices);
+
+    /** 上一次 build 写入的 GL_LINES 顶点数, 从第 0 个顶点开始 */
+    int getLineVertexCount();
+
+    /** 上一次 build 写入的 GL_TRIANGLES 顶点数, 紧跟在线段之后 */
+    int getTriangleVertexCount();
+}
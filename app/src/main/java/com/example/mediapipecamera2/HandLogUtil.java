@@ -2,42 +2,108 @@ package com.example.mediapipecamera2;
 
 import android.util.Log;
 
+import java.util.function.Supplier;
 
+/**
+ * 日志工具.
+ *
+ * <p>两级开关: {@link #ENABLED} 取自 BuildConfig.DEBUG, release 包中是编译期常量 false,
+ * 调用处写成 {@code if (HandLogUtil.ENABLED) { HandLogUtil.logd(...); }} 时整段调用由 javac 去掉;
+ * 没有这样包住的调用仍会执行, 只是在 {@link #isDebugEnabled()} 判断后直接返回.
+ * (项目没有开启 minify, 不能指望 R8 删除调用.) {@link #setLevel} 在运行时调整最低输出级别.
+ *
+ * <p>debug 日志用 {@code {}} 占位的格式串或 {@link Supplier} 传参, 关闭时不拼字符串, 不装箱.
+ * 打开时也不在调用线程上 Log.d, 而是写进 {@link AsyncLogWriter} 由后台线程输出.
+ * error 日志不受编译期开关影响, 直接同步输出.
+ */
 public class HandLogUtil {
     private static final String TAG = "HandService";
-    private static boolean DEBUG = Log.isLoggable(TAG, Log.DEBUG);
-    private static boolean IS_OPEN = true;
-    public static final HandLogUtil INSTANCE;
 
-    static {
-        HandLogUtil recognition = new HandLogUtil();
-        INSTANCE = recognition;
+    /** 编译期开关, 只影响 debug 日志; release 包中为常量 false, 调用处用它包住 logd 即可整体去掉 */
+    public static final boolean ENABLED = BuildConfig.DEBUG;
+
+    private static final int RING_CAPACITY = 256;
+
+    private static volatile int minLevel = ENABLED || Log.isLoggable(TAG, Log.DEBUG) ? Log.DEBUG : Log.INFO;
+
+    private static final AsyncLogWriter WRITER = new AsyncLogWriter(RING_CAPACITY, Log::println, "HandLogWriter");
+
+    private HandLogUtil() {}
+
+    /** 运行时最低输出级别, 取值同 {@link Log#DEBUG} 等 */
+    public static void setLevel(int level) {
+        minLevel = level;
+    }
+
+    public static boolean isDebugEnabled() {
+        return ENABLED && minLevel <= Log.DEBUG;
     }
 
     public static void logd(String TAG, String text) {
-        HandLogUtil.INSTANCE.d(TAG, text);
+        if (isDebugEnabled()) {
+            WRITER.write(Log.DEBUG, TAG, text);
+        }
     }
 
-    public static void loge(String TAG, String text) {
-        HandLogUtil.INSTANCE.e(TAG, text);
+    public static void logd(String TAG, String format, Object arg) {
+        if (isDebugEnabled()) {
+            WRITER.write(Log.DEBUG, TAG, format, arg);
+        }
     }
 
-    private HandLogUtil() {}
+    public static void logd(String TAG, String format, Object arg0, Object arg1) {
+        if (isDebugEnabled()) {
+            WRITER.write(Log.DEBUG, TAG, format, arg0, arg1);
+        }
+    }
 
-    private boolean isAllow() {
-        return DEBUG || IS_OPEN;
+    public static void logd(String TAG, String format, long arg) {
+        if (isDebugEnabled()) {
+            WRITER.write(Log.DEBUG, TAG, format, arg);
+        }
     }
 
-    private void e(String TAG, String text) {
-        if (isAllow()) {
+    public static void logd(String TAG, String format, long arg0, Object arg1) {
+        if (isDebugEnabled()) {
+            WRITER.write(Log.DEBUG, TAG, format, arg0, arg1);
+        }
+    }
+
+    public static void logd(String TAG, String format, long arg0, long arg1) {
+        if (isDebugEnabled()) {
+            WRITER.write(Log.DEBUG, TAG, format, arg0, arg1);
+        }
+    }
+
+    public static void logd(String TAG, String format, double arg) {
+        if (isDebugEnabled()) {
+            WRITER.write(Log.DEBUG, TAG, format, arg);
+        }
+    }
+
+    /**
+     * 消息需要现场计算时使用. 捕获变量的 lambda 本身会分配, 热路径上先判断 {@link #isDebugEnabled()}.
+     */
+    public static void logd(String TAG, Supplier<String> message) {
+        if (isDebugEnabled()) {
+            WRITER.write(Log.DEBUG, TAG, message.get());
+        }
+    }
+
+    public static void loge(String TAG, String text) {
+        if (minLevel <= Log.ERROR) {
             Log.e(TAG, text);
         }
     }
 
-    private void d(String TAG, String text) {
-        if (isAllow()) {
-            Log.d(TAG, text);
+    public static void loge(String TAG, String text, Throwable tr) {
+        if (minLevel <= Log.ERROR) {
+            Log.e(TAG, text, tr);
         }
     }
 
+    /** 丢弃的 debug 日志条数, 缓冲区满时计数 */
+    public static long getDroppedCount() {
+        return WRITER.getDroppedCount();
+    }
 }
@@ -0,0 +1,146 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 手的骨架: 关键点之间的连线, 每个关键点一个实心圆和外面一圈空心圆.
+ *
+ * <p>连线和空心圆都是 GL_LINES, 实心圆拆成 GL_TRIANGLES, 两只手合起来只需要两次绘制.
+ * 圆用构造时算好的单位圆模板平移缩放得到, 每帧不再算三角函数.
+ */
+public final class HandSkeletonGeometry implements HandGeometryBuilder {
+
+    private static final int LEFT = 0;
+    private static final int RIGHT = 1;
+
+    // 第 i 条连线为 connections[2i] -> connections[2i + 1]
+    private final int[] connections;
+    private final int segments;
+    private final float landmarkRadius;
+    private final float ringRadius;
+    // 单位圆上 segments + 1 个点, 首尾相同
+    private final float[] unitX;
+    private final float[] unitY;
+
+    // [LEFT/RIGHT][rgba]
+    private final float[][] connectionColor = new float[2][];
+    private final float[][] landmarkColor = new float[2][];
+    private final float[][] ringColor = new float[2][];
+
+    private int lineVertexCount;
+    private int triangleVertexCount;
+
+    /**
+     * @param connections 连线两端的关键点下标, 两个一组
+     * @param segments 每个圆的边数
+     * @param landmarkRadius 实心圆半径, 归一化坐标
+     * @param ringRadius 空心圆半径, 归一化坐标
+     */
+    public HandSkeletonGeometry(@NonNull int[] connections, int segments, float landmarkRadius, float ringRadius) {
+        if (connections.length % 2 != 0) {
+            throw new IllegalArgumentException("connections must be pairs: " + connections.length);
+        }
+        if (segments < 3) {
+            throw new IllegalArgumentException("Invalid segments " + segments);
+        }
+        this.connections = connections.clone();
+        this.segments = segments;
+        this.landmarkRadius = landmarkRadius;
+        this.ringRadius = ringRadius;
+        unitX = new float[segments + 1];
+        unitY = new float[segments + 1];
+        for (int i = 0; i <= segments; i++) {
+            double angle = 2.0 * Math.PI * i / segments;
+            unitX[i] = (float) Math.cos(angle);
+            unitY[i] = (float) Math.sin(angle);
+        }
+        float[] white = {1f, 1f, 1f, 1f};
+        setColors(true, white, white, white);
+        setColors(false, white, white, white);
+    }
+
+    /** 设置左手或右手的连线, 实心圆和空心圆颜色, rgba */
+    public HandSkeletonGeometry setColors(boolean leftHand, @NonNull float[] connection,
+                                          @NonNull float[] landmark, @NonNull float[] ring) {
+        int side = leftHand ? LEFT : RIGHT;
+        connectionColor[side] = connection.clone();
+        landmarkColor[side] = landmark.clone();
+        ringColor[side] = ring.clone();
+        return this;
+    }
+
+    private int maxLineVertices() {
+        return LandmarkSnapshot.MAX_HANDS
+                * (connections.length + LandmarkSnapshot.NUM_LANDMARKS * segments * 2);
+    }
+
+    @Override
+    public int getMaxVertexCount() {
+        return maxLineVertices() + LandmarkSnapshot.MAX_HANDS * LandmarkSnapshot.NUM_LANDMARKS * segments * 3;
+    }
+
+    @Override
+    public void build(@NonNull LandmarkSnapshot landmarks, @NonNull float[] vertices) {
+        // 先写线段, 三角形接在后面
+        int v = 0;
+        for (int hand = 0; hand < landmarks.getHandCount(); hand++) {
+            int side = landmarks.getHandedness(hand) == HandFrame.Handedness.LEFT ? LEFT : RIGHT;
+            int count = landmarks.getLandmarkCount(hand);
+            float[] color = connectionColor[side];
+            for (int c = 0; c < connections.length; c += 2) {
+                int start = connections[c];
+                int end = connections[c + 1];
+                if (start >= count || end >= count) { continue; }
+                v = put(vertices, v, landmarks.getX(hand, start), landmarks.getY(hand, start), color);
+                v = put(vertices, v, landmarks.getX(hand, end), landmarks.getY(hand, end), color);
+            }
+            color = ringColor[side];
+            for (int j = 0; j < count; j++) {
+                float x = landmarks.getX(hand, j);
+                float y = landmarks.getY(hand, j);
+                for (int s = 0; s < segments; s++) {
+                    v = put(vertices, v, x + ringRadius * unitX[s], y + ringRadius * unitY[s], color);
+                    v = put(vertices, v, x + ringRadius * unitX[s + 1], y + ringRadius * unitY[s + 1], color);
+                }
+            }
+        }
+        lineVertexCount = v;
+
+        for (int hand = 0; hand < landmarks.getHandCount(); hand++) {
+            int side = landmarks.getHandedness(hand) == HandFrame.Handedness.LEFT ? LEFT : RIGHT;
+            float[] color = landmarkColor[side];
+            for (int j = 0; j < landmarks.getLandmarkCount(hand); j++) {
+                float x = landmarks.getX(hand, j);
+                float y = landmarks.getY(hand, j);
+                for (int s = 0; s < segments; s++) {
+                    v = put(vertices, v, x, y, color);
+                    v = put(vertices, v, x + landmarkRadius * unitX[s], y + landmarkRadius * unitY[s], color);
+                    v = put(vertices, v, x + landmarkRadius * unitX[s + 1], y + landmarkRadius * unitY[s + 1], color);
+                }
+            }
+        }
+        triangleVertexCount = v - lineVertexCount;
+    }
+
+    /** 写入第 v 个顶点, 返回下一个顶点 */
+    private static int put(float[] vertices, int v, float x, float y, float[] color) {
+        int i = v * FLOATS_PER_VERTEX;
+        vertices[i] = x;
+        vertices[i + 1] = y;
+        vertices[i + 2] = color[0];
+        vertices[i + 3] = color[1];
+        vertices[i + 4] = color[2];
+        vertices[i + 5] = color[3];
+        return v + 1;
+    }
+
+    @Override
+    public int getLineVertexCount() {
+        return lineVertexCount;
+    }
+
+    @Override
+    public int getTriangleVertexCount() {
+        return triangleVertexCount;
+    }
+}
@@ -1,231 +1,215 @@
-package com.example.mediapipecamera2;
-
-import androidx.annotation.Nullable;
-
-import com.google.mediapipe.formats.proto.ClassificationProto;
-import com.google.mediapipe.formats.proto.LandmarkProto;
-import com.google.mediapipe.solutions.hands.HandsResult;
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-public class HandTranslate {
-
-    private static final String TAG = "HandService";
-    public static final HandTranslate INSTANCE;
-
-    // 默认前置摄像头
-    private volatile static int faceingID = 1;
-
-    // 黑板
-    private static final int PLAM_BLACK = 0;
-    // 白板
-    private static final int PLAM_WHITE = 1;
-
-
-    static {
-        HandTranslate recognition = new HandTranslate();
-        INSTANCE = recognition;
-    }
-
-    private HandTranslate() {}
-
-    public void setFaceingID(int id) {
-        faceingID = id;
-    }
-
-
-
-    // 手势识别
-    @Nullable
-    public String handRecognition(HandsResult result, int width, int height) {
-        // 1. 计算位置
-        Map<String, ArrayList<ArrayList<Integer>>> position = findPositions(result, width, height);
-
-        // 2. 判断手掌方向
-        boolean front = palmIsPositive(position);
-        if (!front) { return null; }
-
-        // 3. 判断手指状态
-        Map<String, Integer> tips_data =  fingerStraight(position.get("Right"), "Right");
-        Map<String, Integer> tips_data1 =  fingerStraight(position.get("Left"), "Left");
-
-        if (tips_data != null) {
-            // 4. 数字识别
-            String numberStr = normalNumber(tips_data);
-
-            return numberStr;
-        }
-
-        if (tips_data1 != null) {
-            // 4. 数字识别
-            String numberStr = normalNumber(tips_data1);
-
-            return numberStr;
-        }
-        return null;
-    }
-
-    // 判断手掌象限
-    private int palmXXX(Map<String, ArrayList<ArrayList<Integer>>> fingerPoints) {
-
-        ArrayList<ArrayList<Integer>> rightHand = fingerPoints.get("Right");
-        if (rightHand != null) {
-
-            ArrayList<Integer> ltp1 = rightHand.get(0);
-            ArrayList<Integer> ltp2 = rightHand.get(1);
-            ArrayList<Integer> ltp3 = rightHand.get(17);
-
-            ArrayList<Integer> ltp4 = rightHand.get(9);
-
-            if (ltp1.get(0) > ltp4.get(0)) {
-
-            }
-        }
-
-        return -1;
-    }
-
-    // 判断手掌正反面
-    private boolean palmIsPositive(Map<String, ArrayList<ArrayList<Integer>>> fingerPoints) {
-        if (fingerPoints == null ) {
-            return false;
-        }
-
-        ArrayList<ArrayList<Integer>> rightHand = fingerPoints.get("Right");
-        if (rightHand != null) {
-            ArrayList<Integer> ltp1 = rightHand.get(4);
-            ArrayList<Integer> ltp2 = rightHand.get(20);
-
-            if (ltp1.get(0) > ltp2.get(0)) {
-                return true;
-            }
-            return false;
-        }
-
-        ArrayList<ArrayList<Integer>> leftHand = fingerPoints.get("Left");
-        if (leftHand != null) {
-            ArrayList<Integer> ltp1 = leftHand.get(4);
-            ArrayList<Integer> ltp2 = leftHand.get(20);
-
-            if (ltp1.get(0) > ltp2.get(0)) {
-                return false;
-            }
-            return true;
-        }
-        return false;
-    }
-
-
-    // 根据手指状态识别数字
-    @Nullable
-    private String normalNumber(Map<String, Integer> fingerStraight) {
-        if (fingerStraight.isEmpty()) { return null;}
-        Collection<Integer> values = fingerStraight.values();
-        int count = 0;
-        for (Integer value : values) {
-            if (1 == value) { count++; }
-        }
-        return String.valueOf(count);
-    }
-
-    /** 判断每个手指的状态
-     * @param fingerPoints 收的关键点位置参数
-     * @return 手指的状态
-     */
-    @Nullable
-    private Map<String, Integer> fingerStraight(ArrayList<ArrayList<Integer>> fingerPoints, String handPosition) {
-        if (fingerPoints == null || fingerPoints.size() != 21 ) {
-            HandLogUtil.logd(TAG, "fingerStraight: " + handPosition + " " + fingerPoints);
-            return null;
-        }
-
-        Map<String, Integer> tips_data = new HashMap<String, Integer>();
-        int[] tips = new int[]{4, 8, 12, 16, 20};
-
-
-        for (Integer tip:tips) {
-            ArrayList<Integer> ltp1 = fingerPoints.get(tip);
-            ArrayList<Integer> ltp2 = fingerPoints.get(tip -2);
-            if (tip == 4) {
-                ArrayList<Integer> ltp3 =  fingerPoints.get(tip -1);
-                if (ltp1.get(0) > ltp3.get(0)) {
-                    if (handPosition.equals("Right")) {
-                        tips_data.put(String.valueOf(tip), 1);
-                    } else {
-                        tips_data.put(String.valueOf(tip), 0);
-                    }
-
-                } else {
-                    if (handPosition.equals("Right")) {
-                        tips_data.put(String.valueOf(tip), 0);
-                    } else {
-                        tips_data.put(String.valueOf(tip), 1);
-                    }
-                }
-            } else {
-                if (ltp1.get(1) > ltp2.get(1)) {
-                    tips_data.put(String.valueOf(tip), 0);
-                } else {
-                    tips_data.put(String.valueOf(tip), 1);
-                }
-            }
-        }
-        HandLogUtil.logd(TAG, "fingerStraight: " + handPosition + " " + tips_data);
-        return tips_data;
-    }
-
-    /** 计算手的关键点位置参数
-     * @param result a HandsResult {@link HandsResult}
-     * @param width glSurfaceView width
-     * @param height glSurfaceView height
-     * @return handlandmark Positions
-     */
-    @Nullable
-    private Map<String, ArrayList<ArrayList<Integer>>> findPositions(HandsResult result, int width, int height) {
-        Map<String, ArrayList<ArrayList<Integer>>> position = new HashMap<String, ArrayList<ArrayList<Integer>>>();
-
-        if (result.multiHandLandmarks().isEmpty()) { return position; }
-        int i = 0;
-
-        for (ClassificationProto.Classification point :result.multiHandedness()) {
-            float score = point.getScore();
-            if (score >= 0.8) {
-                // 这里可能是平台问题，后面会多一个 换行符
-                String label = point.getLabel().replace("\r", "");
-                List<LandmarkProto.NormalizedLandmark> handLms =  result.multiHandLandmarks().get(i).getLandmarkList();
-                ArrayList<ArrayList<Integer>> positions_hand = new ArrayList<ArrayList<Integer>>(20);
-                for (int j = 0; j < handLms.size(); j++) {
-                    LandmarkProto.NormalizedLandmark lm = handLms.get(j);
-                    int x = (int) (lm.getX() * width);
-                    int y = (int) (lm.getY() * height);
-                    ArrayList<Integer> positions_finger = new ArrayList<Integer>(2);
-                    positions_finger.add(x);
-                    positions_finger.add(y);
-                    positions_hand.add(positions_finger);
-                }
-                position.put(label,positions_hand);
-                HandLogUtil.logd(TAG, "findPositions: " + position);
-            }
-            i++;
-        }
-
-        if (faceingID == 1) {
-            // 前置摄像头 左右手数据交换
-            Map<String, ArrayList<ArrayList<Integer>>> reversePosition = new HashMap<String, ArrayList<ArrayList<Integer>>>();
-            if (position.containsKey("Left")) {
-                reversePosition.put("Right", position.get("Left") );
-            }
-            if (position.containsKey("Right")) {
-                reversePosition.put("Left", position.get("Right") );
-            }
-            return reversePosition;
-        }
-
-        return position;
-    }
-
-}
+package com.example.mediapipecamera2;
+
+import androidx.annotation.Nullable;
+
+import com.google.mediapipe.formats.proto.ClassificationProto;
+import com.google.mediapipe.formats.proto.LandmarkProto;
+
+import java.util.List;
+
+public class HandTranslate {
+
+    private static final String TAG = "HandService";
+    public static final HandTranslate INSTANCE;
+
+    // 默认前置摄像头
+    private volatile static int faceingID = 1;
+
+    // 黑板
+    private static final int PLAM_BLACK = 0;
+    // 白板
+    private static final int PLAM_WHITE = 1;
+
+    // 大拇指到小拇指的指尖, 下标即 GestureTable 掩码中的位
+    private static final int[] TIPS = new int[]{4, 8, 12, 16, 20};
+
+
+    static {
+        HandTranslate recognition = new HandTranslate();
+        INSTANCE = recognition;
+    }
+
+    private HandTranslate() {}
+
+    public void setFaceingID(int id) {
+        faceingID = id;
+    }
+
+    /** 替换手势表, 可以在任意线程调用, 下一只手开始生效 */
+    public void setGestureTable(GestureTable table) {
+        gestureTable = table;
+    }
+
+
+
+    // 同时识别的最多手数, 与 HandsOptions.setMaxNumHands 一致
+    public static final int MAX_HANDS = 2;
+
+    // 每只手一份关键点, 预热之后每帧原地复用
+    private final HandFrame.Pool framePool = new HandFrame.Pool(MAX_HANDS);
+    // 本帧识别的手以及各自的结果, 下标与 multiHandLandmarks 中的顺序一致
+    private final HandFrame[] hands = new HandFrame[MAX_HANDS];
+    private final Gesture[] handGestures = new Gesture[MAX_HANDS];
+    private int handCount;
+
+    private volatile GestureTable gestureTable = GestureTable.counting();
+
+    // proto 入口先拷进这里, 只在识别线程上使用
+    private final LandmarkSnapshot protoSnapshot = new LandmarkSnapshot();
+
+    /** 手势识别
+     * @param multiHandLandmarks HandsResult.multiHandLandmarks()
+     * @param multiHandedness HandsResult.multiHandedness()
+     * @param width glSurfaceView width
+     * @param height glSurfaceView height
+     * @return 手势对应的文字, 未识别时为 null
+     */
+    @Nullable
+    public String handRecognition(List<LandmarkProto.NormalizedLandmarkList> multiHandLandmarks,
+                                  List<ClassificationProto.Classification> multiHandedness,
+                                  int width, int height) {
+        Gesture gesture = handGesture(multiHandLandmarks, multiHandedness, width, height);
+        return gesture == null ? null : gesture.getLabel();
+    }
+
+    /**
+     * 每只手单独识别, 再按 {@link Gesture#combine} 合并; 两只手都比数字时结果为两者之和.
+     * 先拷贝成快照, 再按 {@link #setFaceingID} 交换左右手, 之后与快照入口相同
+     */
+    @Nullable
+    public Gesture handGesture(List<LandmarkProto.NormalizedLandmarkList> multiHandLandmarks,
+                               List<ClassificationProto.Classification> multiHandedness,
+                               int width, int height) {
+        LandmarkSnapshot snapshot = protoSnapshot;
+        snapshot.set(0L, width, height, multiHandLandmarks, multiHandedness);
+        if (faceingID == 1) {
+            // 前置摄像头 左右手数据交换
+            for (int i = 0; i < snapshot.handCount; i++) {
+                HandFrame.Handedness handedness = snapshot.handedness[i];
+                snapshot.handedness[i] = handedness == null ? null : handedness.opposite();
+            }
+        }
+        return handGesture(snapshot);
+    }
+
+    /**
+     * 同 {@link #handGesture(List, List, int, int)}, 输入为结果线程拷贝出来的快照.
+     * 左右手不按 {@link #setFaceingID} 交换, 以快照为准, 前置摄像头先用 {@link LandmarkTransform} 镜像
+     */
+    @Nullable
+    public Gesture handGesture(LandmarkSnapshot snapshot) {
+        findPositions(snapshot);
+        return evaluateHands();
+    }
+
+    /** 每只手独立识别后合并, 右手的非数字手势优先 */
+    @Nullable
+    private Gesture evaluateHands() {
+        Gesture gesture = null;
+        for (int i = 0; i < handCount; i++) {
+            HandFrame hand = hands[i];
+            Gesture handGesture = evaluate(hand);
+            handGestures[i] = handGesture;
+            if (hand.getHandedness() == HandFrame.Handedness.RIGHT) {
+                gesture = Gesture.combine(handGesture, gesture);
+            } else {
+                gesture = Gesture.combine(gesture, handGesture);
+            }
+        }
+        return gesture;
+    }
+
+    /** 上一次识别到的手数 */
+    public int getHandCount() {
+        return handCount;
+    }
+
+    /** 上一次识别中第 index 只手的关键点, 下一次识别时会被覆盖 */
+    public HandFrame getHand(int index) {
+        return hands[index];
+    }
+
+    /** 上一次识别中第 index 只手单独的结果 */
+    @Nullable
+    public Gesture getHandGesture(int index) {
+        return handGestures[index];
+    }
+
+    /** 识别一只手, 只读写这只手自己的 {@link HandFrame} */
+    @Nullable
+    private Gesture evaluate(HandFrame hand) {
+        // 判断手指状态
+        int fingerMask = fingerStraight(hand);
+        if (fingerMask < 0) { return null; }
+
+        // 手指状态, 手掌方向和关键点关系组成特征, 查表识别手势
+        GestureTable table = gestureTable;
+        int features = table.features(hand, fingerMask, palmIsPositive(hand));
+        Gesture gesture = table.classify(features);
+        if (HandLogUtil.ENABLED) {
+            HandLogUtil.logd(TAG, "gesture features: {} gesture={}", features, gesture);
+        }
+        return gesture;
+    }
+
+    // 判断手掌正反面
+    private boolean palmIsPositive(HandFrame hand) {
+        if (!hand.isComplete()) {
+            return false;
+        }
+        // 右手大拇指在小拇指右侧, 左手相反, 镜像坐标下再反过来; 两只手交替时写成比较避免分支预测失败
+        return (hand.px[4] > hand.px[20]) == thumbOnRight(hand);
+    }
+
+
+    /** 掌心朝向手势的正面时大拇指是否在右侧: 右手为 true, 镜像坐标下相反 */
+    private static boolean thumbOnRight(HandFrame hand) {
+        return (hand.getHandedness() == HandFrame.Handedness.RIGHT) != hand.isMirrored();
+    }
+
+    /** 判断每个手指的状态
+     * @param hand 手的关键点位置参数
+     * @return 手指状态掩码, 第 i 位为 1 表示 TIPS[i] 对应的手指伸直; 关键点不完整时返回 -1
+     */
+    private int fingerStraight(HandFrame hand) {
+        if (!hand.isComplete()) {
+            return -1;
+        }
+
+        int[] px = hand.px;
+        int[] py = hand.py;
+        // 大拇指看横向, 其余手指看指尖是否高于第二关节
+        int mask = (px[4] > px[3]) == thumbOnRight(hand) ? GestureTable.THUMB : 0;
+        for (int i = 1; i < TIPS.length; i++) {
+            int tip = TIPS[i];
+            if (py[tip] <= py[tip - 2]) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    /** 计算手的关键点位置参数, 结果写入 {@link #hands}; 左右手以快照为准, 置信度不够的手跳过 */
+    private void findPositions(LandmarkSnapshot snapshot) {
+        resetHands();
+
+        for (int i = 0; i < snapshot.handCount && handCount < MAX_HANDS; i++) {
+            HandFrame.Handedness handedness = snapshot.handedness[i];
+            if (snapshot.score[i] < 0.8 || handedness == null) { continue; }
+
+            HandFrame hand = framePool.acquire();
+            hand.set(snapshot, i, handedness, snapshot.width, snapshot.height);
+            hands[handCount++] = hand;
+        }
+    }
+
+    private void resetHands() {
+        framePool.releaseAll();
+        for (int i = 0; i < handCount; i++) {
+            hands[i] = null;
+            handGestures[i] = null;
+        }
+        handCount = 0;
+    }
+
+}
@@ -19,8 +19,9 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.opengl.GLES20;
+import android.opengl.GLUtils;
+import android.os.SystemClock;
 
-import com.google.mediapipe.formats.proto.LandmarkProto.NormalizedLandmark;
 import com.google.mediapipe.solutioncore.ResultGlRenderer;
 import com.google.mediapipe.solutions.hands.Hands;
 import com.google.mediapipe.solutions.hands.HandsResult;
@@ -28,7 +29,6 @@ import com.google.mediapipe.solutions.hands.HandsResult;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
-import java.util.List;
 
 /** A custom implementation of {@link ResultGlRenderer} to render {@link HandsResult}. */
 public class HandsResultGlRenderer implements ResultGlRenderer<HandsResult> {
@@ -43,24 +43,141 @@ public class HandsResultGlRenderer implements ResultGlRenderer<HandsResult> {
   private static final float[] LEFT_HAND_LANDMARK_COLOR = new float[] {1f, 0.2f, 0.2f, 1f};
   private static final float[] RIGHT_HAND_LANDMARK_COLOR = new float[] {0.2f, 1f, 0.2f, 1f};
   private static final float LANDMARK_RADIUS = 0.008f;
-  private static final int NUM_SEGMENTS = 120;
+  // The circles are only a few pixels wide; 24 segments are indistinguishable from 120.
+  private static final int NUM_SEGMENTS = 24;
   private static final String VERTEX_SHADER =
       "uniform mat4 uProjectionMatrix;\n"
           + "attribute vec4 vPosition;\n"
+          + "attribute vec4 aColor;\n"
+          + "varying vec4 vColor;\n"
           + "void main() {\n"
           + "  gl_Position = uProjectionMatrix * vPosition;\n"
+          + "  vColor = aColor;\n"
           + "}";
   private static final String FRAGMENT_SHADER =
       "precision mediump float;\n"
+          + "varying vec4 vColor;\n"
+          + "void main() {\n"
+          + "  gl_FragColor = vColor;\n"
+          + "}";
+  private static final int STRIDE_BYTES = HandGeometryBuilder.FLOATS_PER_VERTEX * 4;
+
+  // The recognized gesture is drawn in the top left corner from a glyph atlas that is rasterized
+  // once per GL context; changing the text only rewrites a few quads.
+  private static final float OVERLAY_TEXT_SIZE = 64f; // Pixels
+  private static final int OVERLAY_MARGIN = 32; // Pixels
+  private static final int OVERLAY_GLYPH_PADDING = 2; // Pixels
+  private static final int OVERLAY_ATLAS_MAX_WIDTH = 1024; // Pixels
+  private static final int OVERLAY_MAX_CHARS = 16;
+  private static final float[] OVERLAY_TEXT_COLOR = new float[] {1f, 1f, 1f, 1f};
+  private static final String OVERLAY_CHARS = printableAscii();
+  private static final String TEXT_VERTEX_SHADER =
+      "uniform vec2 uViewportSize;\n"
+          + "attribute vec2 aPosition;\n"
+          + "attribute vec2 aTexCoord;\n"
+          + "varying vec2 vTexCoord;\n"
+          + "void main() {\n"
+          + "  vec2 ndc = aPosition / uViewportSize * 2.0 - 1.0;\n"
+          + "  gl_Position = vec4(ndc.x, -ndc.y, 0.0, 1.0);\n"
+          + "  vTexCoord = aTexCoord;\n"
+          + "}";
+  private static final String TEXT_FRAGMENT_SHADER =
+      "precision mediump float;\n"
+          + "uniform sampler2D uTexture;\n"
           + "uniform vec4 uColor;\n"
+          + "varying vec2 vTexCoord;\n"
           + "void main() {\n"
-          + "  gl_FragColor = uColor;\n"
+          + "  gl_FragColor = vec4(uColor.rgb, uColor.a * texture2D(uTexture, vTexCoord).a);\n"
           + "}";
+  private static final int TEXT_STRIDE_BYTES = GlyphAtlas.FLOATS_PER_VERTEX * 4;
   private int program;
   private int positionHandle;
   private int projectionMatrixHandle;
   private int colorHandle;
 
+  // Landmarks copied from each result on the result thread; the GL thread swaps in the one that
+  // belongs to the result being drawn. The previous one is kept because the next result's landmarks
+  // may arrive just before the GL thread picks up the current result.
+  private final Object landmarkLock = new Object();
+  private LandmarkSnapshot pendingLandmarks = new LandmarkSnapshot();
+  private LandmarkSnapshot previousLandmarks = new LandmarkSnapshot();
+  private LandmarkSnapshot drawnLandmarks = new LandmarkSnapshot();
+  private boolean hasPendingLandmarks;
+  private boolean hasPreviousLandmarks;
+
+  // All hand geometry of a frame goes into one vertex buffer and is drawn with one call per
+  // primitive type. The client-side arrays are allocated once; the VBO once per GL context.
+  private final HandGeometryBuilder geometry;
+  private final float[] vertices;
+  private final FloatBuffer vertexBuffer;
+  private int vertexBufferId;
+  // Whether the VBO is behind the latest landmarks, e.g. after a new context or a new result.
+  private boolean geometryDirty = true;
+
+  private int textProgram;
+  private int textPositionHandle;
+  private int textTexCoordHandle;
+  private int textViewportSizeHandle;
+  private int textColorHandle;
+  private int textTextureHandle;
+  private GlyphAtlas glyphAtlas;
+  private int atlasTextureId;
+  private int textBufferId;
+  private final float[] textVertices =
+      new float[OVERLAY_MAX_CHARS * GlyphAtlas.VERTICES_PER_GLYPH * GlyphAtlas.FLOATS_PER_VERTEX];
+  private final FloatBuffer textVertexBuffer =
+      ByteBuffer.allocateDirect(textVertices.length * 4)
+          .order(ByteOrder.nativeOrder())
+          .asFloatBuffer();
+  private final int[] viewport = new int[4];
+  // Set from the recognition thread; the GL thread lays it out again only when it changes.
+  private volatile String overlayText;
+  private String uploadedText;
+  private int textVertexCount;
+  private int textUploadCount;
+
+  public HandsResultGlRenderer() {
+    this(
+        new HandSkeletonGeometry(
+                connectionPairs(), NUM_SEGMENTS, LANDMARK_RADIUS, HOLLOW_CIRCLE_RADIUS)
+            .setColors(
+                true,
+                LEFT_HAND_CONNECTION_COLOR,
+                LEFT_HAND_LANDMARK_COLOR,
+                LEFT_HAND_HOLLOW_CIRCLE_COLOR)
+            .setColors(
+                false,
+                RIGHT_HAND_CONNECTION_COLOR,
+                RIGHT_HAND_LANDMARK_COLOR,
+                RIGHT_HAND_HOLLOW_CIRCLE_COLOR));
+  }
+
+  public HandsResultGlRenderer(HandGeometryBuilder geometry) {
+    this.geometry = geometry;
+    int floats = geometry.getMaxVertexCount() * HandGeometryBuilder.FLOATS_PER_VERTEX;
+    vertices = new float[floats];
+    vertexBuffer =
+        ByteBuffer.allocateDirect(floats * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+  }
+
+  private static String printableAscii() {
+    StringBuilder chars = new StringBuilder();
+    for (char c = ' '; c <= '~'; c++) {
+      chars.append(c);
+    }
+    return chars.toString();
+  }
+
+  private static int[] connectionPairs() {
+    int[] pairs = new int[Hands.HAND_CONNECTIONS.size() * 2];
+    int i = 0;
+    for (Hands.Connection c : Hands.HAND_CONNECTIONS) {
+      pairs[i++] = c.start();
+      pairs[i++] = c.end();
+    }
+    return pairs;
+  }
+
   private int loadShader(int type, String shaderCode) {
     int shader = GLES20.glCreateShader(type);
     GLES20.glShaderSource(shader, shaderCode);
@@ -68,17 +185,145 @@ public class HandsResultGlRenderer implements ResultGlRenderer<HandsResult> {
     return shader;
   }
 
+  private int createProgram(String vertexShaderCode, String fragmentShaderCode) {
+    int newProgram = GLES20.glCreateProgram();
+    int vertexShader = loadShader(GLES20.GL_VERTEX_SHADER, vertexShaderCode);
+    int fragmentShader = loadShader(GLES20.GL_FRAGMENT_SHADER, fragmentShaderCode);
+    GLES20.glAttachShader(newProgram, vertexShader);
+    GLES20.glAttachShader(newProgram, fragmentShader);
+    GLES20.glLinkProgram(newProgram);
+    return newProgram;
+  }
+
+  private static int createBuffer(int sizeBytes) {
+    int[] buffers = new int[1];
+    GLES20.glGenBuffers(1, buffers, 0);
+    GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, buffers[0]);
+    GLES20.glBufferData(GLES20.GL_ARRAY_BUFFER, sizeBytes, null, GLES20.GL_DYNAMIC_DRAW);
+    GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+    return buffers[0];
+  }
+
   @Override
   public void setupRendering() {
-    program = GLES20.glCreateProgram();
-    int vertexShader = loadShader(GLES20.GL_VERTEX_SHADER, VERTEX_SHADER);
-    int fragmentShader = loadShader(GLES20.GL_FRAGMENT_SHADER, FRAGMENT_SHADER);
-    GLES20.glAttachShader(program, vertexShader);
-    GLES20.glAttachShader(program, fragmentShader);
-    GLES20.glLinkProgram(program);
+    program = createProgram(VERTEX_SHADER, FRAGMENT_SHADER);
     positionHandle = GLES20.glGetAttribLocation(program, "vPosition");
     projectionMatrixHandle = GLES20.glGetUniformLocation(program, "uProjectionMatrix");
-    colorHandle = GLES20.glGetUniformLocation(program, "uColor");
+    colorHandle = GLES20.glGetAttribLocation(program, "aColor");
+    vertexBufferId = createBuffer(vertices.length * 4);
+    geometryDirty = true;
+
+    textProgram = createProgram(TEXT_VERTEX_SHADER, TEXT_FRAGMENT_SHADER);
+    textPositionHandle = GLES20.glGetAttribLocation(textProgram, "aPosition");
+    textTexCoordHandle = GLES20.glGetAttribLocation(textProgram, "aTexCoord");
+    textViewportSizeHandle = GLES20.glGetUniformLocation(textProgram, "uViewportSize");
+    textColorHandle = GLES20.glGetUniformLocation(textProgram, "uColor");
+    textTextureHandle = GLES20.glGetUniformLocation(textProgram, "uTexture");
+    textBufferId = createBuffer(textVertices.length * 4);
+    setupGlyphAtlas();
+    // The new context has no text uploaded yet.
+    uploadedText = null;
+    textVertexCount = 0;
+  }
+
+  /** Rasterizes every overlay character into one texture. Runs once per GL context. */
+  private void setupGlyphAtlas() {
+    Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    paint.setColor(Color.WHITE);
+    paint.setTextSize(OVERLAY_TEXT_SIZE);
+    Paint.FontMetrics metrics = paint.getFontMetrics();
+    char[] chars = OVERLAY_CHARS.toCharArray();
+    float[] advances = new float[chars.length];
+    for (int i = 0; i < chars.length; i++) {
+      advances[i] = paint.measureText(chars, i, 1);
+    }
+    glyphAtlas =
+        new GlyphAtlas(
+            OVERLAY_CHARS,
+            advances,
+            (int) Math.ceil(metrics.bottom - metrics.top),
+            OVERLAY_GLYPH_PADDING,
+            OVERLAY_ATLAS_MAX_WIDTH);
+
+    Bitmap bitmap =
+        Bitmap.createBitmap(glyphAtlas.getWidth(), glyphAtlas.getHeight(), Bitmap.Config.ARGB_8888);
+    Canvas canvas = new Canvas(bitmap);
+    int padding = glyphAtlas.getPadding();
+    for (int i = 0; i < chars.length; i++) {
+      canvas.drawText(
+          chars,
+          i,
+          1,
+          glyphAtlas.getCellX(i) + padding,
+          glyphAtlas.getCellY(i) + padding - metrics.top,
+          paint);
+    }
+
+    int[] textures = new int[1];
+    GLES20.glGenTextures(1, textures, 0);
+    atlasTextureId = textures[0];
+    GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, atlasTextureId);
+    GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_CLAMP_TO_EDGE);
+    GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_CLAMP_TO_EDGE);
+    GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_LINEAR);
+    GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_LINEAR);
+    GLUtils.texImage2D(GLES20.GL_TEXTURE_2D, 0, bitmap, 0);
+    GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
+    bitmap.recycle();
+  }
+
+  /**
+   * Sets the text drawn over the preview, e.g. the label of the recognized gesture. May be called
+   * from any thread; null hides the overlay. Characters outside printable ASCII are skipped.
+   */
+  public void setText(String text) {
+    overlayText = text;
+  }
+
+  /** How many times the overlay quads were uploaded, for checking that unchanged text is free. */
+  public int getTextUploadCount() {
+    return textUploadCount;
+  }
+
+  /**
+   * Sets the landmarks of the result that is about to be rendered.
+   *
+   * <p>Called on the result thread right before {@code setRenderData} for the same result. The
+   * snapshot is copied, so the caller may reuse it right away. Its timestamp must be the result's
+   * timestamp; {@link #renderResult} draws the landmarks whose timestamp matches the result it is
+   * given. The landmarks must not be transformed, since they are drawn on top of the unrotated
+   * input image.
+   */
+  public void setLandmarks(LandmarkSnapshot snapshot) {
+    synchronized (landmarkLock) {
+      LandmarkSnapshot previous = previousLandmarks;
+      previousLandmarks = pendingLandmarks;
+      pendingLandmarks = previous;
+      hasPreviousLandmarks = hasPendingLandmarks;
+      pendingLandmarks.copyFrom(snapshot);
+      hasPendingLandmarks = true;
+    }
+  }
+
+  /** Swaps in the newest landmarks that are not newer than the result at {@code timestamp}. */
+  private LandmarkSnapshot landmarksFor(long timestamp) {
+    synchronized (landmarkLock) {
+      if (hasPendingLandmarks && pendingLandmarks.getTimestamp() <= timestamp) {
+        LandmarkSnapshot drawn = drawnLandmarks;
+        drawnLandmarks = pendingLandmarks;
+        pendingLandmarks = drawn;
+        hasPendingLandmarks = false;
+        hasPreviousLandmarks = false;
+        geometryDirty = true;
+      } else if (hasPreviousLandmarks && previousLandmarks.getTimestamp() <= timestamp) {
+        LandmarkSnapshot drawn = drawnLandmarks;
+        drawnLandmarks = previousLandmarks;
+        previousLandmarks = drawn;
+        hasPreviousLandmarks = false;
+        geometryDirty = true;
+      }
+      return drawnLandmarks;
+    }
   }
 
   @Override
@@ -86,179 +331,119 @@ public class HandsResultGlRenderer implements ResultGlRenderer<HandsResult> {
     if (result == null) {
       return;
     }
+    long renderStart = SystemClock.elapsedRealtimeNanos();
     GLES20.glUseProgram(program);
     GLES20.glUniformMatrix4fv(projectionMatrixHandle, 1, false, projectionMatrix, 0);
     GLES20.glLineWidth(CONNECTION_THICKNESS);
 
-    int numHands = result.multiHandLandmarks().size();
-    for (int i = 0; i < numHands; ++i) {
-      boolean isLeftHand = result.multiHandedness().get(i).getLabel().equals("Left");
-      drawConnections(
-          result.multiHandLandmarks().get(i).getLandmarkList(),
-          isLeftHand ? LEFT_HAND_CONNECTION_COLOR : RIGHT_HAND_CONNECTION_COLOR);
-      for (NormalizedLandmark landmark : result.multiHandLandmarks().get(i).getLandmarkList()) {
-        // Draws the landmark.
-        drawCircle(
-            landmark.getX(),
-            landmark.getY(),
-            isLeftHand ? LEFT_HAND_LANDMARK_COLOR : RIGHT_HAND_LANDMARK_COLOR);
-        // Draws a hollow circle around the landmark.
-        drawHollowCircle(
-            landmark.getX(),
-            landmark.getY(),
-            isLeftHand ? LEFT_HAND_HOLLOW_CIRCLE_COLOR : RIGHT_HAND_HOLLOW_CIRCLE_COLOR);
+    LandmarkSnapshot landmarks = landmarksFor(result.timestamp());
+    GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, vertexBufferId);
+    if (geometryDirty) {
+      // Re-rendering the same result (e.g. on a surface redraw) reuses the uploaded vertices.
+      geometry.build(landmarks, vertices);
+      int floats =
+          (geometry.getLineVertexCount() + geometry.getTriangleVertexCount())
+              * HandGeometryBuilder.FLOATS_PER_VERTEX;
+      vertexBuffer.clear();
+      vertexBuffer.put(vertices, 0, floats);
+      vertexBuffer.position(0);
+      if (floats > 0) {
+        GLES20.glBufferSubData(GLES20.GL_ARRAY_BUFFER, 0, floats * 4, vertexBuffer);
       }
+      geometryDirty = false;
     }
+    drawGeometry();
+    GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+
+    drawOverlayText();
 
-//    drawResult();
+    long renderEnd = SystemClock.elapsedRealtimeNanos();
+    PipelineStats.INSTANCE.record(PipelineStats.Stage.RENDER, renderEnd - renderStart);
+    PipelineStats.INSTANCE.recordSinceSensor(
+        PipelineStats.Stage.END_TO_END, result.timestamp(), renderEnd);
   }
 
   /**
-   * Deletes the shader program.
+   * Deletes the shader program and the vertex buffer.
    *
    * <p>This is only necessary if one wants to release the program while keeping the context around.
    */
   public void release() {
     GLES20.glDeleteProgram(program);
+    GLES20.glDeleteProgram(textProgram);
+    GLES20.glDeleteBuffers(2, new int[] {vertexBufferId, textBufferId}, 0);
+    GLES20.glDeleteTextures(1, new int[] {atlasTextureId}, 0);
+    vertexBufferId = 0;
+    textBufferId = 0;
+    atlasTextureId = 0;
   }
 
-  private void drawConnections(List<NormalizedLandmark> handLandmarkList, float[] colorArray) {
-    GLES20.glUniform4fv(colorHandle, 1, colorArray, 0);
-    for (Hands.Connection c : Hands.HAND_CONNECTIONS) {
-      NormalizedLandmark start = handLandmarkList.get(c.start());
-      NormalizedLandmark end = handLandmarkList.get(c.end());
-      float[] vertex = {start.getX(), start.getY(), end.getX(), end.getY()};
-      FloatBuffer vertexBuffer =
-          ByteBuffer.allocateDirect(vertex.length * 4)
-              .order(ByteOrder.nativeOrder())
-              .asFloatBuffer()
-              .put(vertex);
-      vertexBuffer.position(0);
-      GLES20.glEnableVertexAttribArray(positionHandle);
-      GLES20.glVertexAttribPointer(positionHandle, 2, GLES20.GL_FLOAT, false, 0, vertexBuffer);
-      GLES20.glDrawArrays(GLES20.GL_LINES, 0, 2);
-    }
-  }
-
-  private void drawCircle(float x, float y, float[] colorArray) {
-    GLES20.glUniform4fv(colorHandle, 1, colorArray, 0);
-    int vertexCount = NUM_SEGMENTS + 2;
-    float[] vertices = new float[vertexCount * 3];
-    vertices[0] = x;
-    vertices[1] = y;
-    vertices[2] = 0;
-    for (int i = 1; i < vertexCount; i++) {
-      float angle = 2.0f * i * (float) Math.PI / NUM_SEGMENTS;
-      int currentIndex = 3 * i;
-      vertices[currentIndex] = x + (float) (LANDMARK_RADIUS * Math.cos(angle));
-      vertices[currentIndex + 1] = y + (float) (LANDMARK_RADIUS * Math.sin(angle));
-      vertices[currentIndex + 2] = 0;
+  /** Draws the lines (connections and hollow circles), then the filled circles on top. */
+  private void drawGeometry() {
+    int lineCount = geometry.getLineVertexCount();
+    int triangleCount = geometry.getTriangleVertexCount();
+    if (lineCount + triangleCount == 0) {
+      return;
     }
-    FloatBuffer vertexBuffer =
-        ByteBuffer.allocateDirect(vertices.length * 4)
-            .order(ByteOrder.nativeOrder())
-            .asFloatBuffer()
-            .put(vertices);
-    vertexBuffer.position(0);
     GLES20.glEnableVertexAttribArray(positionHandle);
-    GLES20.glVertexAttribPointer(positionHandle, 3, GLES20.GL_FLOAT, false, 0, vertexBuffer);
-    GLES20.glDrawArrays(GLES20.GL_TRIANGLE_FAN, 0, vertexCount);
-  }
-
-  private void drawHollowCircle(float x, float y, float[] colorArray) {
-    GLES20.glUniform4fv(colorHandle, 1, colorArray, 0);
-    int vertexCount = NUM_SEGMENTS + 1;
-    float[] vertices = new float[vertexCount * 3];
-    for (int i = 0; i < vertexCount; i++) {
-      float angle = 2.0f * i * (float) Math.PI / NUM_SEGMENTS;
-      int currentIndex = 3 * i;
-      vertices[currentIndex] = x + (float) (HOLLOW_CIRCLE_RADIUS * Math.cos(angle));
-      vertices[currentIndex + 1] = y + (float) (HOLLOW_CIRCLE_RADIUS * Math.sin(angle));
-      vertices[currentIndex + 2] = 0;
+    GLES20.glVertexAttribPointer(positionHandle, 2, GLES20.GL_FLOAT, false, STRIDE_BYTES, 0);
+    GLES20.glEnableVertexAttribArray(colorHandle);
+    GLES20.glVertexAttribPointer(colorHandle, 4, GLES20.GL_FLOAT, false, STRIDE_BYTES, 8);
+    if (lineCount > 0) {
+      GLES20.glDrawArrays(GLES20.GL_LINES, 0, lineCount);
     }
-    FloatBuffer vertexBuffer =
-        ByteBuffer.allocateDirect(vertices.length * 4)
-            .order(ByteOrder.nativeOrder())
-            .asFloatBuffer()
-            .put(vertices);
-    vertexBuffer.position(0);
-    GLES20.glEnableVertexAttribArray(positionHandle);
-    GLES20.glVertexAttribPointer(positionHandle, 3, GLES20.GL_FLOAT, false, 0, vertexBuffer);
-    GLES20.glDrawArrays(GLES20.GL_LINE_STRIP, 0, vertexCount);
+    if (triangleCount > 0) {
+      GLES20.glDrawArrays(GLES20.GL_TRIANGLES, lineCount, triangleCount);
+    }
+    GLES20.glDisableVertexAttribArray(colorHandle);
+    GLES20.glDisableVertexAttribArray(positionHandle);
   }
 
-  private void drawResult() {
-
-    float[] vertexData = {
-            -1f, -1f,
-            1f, -1f,
-            -1f, 1f,
-            1f, 1f,
-            //用来 加一个 图片水印 到左上角
-            -1f, 0.5f,
-            0f, 0.5f,
-            -1f, 1f,
-            0f, 1f,
-
-//            //用来 加一个文字水印 到右下角
-//            0f, -1f,
-//            1f, -1f,
-//            0f, -0.8f,
-//            1f, -0.8f
-    };
-
-
-
-    Bitmap bitmap = createTextImage("1234", 25,"#ff0000", "#00000000", 0);
-    int textTextureId = loadBitmapTexture(bitmap);
-    bitmap.recycle();
-
-    GLES20.glEnableVertexAttribArray(positionHandle);
-
-    GLES20.glVertexAttribPointer(positionHandle, 2, GLES20.GL_FLOAT, false, 8,64);
+  private void drawOverlayText() {
+    String text = overlayText;
+    GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, textBufferId);
+    if (text == null ? uploadedText != null : !text.equals(uploadedText)) {
+      textVertexCount =
+          text == null ? 0 : glyphAtlas.layout(text, OVERLAY_MARGIN, OVERLAY_MARGIN, textVertices);
+      if (textVertexCount > 0) {
+        textVertexBuffer.clear();
+        textVertexBuffer.put(textVertices, 0, textVertexCount * GlyphAtlas.FLOATS_PER_VERTEX);
+        textVertexBuffer.position(0);
+        GLES20.glBufferSubData(
+            GLES20.GL_ARRAY_BUFFER,
+            0,
+            textVertexCount * GlyphAtlas.FLOATS_PER_VERTEX * 4,
+            textVertexBuffer);
+        textUploadCount++;
+      }
+      uploadedText = text;
+    }
+    if (textVertexCount == 0) {
+      GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+      return;
+    }
 
-    GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textTextureId);
-    //绘制水印
-    GLES20.glDrawArrays(GLES20.GL_TRIANGLE_STRIP, 0, 4);
-    //解绑纹理
+    GLES20.glUseProgram(textProgram);
+    // The quads are laid out in pixels; the viewport size converts them to clip space.
+    GLES20.glGetIntegerv(GLES20.GL_VIEWPORT, viewport, 0);
+    GLES20.glUniform2f(textViewportSizeHandle, viewport[2], viewport[3]);
+    GLES20.glUniform4fv(textColorHandle, 1, OVERLAY_TEXT_COLOR, 0);
+    GLES20.glActiveTexture(GLES20.GL_TEXTURE0);
+    GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, atlasTextureId);
+    GLES20.glUniform1i(textTextureHandle, 0);
+    GLES20.glEnableVertexAttribArray(textPositionHandle);
+    GLES20.glVertexAttribPointer(
+        textPositionHandle, 2, GLES20.GL_FLOAT, false, TEXT_STRIDE_BYTES, 0);
+    GLES20.glEnableVertexAttribArray(textTexCoordHandle);
+    GLES20.glVertexAttribPointer(
+        textTexCoordHandle, 2, GLES20.GL_FLOAT, false, TEXT_STRIDE_BYTES, 8);
+    GLES20.glEnable(GLES20.GL_BLEND);
+    GLES20.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+    GLES20.glDrawArrays(GLES20.GL_TRIANGLES, 0, textVertexCount);
+    GLES20.glDisable(GLES20.GL_BLEND);
+    GLES20.glDisableVertexAttribArray(textTexCoordHandle);
+    GLES20.glDisableVertexAttribArray(textPositionHandle);
     GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, 0);
-
-  }
-
-  public static int loadBitmapTexture(Bitmap bitmap) {
-    int[] textureIds = new int[1];
-    GLES20.glGenTextures(1, textureIds, 0);
-    GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textureIds[0]);
-    GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_REPEAT);
-    GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_REPEAT);
-    GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_LINEAR);
-    GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_LINEAR);
-
-    ByteBuffer bitmapBuffer = ByteBuffer.allocate(bitmap.getHeight() * bitmap.getWidth() * 4);
-    bitmap.copyPixelsToBuffer(bitmapBuffer);
-    bitmapBuffer.flip();
-
-    GLES20.glTexImage2D(GLES20.GL_TEXTURE_2D, 0, GLES20.GL_RGBA, bitmap.getWidth(),
-            bitmap.getHeight(), 0, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, bitmapBuffer);
-    return textureIds[0];
-  }
-
-  public static Bitmap createTextImage(String text, int textSize, String textColor, String bgColor, int padding) {
-
-    Paint paint = new Paint();
-    paint.setColor(Color.parseColor(textColor));
-    paint.setTextSize(textSize);
-    paint.setStyle(Paint.Style.FILL);
-    paint.setAntiAlias(true);
-
-    float width = paint.measureText(text, 0, text.length());
-    float top = paint.getFontMetrics().top;
-    float bottom = paint.getFontMetrics().bottom;
-
-    Bitmap bm = Bitmap.createBitmap((int) (width + padding * 2), (int) ((bottom - top) + padding * 2), Bitmap.Config.ARGB_8888);
-    Canvas canvas = new Canvas(bm);
-    canvas.drawColor(Color.parseColor(bgColor));
-    canvas.drawText(text, padding, -top + padding, paint);
-    return bm;
+    GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
   }
 }
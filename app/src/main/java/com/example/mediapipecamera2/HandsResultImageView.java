@@ -18,18 +18,29 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.Matrix;
 import android.graphics.Paint;
+import android.graphics.drawable.BitmapDrawable;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.widget.AppCompatImageView;
 
-import com.google.mediapipe.formats.proto.LandmarkProto.NormalizedLandmark;
 import com.google.mediapipe.solutions.hands.Hands;
 import com.google.mediapipe.solutions.hands.HandsResult;
 
-import java.util.List;
+import java.util.Locale;
 
-/** An ImageView implementation for displaying {@link HandsResult}. */
+/**
+ * An ImageView implementation for displaying {@link HandsResult}.
+ *
+ * <p>Results are composited on a background thread into one of two reusable back buffers, and
+ * {@link #update()} swaps the finished buffer in. The buffer it replaces is drawn into again only
+ * after the new one has been set on the view. Once both buffers exist, a result of the same size
+ * allocates nothing.
+ */
 public class HandsResultImageView extends AppCompatImageView {
   private static final String TAG = "HandsResultImageView";
 
@@ -42,88 +53,325 @@ public class HandsResultImageView extends AppCompatImageView {
   private static final int LEFT_HAND_LANDMARK_COLOR = Color.parseColor("#FF3030");
   private static final int RIGHT_HAND_LANDMARK_COLOR = Color.parseColor("#30FF30");
   private static final int LANDMARK_RADIUS = 10; // Pixels
-  private Bitmap latest;
+  private static final int LEFT = 0;
+  private static final int RIGHT = 1;
+
+  /** A composited frame and the drawable showing it, both kept for reuse. */
+  private static final class Buffer {
+    final Bitmap bitmap;
+    final BitmapDrawable drawable;
+
+    Buffer(BitmapDrawable drawable, Bitmap bitmap) {
+      this.bitmap = bitmap;
+      this.drawable = drawable;
+    }
+  }
+
+  private final DoubleBuffer<Buffer> buffers = new DoubleBuffer<>();
+
+  // Everything below up to pendingLock is only used on the compositing thread.
+  private final Canvas canvas = new Canvas();
+  // Indexed by LEFT / RIGHT.
+  private final Paint[] connectionPaints = new Paint[2];
+  private final Paint[] landmarkPaints = new Paint[2];
+  private final Paint[] hollowCirclePaints = new Paint[2];
+  // Connection i goes from landmark connections[2i] to connections[2i + 1].
+  private final int[] connections;
+  // x0, y0, x1, y1 per connection, for a single drawLines call.
+  private final float[] connectionPoints;
+  private LandmarkSnapshot compositeLandmarks = new LandmarkSnapshot();
+
+  private final Object pendingLock = new Object();
+  // Guarded by pendingLock: the newest result the compositing thread has not picked up yet.
+  private Bitmap pendingInput;
+  // Set when pendingInput belongs to a frame; the view holds it as Frame.Owner.RENDERER.
+  private Frame<Bitmap> pendingFrame;
+  private LandmarkSnapshot pendingLandmarks = new LandmarkSnapshot();
+  private boolean compositePosted;
+  private HandlerThread compositeThread;
+  private Handler compositeHandler;
+  private long compositeCount;
+  private long droppedCount;
+  private long allocationCount;
+  private long lastCompositeNanos;
+  private long totalCompositeNanos;
+
+  private final Runnable compositeRunnable = this::composite;
+  private final Runnable updateRunnable = this::update;
 
   public HandsResultImageView(Context context) {
     super(context);
     setScaleType(ScaleType.FIT_CENTER);
+    connections = new int[Hands.HAND_CONNECTIONS.size() * 2];
+    int i = 0;
+    for (Hands.Connection c : Hands.HAND_CONNECTIONS) {
+      connections[i++] = c.start();
+      connections[i++] = c.end();
+    }
+    connectionPoints = new float[connections.length * 2];
+    connectionPaints[LEFT] = strokePaint(LEFT_HAND_CONNECTION_COLOR, CONNECTION_THICKNESS);
+    connectionPaints[RIGHT] = strokePaint(RIGHT_HAND_CONNECTION_COLOR, CONNECTION_THICKNESS);
+    landmarkPaints[LEFT] = new Paint();
+    landmarkPaints[LEFT].setColor(LEFT_HAND_LANDMARK_COLOR);
+    landmarkPaints[RIGHT] = new Paint();
+    landmarkPaints[RIGHT].setColor(RIGHT_HAND_LANDMARK_COLOR);
+    hollowCirclePaints[LEFT] = strokePaint(LEFT_HAND_HOLLOW_CIRCLE_COLOR, HOLLOW_CIRCLE_WIDTH);
+    hollowCirclePaints[RIGHT] = strokePaint(RIGHT_HAND_HOLLOW_CIRCLE_COLOR, HOLLOW_CIRCLE_WIDTH);
+  }
+
+  private static Paint strokePaint(int color, float width) {
+    Paint paint = new Paint();
+    paint.setColor(color);
+    paint.setStrokeWidth(width);
+    paint.setStyle(Paint.Style.STROKE);
+    return paint;
   }
 
   /**
-   * Sets a {@link HandsResult} to render.
+   * Sets a result to render. The result is composited on a background thread, and the view picks
+   * it up by itself when it is done. If a newer result arrives first, this one is dropped.
    *
-   * @param result a {@link HandsResult} object that contains the solution outputs and the input
-   *     {@link Bitmap}.
+   * @param bmInput the input {@link Bitmap} of the {@link HandsResult}. It is read on the
+   *     compositing thread, so it must not be recycled or modified after this call.
+   * @param landmarks the landmarks of the same result, as extracted once on the result thread. They
+   *     are copied, so the caller may reuse the snapshot.
    */
-  public void setHandsResult(HandsResult result) {
-    if (result == null) {
+  public void setHandsResult(Bitmap bmInput, LandmarkSnapshot landmarks) {
+    if (bmInput == null || landmarks == null) {
+      return;
+    }
+    enqueue(bmInput, null, landmarks);
+  }
+
+  /**
+   * Sets a result to render from a camera {@link Frame}. The frame is retained as {@link
+   * Frame.Owner#RENDERER} until it has been composited or replaced by a newer result.
+   */
+  public void setHandsResult(@NonNull Frame<Bitmap> frame, @NonNull LandmarkSnapshot landmarks) {
+    enqueue(frame.retain(Frame.Owner.RENDERER).getPixels(), frame, landmarks);
+  }
+
+  private void enqueue(Bitmap input, @Nullable Frame<Bitmap> frame, LandmarkSnapshot landmarks) {
+    Frame<Bitmap> replaced;
+    synchronized (pendingLock) {
+      if (pendingInput != null) {
+        droppedCount++;
+      }
+      replaced = pendingFrame;
+      pendingInput = input;
+      pendingFrame = frame;
+      pendingLandmarks.copyFrom(landmarks);
+      if (!compositePosted) {
+        if (compositeThread == null) {
+          compositeThread = new HandlerThread(TAG);
+          compositeThread.start();
+          compositeHandler = new Handler(compositeThread.getLooper());
+        }
+        compositePosted = compositeHandler.post(compositeRunnable);
+      }
+    }
+    if (replaced != null) {
+      replaced.release(Frame.Owner.RENDERER);
+    }
+  }
+
+  /** Swaps in the latest composited {@link HandsResult}, if any. Must be called on the UI thread. */
+  public void update() {
+    Buffer front = buffers.swap();
+    if (front == null) {
+      return;
+    }
+    setImageDrawable(front.drawable);
+    // The previous front is off screen now and may be drawn into again.
+    if (buffers.releaseFront()) {
+      synchronized (pendingLock) {
+        if (compositeHandler != null && !compositePosted) {
+          compositePosted = compositeHandler.post(compositeRunnable);
+        }
+      }
+    }
+  }
+
+  @Override
+  protected void onDetachedFromWindow() {
+    super.onDetachedFromWindow();
+    Frame<Bitmap> dropped;
+    synchronized (pendingLock) {
+      if (compositeThread != null) {
+        compositeThread.quitSafely();
+        compositeThread = null;
+        compositeHandler = null;
+      }
+      pendingInput = null;
+      dropped = pendingFrame;
+      pendingFrame = null;
+      compositePosted = false;
+    }
+    if (dropped != null) {
+      dropped.release(Frame.Owner.RENDERER);
+    }
+  }
+
+  private void composite() {
+    synchronized (pendingLock) {
+      compositePosted = false;
+      if (pendingInput == null) {
+        return;
+      }
+    }
+    if (!buffers.beginDraw()) {
+      // The other buffer is still on screen; update() posts this again once it has been replaced.
       return;
     }
-    Bitmap bmInput = result.inputBitmap();
-    int width = bmInput.getWidth();
-    int height = bmInput.getHeight();
-    latest = Bitmap.createBitmap(width, height, bmInput.getConfig());
-    Canvas canvas = new Canvas(latest);
+    Bitmap input;
+    Frame<Bitmap> frame;
+    synchronized (pendingLock) {
+      input = pendingInput;
+      frame = pendingFrame;
+      pendingInput = null;
+      pendingFrame = null;
+      LandmarkSnapshot landmarks = compositeLandmarks;
+      compositeLandmarks = pendingLandmarks;
+      pendingLandmarks = landmarks;
+    }
+    if (input == null) {
+      // Detached in the meantime.
+      buffers.cancelDraw();
+      return;
+    }
+    long start = SystemClock.elapsedRealtimeNanos();
+    int width = input.getWidth();
+    int height = input.getHeight();
+    Bitmap.Config config = input.getConfig() != null ? input.getConfig() : Bitmap.Config.ARGB_8888;
+
+    Buffer back = buffers.getBack();
+    boolean allocated = false;
+    if (back == null
+        || back.bitmap.getWidth() != width
+        || back.bitmap.getHeight() != height
+        || back.bitmap.getConfig() != config) {
+      // The old buffer is left to the GC rather than recycled, in case a draw still references it.
+      Bitmap bitmap = Bitmap.createBitmap(width, height, config);
+      back = new Buffer(new BitmapDrawable(getResources(), bitmap), bitmap);
+      buffers.setBack(back);
+      allocated = true;
+    }
 
-    canvas.drawBitmap(bmInput, new Matrix(), null);
-    int numHands = result.multiHandLandmarks().size();
-    for (int i = 0; i < numHands; ++i) {
+    canvas.setBitmap(back.bitmap);
+    canvas.drawBitmap(input, 0f, 0f, null);
+    for (int i = 0; i < compositeLandmarks.getHandCount(); ++i) {
       drawLandmarksOnCanvas(
-          result.multiHandLandmarks().get(i).getLandmarkList(),
-          result.multiHandedness().get(i).getLabel().equals("Left"),
+          compositeLandmarks,
+          i,
+          compositeLandmarks.getHandedness(i) == HandFrame.Handedness.LEFT,
           canvas,
           width,
           height);
     }
-  }
+    canvas.setBitmap(null);
+    buffers.endDraw();
+    if (frame != null) {
+      frame.release(Frame.Owner.RENDERER);
+    }
 
-  /** Updates the image view with the latest {@link HandsResult}. */
-  public void update() {
-    postInvalidate();
-    if (latest != null) {
-      setImageBitmap(latest);
+    long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+    synchronized (pendingLock) {
+      compositeCount++;
+      if (allocated) {
+        allocationCount++;
+      }
+      lastCompositeNanos = elapsed;
+      totalCompositeNanos += elapsed;
     }
+    post(updateRunnable);
   }
 
   private void drawLandmarksOnCanvas(
-      List<NormalizedLandmark> handLandmarkList,
+      LandmarkSnapshot landmarks,
+      int hand,
       boolean isLeftHand,
       Canvas canvas,
       int width,
       int height) {
+    int side = isLeftHand ? LEFT : RIGHT;
+    int count = landmarks.getLandmarkCount(hand);
     // Draw connections.
-    for (Hands.Connection c : Hands.HAND_CONNECTIONS) {
-      Paint connectionPaint = new Paint();
-      connectionPaint.setColor(
-          isLeftHand ? LEFT_HAND_CONNECTION_COLOR : RIGHT_HAND_CONNECTION_COLOR);
-      connectionPaint.setStrokeWidth(CONNECTION_THICKNESS);
-      NormalizedLandmark start = handLandmarkList.get(c.start());
-      NormalizedLandmark end = handLandmarkList.get(c.end());
-      canvas.drawLine(
-          start.getX() * width,
-          start.getY() * height,
-          end.getX() * width,
-          end.getY() * height,
-          connectionPaint);
-    }
-    Paint landmarkPaint = new Paint();
-    landmarkPaint.setColor(isLeftHand ? LEFT_HAND_LANDMARK_COLOR : RIGHT_HAND_LANDMARK_COLOR);
+    int points = 0;
+    for (int c = 0; c < connections.length; c += 2) {
+      int start = connections[c];
+      int end = connections[c + 1];
+      if (start >= count || end >= count) {
+        continue;
+      }
+      connectionPoints[points++] = landmarks.getX(hand, start) * width;
+      connectionPoints[points++] = landmarks.getY(hand, start) * height;
+      connectionPoints[points++] = landmarks.getX(hand, end) * width;
+      connectionPoints[points++] = landmarks.getY(hand, end) * height;
+    }
+    canvas.drawLines(connectionPoints, 0, points, connectionPaints[side]);
     // Draws landmarks.
-    for (NormalizedLandmark landmark : handLandmarkList) {
+    for (int j = 0; j < count; ++j) {
       canvas.drawCircle(
-          landmark.getX() * width, landmark.getY() * height, LANDMARK_RADIUS, landmarkPaint);
+          landmarks.getX(hand, j) * width,
+          landmarks.getY(hand, j) * height,
+          LANDMARK_RADIUS,
+          landmarkPaints[side]);
     }
     // Draws hollow circles around landmarks.
-    landmarkPaint.setColor(
-        isLeftHand ? LEFT_HAND_HOLLOW_CIRCLE_COLOR : RIGHT_HAND_HOLLOW_CIRCLE_COLOR);
-    landmarkPaint.setStrokeWidth(HOLLOW_CIRCLE_WIDTH);
-    landmarkPaint.setStyle(Paint.Style.STROKE);
-    for (NormalizedLandmark landmark : handLandmarkList) {
+    for (int j = 0; j < count; ++j) {
       canvas.drawCircle(
-          landmark.getX() * width,
-          landmark.getY() * height,
+          landmarks.getX(hand, j) * width,
+          landmarks.getY(hand, j) * height,
           LANDMARK_RADIUS + HOLLOW_CIRCLE_WIDTH,
-          landmarkPaint);
+          hollowCirclePaints[side]);
+    }
+  }
+
+  /** Number of results composited so far. */
+  public long getCompositeCount() {
+    synchronized (pendingLock) {
+      return compositeCount;
+    }
+  }
+
+  /** Number of results replaced by a newer one before they were composited. */
+  public long getDroppedCount() {
+    synchronized (pendingLock) {
+      return droppedCount;
+    }
+  }
+
+  /**
+   * Number of back buffers allocated. It stays at 2 in steady state and only grows when the input
+   * size changes.
+   */
+  public long getAllocationCount() {
+    synchronized (pendingLock) {
+      return allocationCount;
+    }
+  }
+
+  public long getLastCompositeNanos() {
+    synchronized (pendingLock) {
+      return lastCompositeNanos;
+    }
+  }
+
+  @NonNull
+  @Override
+  public String toString() {
+    synchronized (pendingLock) {
+      return String.format(
+          Locale.US,
+          "HandsResultImageView composited=%d dropped=%d allocations=%d swapped=%d"
+              + " overwritten=%d last=%.2fms avg=%.2fms",
+          compositeCount,
+          droppedCount,
+          allocationCount,
+          buffers.getSwapCount(),
+          buffers.getOverwrittenCount(),
+          lastCompositeNanos / 1e6,
+          compositeCount == 0 ? 0.0 : totalCompositeNanos / 1e6 / compositeCount);
     }
   }
 }
@@ -0,0 +1,98 @@
+package com.example.mediapipecamera2;
+
+/**
+ * 按推理耗时的预算决定送进 Hands 的图像缩放比例.
+ *
+ * <p>每 {@link #WINDOW} 个推理结果统计一次 p95: 超过目标时降一档; 按面积估算升一档后
+ * 仍低于目标的 {@link #STEP_UP_MARGIN} 时升一档. 每次切换后重新统计, 上一档的样本不参与判断.
+ *
+ * <p>关键点是归一化坐标, 缩放不影响 HandTranslate 和绘制.
+ */
+public final class InputScaleController {
+
+    /** 640x480 缩到一半仍然大于手掌检测模型的输入 */
+    public static final float[] DEFAULT_SCALES = {1f, 0.75f, 0.5f};
+
+    static final int WINDOW = 30;
+    static final float STEP_UP_MARGIN = 0.8f;
+
+    private final float[] scales;
+    private final long targetNanos;
+
+    private final LatencyHistogram window = new LatencyHistogram();
+    private final LatencyHistogram.Snapshot snapshot = new LatencyHistogram.Snapshot();
+
+    private volatile int level;
+    private long lastP95;
+
+    /**
+     * @param targetNanos 推理耗时 p95 的目标
+     * @param scales 从大到小的缩放比例, 第一档为起始档位
+     */
+    public InputScaleController(long targetNanos, float... scales) {
+        if (targetNanos <= 0) {
+            throw new IllegalArgumentException("targetNanos must be positive: " + targetNanos);
+        }
+        if (scales.length == 0) {
+            throw new IllegalArgumentException("scales is empty");
+        }
+        for (int i = 0; i < scales.length; i++) {
+            if (scales[i] <= 0f || scales[i] > 1f || (i > 0 && scales[i] >= scales[i - 1])) {
+                throw new IllegalArgumentException("scales must be descending in (0, 1]");
+            }
+        }
+        this.targetNanos = targetNanos;
+        this.scales = scales.clone();
+    }
+
+    /** 当前缩放比例, 任意线程可读 */
+    public float getScale() {
+        return scales[level];
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /** 最近一个窗口的 p95, 纳秒 */
+    public synchronized long getLastP95() {
+        return lastP95;
+    }
+
+    /**
+     * 记录一帧的推理耗时
+     * @return 缩放比例是否改变
+     */
+    public synchronized boolean onInferenceLatency(long nanos) {
+        window.record(nanos);
+        if (window.getCount() < WINDOW) {
+            return false;
+        }
+        window.snapshot(snapshot);
+        window.reset();
+        long p95 = snapshot.p95;
+        lastP95 = p95;
+
+        int current = level;
+        if (p95 > targetNanos && current < scales.length - 1) {
+            level = current + 1;
+            return true;
+        }
+        if (current > 0) {
+            // 推理耗时大致和像素数成正比
+            float ratio = scales[current - 1] / scales[current];
+            if (p95 * ratio * ratio < targetNanos * STEP_UP_MARGIN) {
+                level = current - 1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** 回到第一档并清空统计 */
+    public synchronized void reset() {
+        window.reset();
+        level = 0;
+        lastP95 = 0;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+
+import com.google.mediapipe.formats.proto.ClassificationProto;
+import com.google.mediapipe.formats.proto.LandmarkProto;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * 把每个 HandsResult 写成 {@link LandmarkRecording} 格式的定长记录.
+ *
+ * <p>记录先写进预分配的缓冲区, 攒满一批再落盘, 结果线程上不分配内存.
+ */
+public class LandmarkRecorder implements Closeable {
+
+    private static final int RECORDS_PER_FLUSH = 64;
+
+    private final FileOutputStream outputStream;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    // 从 proto 写入时先拷贝到这里
+    private final LandmarkSnapshot scratch = new LandmarkSnapshot();
+    private long recordCount;
+    private boolean closed;
+
+    public LandmarkRecorder(@NonNull File file) throws IOException {
+        outputStream = new FileOutputStream(file);
+        channel = outputStream.getChannel();
+        buffer = ByteBuffer.allocateDirect(LandmarkRecording.RECORD_SIZE * RECORDS_PER_FLUSH)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        ByteBuffer header = ByteBuffer.allocate(LandmarkRecording.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(LandmarkRecording.MAGIC);
+        header.putInt(LandmarkRecording.VERSION);
+        header.putInt(LandmarkRecording.RECORD_SIZE);
+        header.put((byte) LandmarkRecording.MAX_HANDS);
+        header.put((byte) LandmarkRecording.NUM_LANDMARKS);
+        header.position(LandmarkRecording.HEADER_SIZE);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    /**
+     * 写一条记录, 超过 {@link LandmarkRecording#MAX_HANDS} 的手和超过 21 个的点会被忽略
+     * @param timestamp HandsResult.timestamp()
+     * @param width 输入帧宽
+     * @param height 输入帧高
+     */
+    public synchronized void record(long timestamp, int width, int height,
+                                    List<LandmarkProto.NormalizedLandmarkList> multiHandLandmarks,
+                                    List<ClassificationProto.Classification> multiHandedness) throws IOException {
+        scratch.set(timestamp, width, height, multiHandLandmarks, multiHandedness);
+        record(scratch);
+    }
+
+    /**
+     * 写一条转到屏幕方向的记录, 与识别线程看到的一致; snapshot 本身不变.
+     * 在结果线程上调用, 每个结果都会写入, 不受识别队列丢帧影响
+     */
+    public synchronized void record(@NonNull LandmarkSnapshot snapshot,
+                                    @NonNull LandmarkTransform transform) throws IOException {
+        scratch.copyFrom(snapshot);
+        transform.apply(scratch);
+        record(scratch);
+    }
+
+    /** 写一条记录 */
+    public synchronized void record(@NonNull LandmarkSnapshot snapshot) throws IOException {
+        if (closed) { return; }
+        if (buffer.remaining() < LandmarkRecording.RECORD_SIZE) {
+            flushBuffer();
+        }
+
+        int start = buffer.position();
+        buffer.putLong(snapshot.timestamp);
+        buffer.putShort((short) snapshot.width);
+        buffer.putShort((short) snapshot.height);
+        buffer.put((byte) snapshot.handCount);
+        buffer.put((byte) (snapshot.mirrored ? LandmarkRecording.FLAG_MIRRORED : 0));
+        buffer.putShort((short) 0);
+        buffer.position(start + LandmarkRecording.RECORD_HEADER_SIZE);
+
+        for (int hand = 0; hand < LandmarkRecording.MAX_HANDS; hand++) {
+            int handStart = buffer.position();
+            if (hand < snapshot.handCount) {
+                int count = snapshot.landmarkCount[hand];
+                buffer.put((byte) handednessCode(snapshot.handedness[hand]));
+                buffer.put((byte) count);
+                buffer.putShort(LandmarkRecording.quantizeUnit(snapshot.score[hand]));
+                int offset = hand * LandmarkSnapshot.NUM_LANDMARKS;
+                for (int j = 0; j < count; j++) {
+                    buffer.putShort(LandmarkRecording.quantizeXY(snapshot.x[offset + j]));
+                    buffer.putShort(LandmarkRecording.quantizeXY(snapshot.y[offset + j]));
+                    buffer.putShort(LandmarkRecording.quantizeZ(snapshot.z[offset + j]));
+                }
+            }
+            // 空的手和缺的点补 0
+            int handEnd = handStart + LandmarkRecording.HAND_SIZE;
+            while (buffer.position() < handEnd) {
+                buffer.put((byte) 0);
+            }
+        }
+        recordCount++;
+    }
+
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    public synchronized void flush() throws IOException {
+        if (closed) { return; }
+        flushBuffer();
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) { return; }
+        try {
+            flushBuffer();
+        } finally {
+            closed = true;
+            outputStream.close();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static int handednessCode(HandFrame.Handedness handedness) {
+        if (handedness == HandFrame.Handedness.LEFT) {
+            return LandmarkRecording.HANDEDNESS_LEFT;
+        }
+        if (handedness == HandFrame.Handedness.RIGHT) {
+            return LandmarkRecording.HANDEDNESS_RIGHT;
+        }
+        return LandmarkRecording.HANDEDNESS_NONE;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.mediapipecamera2;
+
+/**
+ * 关键点录制文件的格式, 由 {@link LandmarkRecorder} 写, {@link LandmarkReplayer} 读.
+ *
+ * <p>小端序. 文件头 {@link #HEADER_SIZE} 字节, 之后是定长记录, 每条记录对应一个 HandsResult:
+ * <pre>
+ * long   timestamp
+ * ushort width, ushort height
+ * byte   handCount, byte flags ({@link #FLAG_MIRRORED}), 2 字节填充
+ * MAX_HANDS 个手:
+ *   byte handedness (0 无, 1 左, 2 右), byte landmarkCount, ushort score
+ *   21 个点: ushort x, ushort y, short z
+ * </pre>
+ * x/y 按 [{@link #XY_MIN}, {@link #XY_MAX}] 量化到 16 位, 允许关键点略微超出画面;
+ * z 按 [-1, 1] 量化, score 按 [0, 1] 量化.
+ */
+final class LandmarkRecording {
+
+    static final int MAGIC = 0x4B4D4C48; // "HLMK"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final String FILE_SUFFIX = ".hlm";
+
+    static final int MAX_HANDS = LandmarkSnapshot.MAX_HANDS;
+    static final int NUM_LANDMARKS = HandFrame.NUM_LANDMARKS;
+
+    static final int HANDEDNESS_NONE = 0;
+    static final int HANDEDNESS_LEFT = 1;
+    static final int HANDEDNESS_RIGHT = 2;
+
+    // 记录头 flags: 坐标已经水平镜像过, 见 LandmarkSnapshot#isMirrored
+    static final int FLAG_MIRRORED = 1;
+
+    static final int LANDMARK_SIZE = 6;
+    static final int HAND_SIZE = 4 + NUM_LANDMARKS * LANDMARK_SIZE;
+    static final int RECORD_HEADER_SIZE = 16;
+    static final int RECORD_SIZE = RECORD_HEADER_SIZE + MAX_HANDS * HAND_SIZE;
+
+    static final float XY_MIN = -0.5f;
+    static final float XY_MAX = 1.5f;
+
+    private LandmarkRecording() {}
+
+    static short quantizeXY(float value) {
+        return (short) quantize((value - XY_MIN) / (XY_MAX - XY_MIN));
+    }
+
+    static float dequantizeXY(short value) {
+        return XY_MIN + (value & 0xFFFF) / 65535f * (XY_MAX - XY_MIN);
+    }
+
+    static short quantizeUnit(float value) {
+        return (short) quantize(value);
+    }
+
+    static float dequantizeUnit(short value) {
+        return (value & 0xFFFF) / 65535f;
+    }
+
+    static short quantizeZ(float value) {
+        float clamped = Math.max(-1f, Math.min(1f, value));
+        return (short) Math.round(clamped * Short.MAX_VALUE);
+    }
+
+    static float dequantizeZ(short value) {
+        return value / (float) Short.MAX_VALUE;
+    }
+
+    private static int quantize(float unit) {
+        float clamped = Math.max(0f, Math.min(1f, unit));
+        return Math.round(clamped * 65535f);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 回放 {@link LandmarkRecorder} 录制的文件. 文件整体 mmap, 读取时不拷贝.
+ *
+ * <p>不依赖 Android, 可以在 Linux 上复现问题, 生成回归用例, 或者长时间跑识别的性能测试.
+ */
+public class LandmarkReplayer implements Closeable {
+
+    public interface Listener {
+        /** frame 会被复用, 需要保留时自行拷贝 */
+        void onFrame(@NonNull LandmarkSnapshot frame);
+    }
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int frameCount;
+
+    public LandmarkReplayer(@NonNull File path) throws IOException {
+        file = new RandomAccessFile(path, "r");
+        FileChannel channel = file.getChannel();
+        long length = channel.size();
+        if (length > Integer.MAX_VALUE) {
+            file.close();
+            throw new IOException("Recording too large to map: " + length);
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (length < LandmarkRecording.HEADER_SIZE
+                || buffer.getInt(0) != LandmarkRecording.MAGIC
+                || buffer.getInt(4) != LandmarkRecording.VERSION
+                || buffer.getInt(8) != LandmarkRecording.RECORD_SIZE) {
+            file.close();
+            throw new IOException("Not a landmark recording: " + path);
+        }
+        // 录制中途退出时最后一条可能不完整, 直接忽略
+        frameCount = (int) ((length - LandmarkRecording.HEADER_SIZE) / LandmarkRecording.RECORD_SIZE);
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /** 读取第 index 条记录到 out */
+    public LandmarkSnapshot read(int index, @NonNull LandmarkSnapshot out) {
+        if (index < 0 || index >= frameCount) {
+            throw new IndexOutOfBoundsException("frame " + index + " of " + frameCount);
+        }
+        ByteBuffer b = buffer;
+        int offset = LandmarkRecording.HEADER_SIZE + index * LandmarkRecording.RECORD_SIZE;
+        out.timestamp = b.getLong(offset);
+        out.width = b.getShort(offset + 8) & 0xFFFF;
+        out.height = b.getShort(offset + 10) & 0xFFFF;
+        out.handCount = b.get(offset + 12);
+        out.mirrored = (b.get(offset + 13) & LandmarkRecording.FLAG_MIRRORED) != 0;
+
+        int handOffset = offset + LandmarkRecording.RECORD_HEADER_SIZE;
+        for (int hand = 0; hand < LandmarkRecording.MAX_HANDS; hand++) {
+            out.handedness[hand] = handedness(b.get(handOffset));
+            out.landmarkCount[hand] = b.get(handOffset + 1);
+            out.score[hand] = LandmarkRecording.dequantizeUnit(b.getShort(handOffset + 2));
+            int pointOffset = handOffset + 4;
+            for (int j = 0; j < LandmarkRecording.NUM_LANDMARKS; j++) {
+                int i = hand * LandmarkRecording.NUM_LANDMARKS + j;
+                out.x[i] = LandmarkRecording.dequantizeXY(b.getShort(pointOffset));
+                out.y[i] = LandmarkRecording.dequantizeXY(b.getShort(pointOffset + 2));
+                out.z[i] = LandmarkRecording.dequantizeZ(b.getShort(pointOffset + 4));
+                pointOffset += LandmarkRecording.LANDMARK_SIZE;
+            }
+            handOffset += LandmarkRecording.HAND_SIZE;
+        }
+        return out;
+    }
+
+    /**
+     * 按顺序回放全部记录
+     * @param realTime true 时按录制时的时间间隔回放, false 时尽快回放
+     */
+    public void replay(@NonNull Listener listener, boolean realTime) {
+        LandmarkSnapshot frame = new LandmarkSnapshot();
+        long startNanos = System.nanoTime();
+        long firstTimestamp = 0;
+        for (int i = 0; i < frameCount; i++) {
+            read(i, frame);
+            if (realTime) {
+                if (i == 0) {
+                    firstTimestamp = frame.timestamp;
+                }
+                long due = startNanos + (frame.timestamp - firstTimestamp);
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(Math.min(wait, TimeUnit.MILLISECONDS.toNanos(100)));
+                }
+            }
+            listener.onFrame(frame);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    @Nullable
+    private static HandFrame.Handedness handedness(int code) {
+        if (code == LandmarkRecording.HANDEDNESS_LEFT) {
+            return HandFrame.Handedness.LEFT;
+        }
+        if (code == LandmarkRecording.HANDEDNESS_RIGHT) {
+            return HandFrame.Handedness.RIGHT;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单生产者单消费者的 {@link LandmarkSnapshot} 环形队列, 槽位全部预分配.
+ *
+ * <p>生产者 (结果线程) 先 {@link #claim()} 一个空槽原地写入, 再 {@link #publish()};
+ * 消费者 (识别线程) {@link #peek()} 读到最旧的一条, 用完后 {@link #release()}.
+ * 两端各自只写自己的下标, 不加锁.
+ *
+ * <p>溢出策略: 队列满时生产者不等待, {@link #claim()} 返回 null, 这一帧记为丢弃.
+ * 结果线程因此永远不会被识别线程拖慢; 已经排队的帧按顺序处理, 录制时只在溢出时缺帧.
+ */
+public final class LandmarkRing {
+
+    private final LandmarkSnapshot[] slots;
+    private final int mask;
+
+    // 下一个要写的位置, 只由生产者修改
+    private final AtomicLong head = new AtomicLong();
+    // 下一个要读的位置, 只由消费者修改
+    private final AtomicLong tail = new AtomicLong();
+
+    // 以下统计只由生产者写
+    private volatile long published;
+    private volatile long dropped;
+    private volatile long depthSum;
+    private volatile int maxDepth;
+
+    /** @param capacity 槽位数, 向上取到 2 的幂 */
+    public LandmarkRing(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        slots = new LandmarkSnapshot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new LandmarkSnapshot();
+        }
+        mask = size - 1;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /** 生产者: 取下一个空槽, 队列满时返回 null 并记为丢弃 */
+    @Nullable
+    public LandmarkSnapshot claim() {
+        long h = head.get();
+        if (h - tail.get() >= slots.length) {
+            dropped++;
+            return null;
+        }
+        return slots[(int) (h & mask)];
+    }
+
+    /** 生产者: 发布 {@link #claim()} 拿到的槽 */
+    public void publish() {
+        long h = head.get() + 1;
+        head.lazySet(h);
+        int depth = (int) (h - tail.get());
+        published++;
+        depthSum += depth;
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+
+    /** 消费者: 最旧的一条, 队列空时返回 null */
+    @Nullable
+    public LandmarkSnapshot peek() {
+        long t = tail.get();
+        if (t == head.get()) {
+            return null;
+        }
+        return slots[(int) (t & mask)];
+    }
+
+    /** 消费者: 归还 {@link #peek()} 拿到的槽 */
+    public void release() {
+        tail.lazySet(tail.get() + 1);
+    }
+
+    /** 当前排队的条数 */
+    public int depth() {
+        return (int) (head.get() - tail.get());
+    }
+
+    public long getPublishedCount() {
+        return published;
+    }
+
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /** 发布时 (含本条) 的平均排队深度 */
+    public float getAverageDepth() {
+        long count = published;
+        return count == 0 ? 0f : (float) depthSum / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "LandmarkRing{published=%d, dropped=%d, depth=%d, avgDepth=%.2f, maxDepth=%d/%d}",
+                published, dropped, depth(), getAverageDepth(), maxDepth, slots.length);
+    }
+}
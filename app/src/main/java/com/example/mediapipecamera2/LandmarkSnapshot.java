@@ -0,0 +1,183 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.Nullable;
+
+import com.google.mediapipe.formats.proto.ClassificationProto;
+import com.google.mediapipe.formats.proto.LandmarkProto;
+
+import java.util.List;
+
+/**
+ * 一个 HandsResult 的关键点拷贝, 数据放在预分配的基本类型数组里.
+ *
+ * <p>每个结果只在结果线程上从 proto 拷贝一次, 渲染 ({@link HandsResultGlRenderer}, {@link HandsResultImageView})
+ * 和识别 ({@link HandTranslate}) 都读这份数据或它的 {@link #copyFrom 副本}, 不再访问 proto.
+ * 刚拷贝时坐标和左右手是模型对原始帧给出的结果, 经过 {@link LandmarkTransform#apply} 之后
+ * 变为屏幕方向, 左右手按镜像交换.
+ */
+public final class LandmarkSnapshot {
+
+    public static final int MAX_HANDS = HandTranslate.MAX_HANDS;
+    public static final int NUM_LANDMARKS = HandFrame.NUM_LANDMARKS;
+
+    long timestamp;
+    int width;
+    int height;
+    int handCount;
+    // 坐标相对原始帧是否水平镜像过
+    boolean mirrored;
+    final HandFrame.Handedness[] handedness = new HandFrame.Handedness[MAX_HANDS];
+    final float[] score = new float[MAX_HANDS];
+    final int[] landmarkCount = new int[MAX_HANDS];
+    // 第 hand 只手的第 j 个点在 hand * NUM_LANDMARKS + j
+    final float[] x = new float[MAX_HANDS * NUM_LANDMARKS];
+    final float[] y = new float[MAX_HANDS * NUM_LANDMARKS];
+    final float[] z = new float[MAX_HANDS * NUM_LANDMARKS];
+
+    /**
+     * 从 HandsResult 拷贝, 超过 {@link #MAX_HANDS} 的手和超过 {@link #NUM_LANDMARKS} 的点会被忽略
+     * @param timestamp HandsResult.timestamp()
+     * @param width 输入帧宽
+     * @param height 输入帧高
+     */
+    public void set(long timestamp, int width, int height,
+                    List<LandmarkProto.NormalizedLandmarkList> multiHandLandmarks,
+                    List<ClassificationProto.Classification> multiHandedness) {
+        this.timestamp = timestamp;
+        this.width = width;
+        this.height = height;
+        int count = Math.min(MAX_HANDS, Math.min(multiHandLandmarks.size(), multiHandedness.size()));
+        for (int hand = 0; hand < count; hand++) {
+            ClassificationProto.Classification classification = multiHandedness.get(hand);
+            handedness[hand] = HandFrame.Handedness.fromLabel(classification.getLabel());
+            score[hand] = classification.getScore();
+
+            List<LandmarkProto.NormalizedLandmark> landmarks = multiHandLandmarks.get(hand).getLandmarkList();
+            int points = Math.min(landmarks.size(), NUM_LANDMARKS);
+            int offset = hand * NUM_LANDMARKS;
+            for (int j = 0; j < points; j++) {
+                LandmarkProto.NormalizedLandmark lm = landmarks.get(j);
+                x[offset + j] = lm.getX();
+                y[offset + j] = lm.getY();
+                z[offset + j] = lm.getZ();
+            }
+            landmarkCount[hand] = points;
+        }
+        for (int hand = count; hand < MAX_HANDS; hand++) {
+            handedness[hand] = null;
+            score[hand] = 0f;
+            landmarkCount[hand] = 0;
+        }
+        handCount = count;
+        mirrored = false;
+    }
+
+    /** 拷贝另一个快照, 只拷贝有效的手, 不分配 */
+    public void copyFrom(LandmarkSnapshot other) {
+        timestamp = other.timestamp;
+        width = other.width;
+        height = other.height;
+        handCount = other.handCount;
+        mirrored = other.mirrored;
+        System.arraycopy(other.handedness, 0, handedness, 0, MAX_HANDS);
+        System.arraycopy(other.score, 0, score, 0, MAX_HANDS);
+        System.arraycopy(other.landmarkCount, 0, landmarkCount, 0, MAX_HANDS);
+        int points = handCount * NUM_LANDMARKS;
+        System.arraycopy(other.x, 0, x, 0, points);
+        System.arraycopy(other.y, 0, y, 0, points);
+        System.arraycopy(other.z, 0, z, 0, points);
+    }
+
+    /**
+     * 两帧画出来是否一样: 手数, 左右手, 点数相同, 且每个点的 x, y 相差都不超过 epsilon.
+     * 不比较时间戳, 分数和 z
+     */
+    public boolean sameLandmarks(LandmarkSnapshot other, float epsilon) {
+        if (handCount != other.handCount || mirrored != other.mirrored) {
+            return false;
+        }
+        for (int hand = 0; hand < handCount; hand++) {
+            if (handedness[hand] != other.handedness[hand] || landmarkCount[hand] != other.landmarkCount[hand]) {
+                return false;
+            }
+            int offset = hand * NUM_LANDMARKS;
+            for (int i = offset; i < offset + landmarkCount[hand]; i++) {
+                if (Math.abs(x[i] - other.x[i]) > epsilon || Math.abs(y[i] - other.y[i]) > epsilon) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getHandCount() {
+        return handCount;
+    }
+
+    /** 坐标相对原始帧是否水平镜像过, 见 {@link LandmarkTransform} */
+    public boolean isMirrored() {
+        return mirrored;
+    }
+
+    @Nullable
+    public HandFrame.Handedness getHandedness(int hand) {
+        return handedness[hand];
+    }
+
+    public float getScore(int hand) {
+        return score[hand];
+    }
+
+    public int getLandmarkCount(int hand) {
+        return landmarkCount[hand];
+    }
+
+    public float getX(int hand, int landmark) {
+        return x[hand * NUM_LANDMARKS + landmark];
+    }
+
+    public float getY(int hand, int landmark) {
+        return y[hand * NUM_LANDMARKS + landmark];
+    }
+
+    public float getZ(int hand, int landmark) {
+        return z[hand * NUM_LANDMARKS + landmark];
+    }
+
+    /** 还原成 HandsResult 里的 proto, 供只接收 proto 的代码使用 */
+    public void toProtos(List<LandmarkProto.NormalizedLandmarkList> multiHandLandmarks,
+                         List<ClassificationProto.Classification> multiHandedness) {
+        multiHandLandmarks.clear();
+        multiHandedness.clear();
+        for (int hand = 0; hand < handCount; hand++) {
+            LandmarkProto.NormalizedLandmarkList.Builder builder =
+                    LandmarkProto.NormalizedLandmarkList.newBuilder();
+            for (int j = 0; j < landmarkCount[hand]; j++) {
+                builder.addLandmark(LandmarkProto.NormalizedLandmark.newBuilder()
+                        .setX(getX(hand, j))
+                        .setY(getY(hand, j))
+                        .setZ(getZ(hand, j)));
+            }
+            multiHandLandmarks.add(builder.build());
+
+            HandFrame.Handedness h = handedness[hand];
+            multiHandedness.add(ClassificationProto.Classification.newBuilder()
+                    .setIndex(h == HandFrame.Handedness.RIGHT ? 1 : 0)
+                    .setLabel(h == null ? "" : (h == HandFrame.Handedness.LEFT ? "Left" : "Right"))
+                    .setScore(score[hand])
+                    .build());
+        }
+    }
+}
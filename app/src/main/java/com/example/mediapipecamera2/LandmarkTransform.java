@@ -0,0 +1,130 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 在关键点空间做旋转和镜像, 代替对每帧图像做 Matrix 变换.
+ *
+ * <p>推理直接用传感器方向的原始帧, 出结果后把归一化坐标映射到屏幕方向:
+ * 先水平镜像 (前置摄像头), 再顺时针旋转 {@link #getRotation()} 度.
+ * 镜像会把左手变成右手, 所以镜像时左右手标签一起交换, 结果与把镜像后的图像送进模型一致.
+ *
+ * <p>旋转 90/270 度时宽高互换. 实例不可变, 可以在任意线程使用.
+ */
+public final class LandmarkTransform {
+
+    public static final LandmarkTransform IDENTITY = new LandmarkTransform(0, false);
+
+    private final int rotation;
+    private final boolean mirror;
+
+    /**
+     * @param rotation 镜像之后顺时针旋转的角度, 0/90/180/270, 其他 90 的倍数会被归一化
+     * @param mirror 是否先水平镜像
+     */
+    public LandmarkTransform(int rotation, boolean mirror) {
+        if (rotation % 90 != 0) {
+            throw new IllegalArgumentException("rotation must be a multiple of 90: " + rotation);
+        }
+        this.rotation = normalize(rotation);
+        this.mirror = mirror;
+    }
+
+    /**
+     * 按摄像头参数计算
+     * @param sensorOrientation CameraCharacteristics.SENSOR_ORIENTATION
+     * @param frontFacing LENS_FACING 是否为 LENS_FACING_FRONT
+     * @param displayDegrees 屏幕旋转角度, Display.getRotation() 换算成的度数
+     * @param bufferRotation 输出帧已经被相机旋转过的角度, 例如 JPEG_ORIENTATION; 没有时为 0
+     */
+    @NonNull
+    public static LandmarkTransform forCamera(int sensorOrientation, boolean frontFacing,
+                                              int displayDegrees, int bufferRotation) {
+        int rotation = displayRotation(sensorOrientation, frontFacing, displayDegrees);
+        // 帧已经顺时针转过 bufferRotation, 前置镜像之后方向相反
+        rotation = frontFacing ? rotation + bufferRotation : rotation - bufferRotation;
+        return new LandmarkTransform(rotation, frontFacing);
+    }
+
+    /**
+     * 镜像之后还需要顺时针旋转的角度, 与 Camera2PreviewHelper.getDisplayRotation 一致
+     * @param displayDegrees 屏幕旋转角度, 0/90/180/270
+     */
+    public static int displayRotation(int sensorOrientation, boolean frontFacing, int displayDegrees) {
+        if (frontFacing) {
+            return (360 - (sensorOrientation + displayDegrees) % 360) % 360;
+        }
+        return (sensorOrientation - displayDegrees + 360) % 360;
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public boolean isMirror() {
+        return mirror;
+    }
+
+    /** 宽高是否互换 */
+    public boolean swapsDimensions() {
+        return rotation == 90 || rotation == 270;
+    }
+
+    public float mapX(float x, float y) {
+        if (mirror) { x = 1f - x; }
+        switch (rotation) {
+            case 90: return 1f - y;
+            case 180: return 1f - x;
+            case 270: return y;
+            default: return x;
+        }
+    }
+
+    public float mapY(float x, float y) {
+        if (mirror) { x = 1f - x; }
+        switch (rotation) {
+            case 90: return x;
+            case 180: return 1f - y;
+            case 270: return 1f - x;
+            default: return y;
+        }
+    }
+
+    @NonNull
+    public HandFrame.Handedness mapHandedness(@NonNull HandFrame.Handedness handedness) {
+        return mirror ? handedness.opposite() : handedness;
+    }
+
+    /** 原地变换快照里的坐标, 宽高和左右手, 不分配内存 */
+    public void apply(@NonNull LandmarkSnapshot snapshot) {
+        for (int hand = 0; hand < snapshot.handCount; hand++) {
+            int offset = hand * LandmarkSnapshot.NUM_LANDMARKS;
+            int end = offset + snapshot.landmarkCount[hand];
+            for (int i = offset; i < end; i++) {
+                float x = snapshot.x[i];
+                float y = snapshot.y[i];
+                snapshot.x[i] = mapX(x, y);
+                snapshot.y[i] = mapY(x, y);
+            }
+            HandFrame.Handedness handedness = snapshot.handedness[hand];
+            if (handedness != null) {
+                snapshot.handedness[hand] = mapHandedness(handedness);
+            }
+        }
+        if (swapsDimensions()) {
+            int width = snapshot.width;
+            snapshot.width = snapshot.height;
+            snapshot.height = width;
+        }
+        snapshot.mirrored ^= mirror;
+    }
+
+    private static int normalize(int degrees) {
+        return ((degrees % 360) + 360) % 360;
+    }
+
+    @Override
+    public String toString() {
+        return "LandmarkTransform{rotation=" + rotation + ", mirror=" + mirror + "}";
+    }
+}
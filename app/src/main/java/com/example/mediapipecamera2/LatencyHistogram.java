@@ -0,0 +1,101 @@
+package com.example.mediapipecamera2;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定内存, 无锁的延迟直方图.
+ *
+ * <p>以微秒计, 每个 2 的幂区间再分 8 个线性桶, 相对误差不超过 12.5%, 超过约 134 秒的记在最后一个桶.
+ * {@link #record} 只做原子加, 不分配内存, 可以在任意线程调用.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 26;
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /** 一次快照, 时间单位为纳秒 */
+    public static final class Snapshot {
+        public long count;
+        public long p50;
+        public long p95;
+        public long p99;
+        public long max;
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) { return; }
+        buckets.incrementAndGet(bucketIndex(nanos / 1000));
+        count.incrementAndGet();
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /** 写入调用方提供的 snapshot, 并发记录时结果是近似值 */
+    public void snapshot(Snapshot out) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += buckets.get(i);
+        }
+        out.count = total;
+        out.max = maxNanos.get();
+        out.p50 = valueAtPercentile(total, 0.50);
+        out.p95 = valueAtPercentile(total, 0.95);
+        out.p99 = valueAtPercentile(total, 0.99);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        maxNanos.set(0);
+    }
+
+    private long valueAtPercentile(long total, double percentile) {
+        if (total == 0) { return 0; }
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperMicros(i) * 1000, maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long bucketUpperMicros(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((long) (SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+}
@@ -5,11 +5,16 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
-import android.graphics.Matrix;
+import android.graphics.ImageFormat;
 import android.media.Image;
 import android.media.ImageReader;
 import android.os.Bundle;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
+import android.view.Choreographer;
 import android.view.TextureView;
 import android.view.View;
 import android.widget.FrameLayout;
@@ -20,7 +25,12 @@ import com.google.mediapipe.solutions.hands.Hands;
 import com.google.mediapipe.solutions.hands.HandsOptions;
 import com.google.mediapipe.solutions.hands.HandsResult;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -29,7 +39,8 @@ public class MainActivity extends AppCompatActivity {
 
     private TextureView mTextureView;
 
-    private Hands hands;
+    // 在启动线程上创建, 之后只在主线程和 send 线程上读
+    private volatile Hands hands;
     // Run the pipeline and the model inference on GPU or CPU.
     private static final boolean RUN_ON_GPU = true;
 
@@ -43,35 +54,134 @@ public class MainActivity extends AppCompatActivity {
 
     boolean useCameraX = false;
 
+    // Camera2 采集格式: JPEG 需要硬件编码 + 软件解码, YUV_420_888 直接转 RGB
+    int captureFormat = ImageFormat.JPEG;
+
+    private final YuvToRgbConverter yuvToRgbConverter = new YuvToRgbConverter();
+    // 解码用的 Bitmap 在 send 到结果返回之间被租出, 之后复用
+    private final BitmapPool bitmapPool = new BitmapPool(4);
+    // 送进 Hands 的帧由各阶段持有, 都释放之后 Bitmap 回到 bitmapPool; debug 包检查超时没释放的帧
+    private static final long FRAME_LEAK_AGE_NANOS = 2_000_000_000L;
+    private final FramePool<Bitmap> framePool =
+            new FramePool<>(bitmapPool::recycle, SystemClock::elapsedRealtimeNanos, BuildConfig.DEBUG);
+    private final FramePool.LeakListener<Bitmap> frameLeakListener = (frame, ageNanos, owners) ->
+            Log.w(TAG, "frame " + frame.getTimestamp() + " not released after "
+                    + ageNanos / 1_000_000 + " ms, held by " + owners);
+    // 帧的旋转和前后摄像头, 第一帧时从摄像头取
+    private volatile LandmarkTransform frameTransform = LandmarkTransform.IDENTITY;
+    private final BitmapFactory.Options decodeOptions = new BitmapFactory.Options();
+    private CaptureStats captureStats;
+
+    // 推理耗时 p95 超过预算时缩小送进 Hands 的图像, 有余量时再放大
+    private static final long INFERENCE_BUDGET_NANOS = 40_000_000L;
+    private final InputScaleController inputScaleController =
+            new InputScaleController(INFERENCE_BUDGET_NANOS, InputScaleController.DEFAULT_SCALES);
+    private final BitmapDownscaler bitmapDownscaler = new BitmapDownscaler(bitmapPool);
+
+    // 同时送进 graph 还没出结果的帧数上限, 超出时只保留最新的一帧
+    private static final int MAX_FRAMES_IN_FLIGHT = 2;
+    // hands.send 都在这个线程上执行, 保证时间戳递增
+    private final ExecutorService sendExecutor = Executors.newSingleThreadExecutor();
+    private final FrameScheduler<Frame<Bitmap>> frameScheduler =
+            new FrameScheduler<>(MAX_FRAMES_IN_FLIGHT, this::sendToHands, sendExecutor);
+
+    // 结果线程只拷贝关键点, 识别, 日志和录制在识别线程上做; 队列满时丢弃新的一帧
+    private static final int RECOGNITION_QUEUE_CAPACITY = 8;
+    private final RecognitionWorker recognitionWorker = new RecognitionWorker(
+            RECOGNITION_QUEUE_CAPACITY, HandTranslate.INSTANCE, this::onGesture, SystemClock::elapsedRealtimeNanos);
+
+    // 结果线程上从 HandsResult 拷出来的关键点, 只在结果线程上使用
+    private final LandmarkSnapshot resultSnapshot = new LandmarkSnapshot();
+    private final HandsResultGlRenderer resultRenderer = new HandsResultGlRenderer();
+
+    // GL 视图同时画摄像头图像, 这时每个 vsync 都要画, 只合并不跳过
+    private static final boolean RENDER_INPUT_IMAGE = true;
+    // 关键点归一化坐标变化不超过它时不重画, 约为 1080p 下 1 像素
+    private static final float RENDER_EPSILON = 0.001f;
+    private static final long RENDER_MAX_SKIP_NANOS = 500_000_000L;
+    // 结果按 vsync 合并, 一次刷新最多 requestRender 一次
+    private Choreographer choreographer;
+    private final Choreographer.FrameCallback renderFrameCallback = frameTimeNanos -> onRenderFrame();
+    private final RenderScheduler renderScheduler = new RenderScheduler(
+            landmarks -> requestRender(),
+            () -> choreographer.postFrameCallback(renderFrameCallback),
+            SystemClock::elapsedRealtimeNanos,
+            RENDER_EPSILON,
+            RENDER_MAX_SKIP_NANOS);
+
+    // 冷启动时 graph 加载和摄像头打开并行, 都就绪之前的帧直接丢弃
+    private final StartupTrace startupTrace = new StartupTrace(SystemClock::elapsedRealtimeNanos);
+    private final ExecutorService startupExecutor = Executors.newSingleThreadExecutor();
+    private StartupOrchestrator startup;
+
+    // 打开后把每帧的关键点录到 files 目录, 用 LandmarkReplayer 离线回放
+    boolean recordLandmarks = false;
+    @Nullable
+    private volatile LandmarkRecorder landmarkRecorder;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
+        frameScheduler.setOnFrameDroppedListener((frame, timestamp) -> frame.release(Frame.Owner.SCHEDULER));
+        frameScheduler.setOnFrameCompletedListener((frame, timestamp) -> frame.release(Frame.Owner.SCHEDULER));
+        // hands.send 抛出异常 (比如 graph 已经关闭) 的帧不会有结果, 调度器直接完成它
+        frameScheduler.setOnSendFailedListener((timestamp, e) -> Log.e(TAG, "hands.send failed at " + timestamp, e));
+        // 必须在主线程上取, vsync 回调在主线程上执行
+        choreographer = Choreographer.getInstance();
+        renderScheduler.setSkipUnchanged(!RENDER_INPUT_IMAGE);
+        recognitionWorker.start();
         setupStreamingModePipeline();
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (camera2Input != null) {
+            camera2Input.stop();
+        }
+        sendExecutor.shutdown();
+        startupExecutor.shutdown();
+        recognitionWorker.stop();
+        choreographer.removeFrameCallback(renderFrameCallback);
+    }
+
     @Override
     protected void onPause() {
         super.onPause();
+        stopRecording();
 
-        glSurfaceView.setVisibility(View.GONE);
+        if (glSurfaceView != null) {
+            glSurfaceView.setVisibility(View.GONE);
+        }
 
         if (cameraInput != null) {
             cameraInput.close();
         }
+        // 只停止出流, 设备和会话保留, onResume 时直接恢复
+        if (camera2Input != null) {
+            camera2Input.pause();
+        }
     }
 
     @Override
     protected void onResume() {
         super.onResume();
-        if (useCameraX) {
-            glSurfaceView.post(this::startCameraX);
-        } else {
-            glSurfaceView.post(this::startCamera2);
+        if (recordLandmarks) {
+            startRecording();
+        }
+        // 冷启动时 GL 视图要等 graph 加载完才创建
+        if (glSurfaceView != null) {
+            if (useCameraX) {
+                glSurfaceView.post(this::startCameraX);
+            }
+            glSurfaceView.setVisibility(View.VISIBLE);
+        }
+        if (!useCameraX && camera2Input != null) {
+            // 启动过程中已经在打开时什么也不做, 暂停中的直接恢复
+            startCamera2();
         }
-
-        glSurfaceView.setVisibility(View.VISIBLE);
 
         if (cameraInput != null) {
             cameraInput = new CameraInput(this);
@@ -84,13 +194,11 @@ public class MainActivity extends AppCompatActivity {
     private void initGLSurfaceView() {
         glSurfaceView =
                 new SolutionGlSurfaceView<>(this, hands.getGlContext(), hands.getGlMajorVersion());
-        glSurfaceView.setSolutionResultRenderer(new HandsResultGlRenderer());
-        glSurfaceView.setRenderInputImage(true);
+        glSurfaceView.setSolutionResultRenderer(resultRenderer);
+        glSurfaceView.setRenderInputImage(RENDER_INPUT_IMAGE);
 
         if (useCameraX) {
             glSurfaceView.post(this::startCameraX);
-        } else {
-            glSurfaceView.post(this::startCamera2);
         }
 
         FrameLayout frameLayout = findViewById(R.id.preview_display_layout);
@@ -102,15 +210,30 @@ public class MainActivity extends AppCompatActivity {
 
     private void setupStreamingModePipeline() {
         stopCurrentPipeline();
-        initHands();
 
+        // 规则很小, 在 graph 之前加载, 加载好之前按默认的数数识别
+        startupExecutor.execute(this::loadGestureRules);
+
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        startup = new StartupOrchestrator(startupTrace, startupExecutor, mainHandler::post);
         if (useCameraX) {
+            // CameraX 需要 graph 的 GL context 才能启动, 只能串行
+            initHands();
             initCameraX();
+            initGLSurfaceView();
+            startup.onCameraReady();
         } else {
             initCamera2();
+            startup.start(this::initHands, this::startCamera2, this::initGLSurfaceView);
         }
+    }
 
-        initGLSurfaceView();
+    private void loadGestureRules() {
+        try (InputStream in = getAssets().open(GestureRules.ASSET_NAME)) {
+            HandTranslate.INSTANCE.setGestureTable(GestureRules.load(in));
+        } catch (IOException | IllegalArgumentException e) {
+            Log.e(TAG, "load " + GestureRules.ASSET_NAME + " failed, fall back to counting", e);
+        }
     }
 
     private void stopCurrentPipeline() {
@@ -122,6 +245,8 @@ public class MainActivity extends AppCompatActivity {
         if (glSurfaceView != null) {
             glSurfaceView.setVisibility(View.GONE);
         }
+        frameScheduler.reset();
+        renderScheduler.reset();
         if (hands != null) {
             hands.close();
         }
@@ -135,29 +260,115 @@ public class MainActivity extends AppCompatActivity {
                         // 视频流
                         .setStaticImageMode(false)
                         // 检测的最大手
-                        .setMaxNumHands(1)
+                        .setMaxNumHands(HandTranslate.MAX_HANDS)
                         // 是否运行在GPU
                         .setRunOnGpu(RUN_ON_GPU)
                         .setModelComplexity(0)
                         .setMinDetectionConfidence(0.5F)
                         .setMinTrackingConfidence(0.5F)
                         .build());
-        hands.setErrorListener((message, e) -> Log.e(TAG, "MediaPipe Hands error:" + message));
+        hands.setErrorListener((message, e) -> {
+            Log.e(TAG, "MediaPipe Hands error:" + message);
+            // 出错后在途的帧不会再有结果, 不清掉的话在途位置占满后所有新帧都会被丢弃
+            frameScheduler.reset();
+        });
 
         hands.setResultListener(
                 handsResult -> {
+                    if (startup.onResult()) {
+                        Log.d(TAG, startup.toString());
+                    }
+                    // 这一帧及之前送入的帧已经用完, 调度器释放它们
+                    frameScheduler.onResult(handsResult.timestamp());
+
+                    long resultNanos = SystemClock.elapsedRealtimeNanos();
+                    long inferenceNanos = PipelineStats.INSTANCE.markResult(handsResult.timestamp(), resultNanos);
+                    if (inferenceNanos >= 0 && inputScaleController.onInferenceLatency(inferenceNanos)) {
+                        Log.d(TAG, "inference p95 " + inputScaleController.getLastP95() / 1_000_000
+                                + " ms, input scale -> " + inputScaleController.getScale());
+                    }
+                    if (camera2Input != null) {
+                        camera2Input.onInferenceResult(resultNanos);
+                    }
+
+                    // 每个结果只遍历一次 proto, 渲染和识别都从这份快照拷贝
+                    resultSnapshot.set(handsResult.timestamp(), mImageWidth, mImageHeight,
+                            handsResult.multiHandLandmarks(), handsResult.multiHandedness());
 
                     if (glSurfaceView != null) {
+                        // 回调返回后图像 packet 就被释放, setRenderData 只能在这里调用;
+                        // 关键点和图像在这里一起交给渲染器, 保证画在一起的是同一个结果, 只有重画等下一次 vsync
+                        resultRenderer.setLandmarks(resultSnapshot);
                         glSurfaceView.setRenderData(handsResult);
-                        glSurfaceView.requestRender();
+                        renderScheduler.submit(resultSnapshot);
                     }
 
-                    String msg = HandTranslate.INSTANCE.handRecognition(handsResult,mImageWidth, mImageHeight);
+                    // 录制在结果线程上写进预分配的缓冲区, 识别队列满时丢掉的帧也要录下来
+                    LandmarkRecorder recorder = landmarkRecorder;
+                    if (recorder != null) {
+                        recordLandmarks(recorder, resultSnapshot);
+                    }
 
-                    Log.d(TAG, "识别到手势: " + msg);
+                    // 识别交给识别线程, 这里只拷贝关键点
+                    recognitionWorker.offer(resultSnapshot);
                 });
     }
 
+    /** 主线程上的 vsync 回调 */
+    private void onRenderFrame() {
+        renderScheduler.doFrame();
+    }
+
+    /** 主线程上, 每次 vsync 最多一次 */
+    private void requestRender() {
+        if (glSurfaceView != null) {
+            glSurfaceView.requestRender();
+        }
+    }
+
+    /** 识别线程上回调 */
+    private void onGesture(LandmarkSnapshot snapshot, @Nullable Gesture gesture) {
+        String label = gesture == null ? null : gesture.getLabel();
+        if (HandLogUtil.ENABLED) {
+            HandLogUtil.logd(TAG, "识别到手势: {}", label);
+        }
+        resultRenderer.setText(label);
+    }
+
+    /** 结果线程上调用, 按识别线程相同的变换写入 */
+    private void recordLandmarks(LandmarkRecorder recorder, LandmarkSnapshot snapshot) {
+        try {
+            recorder.record(snapshot, frameTransform);
+        } catch (IOException e) {
+            HandLogUtil.loge(TAG, "录制关键点失败", e);
+            stopRecording();
+        }
+    }
+
+    private void startRecording() {
+        File file = new File(getFilesDir(), "landmarks-" + System.currentTimeMillis() + LandmarkRecording.FILE_SUFFIX);
+        try {
+            landmarkRecorder = new LandmarkRecorder(file);
+            Log.d(TAG, "recording landmarks to " + file);
+        } catch (IOException e) {
+            HandLogUtil.loge(TAG, "创建录制文件失败", e);
+        }
+    }
+
+    private void stopRecording() {
+        LandmarkRecorder recorder = landmarkRecorder;
+        if (recorder == null) {
+            return;
+        }
+        landmarkRecorder = null;
+        try {
+            recorder.close();
+            Log.d(TAG, "recorded " + recorder.getRecordCount() + " frames");
+        } catch (IOException e) {
+            HandLogUtil.loge(TAG, "关闭录制文件失败", e);
+        }
+    }
+
     private void startCameraX() {
         cameraInput.start(
                 null,
@@ -169,6 +380,7 @@ public class MainActivity extends AppCompatActivity {
                 glSurfaceView.getHeight());
     }
 
+    /** 摄像头已经打开时不重新打开, 暂停中的直接恢复 */
     private void startCamera2() {
         camera2Input.start(this, "1");
     }
@@ -188,33 +400,113 @@ public class MainActivity extends AppCompatActivity {
         @Override
         public void onImageAvailable(@Nullable ImageReader imageReader) {
             Image image = imageReader.acquireLatestImage();
+            if (image == null) {
+                return;
+            }
+            // graph 还没就绪, 不排队
+            if (!startup.admitFrame()) {
+                image.close();
+                return;
+            }
+            long acquireNanos = SystemClock.elapsedRealtimeNanos();
+            PipelineStats.INSTANCE.recordSinceSensor(
+                    PipelineStats.Stage.SENSOR_TO_ACQUIRE, image.getTimestamp(), acquireNanos);
             if (mImageHeight == 0) {
                 mImageHeight = image.getHeight();
                 mImageWidth = image.getWidth();
+                // 不对帧做旋转和镜像, 识别前在关键点上做
+                frameTransform = camera2Input.getLandmarkTransform();
+                recognitionWorker.setTransform(frameTransform);
             }
 
-            if (image.getPlanes() != null) {
+            long cpuStart = Debug.threadCpuTimeNanos();
+            // 按推理预算缩小, 关键点是归一化坐标, 识别和绘制不受影响
+            float scale = inputScaleController.getScale();
+            int inputWidth = ArgbScaler.scaledSize(image.getWidth(), scale);
+            int inputHeight = ArgbScaler.scaledSize(image.getHeight(), scale);
+            Bitmap bitmap = null;
+            if (image.getFormat() == ImageFormat.YUV_420_888) {
+                bitmap = bitmapPool.acquire(inputWidth, inputHeight, Bitmap.Config.ARGB_8888);
+                yuvToRgbConverter.convert(image, bitmap);
+            } else if (image.getPlanes() != null) {
                 ByteBuffer byteBuffer = image.getPlanes()[0].getBuffer();
-                byte[] bytes = new byte[byteBuffer.remaining()];
-                byteBuffer.get(bytes);
+                int length = byteBuffer.remaining();
+                byte[] bytes = bitmapPool.acquireBytes(length);
+                byteBuffer.get(bytes, 0, length);
+
+                // 缩到一半以下时让解码器直接隔行隔列解码, 剩下的再用 CPU 缩小
+                int sampleSize = inputWidth * 2 <= image.getWidth() && inputHeight * 2 <= image.getHeight() ? 2 : 1;
+                int decodedBytes = (image.getWidth() / sampleSize) * (image.getHeight() / sampleSize) * 4;
+                bitmap = decodeJpeg(bytes, length, decodedBytes, sampleSize);
+                if (bitmap != null) {
+                    bitmap = bitmapDownscaler.scale(bitmap, inputWidth, inputHeight);
+                }
+            }
 
-                Bitmap bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
+            if (bitmap != null) {
+                PipelineStats.INSTANCE.record(PipelineStats.Stage.DECODE,
+                        SystemClock.elapsedRealtimeNanos() - acquireNanos);
+                Frame<Bitmap> frame = framePool.obtain(bitmap, image.getTimestamp(),
+                        bitmap.getWidth(), bitmap.getHeight(),
+                        frameTransform.getRotation(), frameTransform.isMirror(), Frame.Owner.CAPTURE);
+                frameScheduler.submit(frame.retain(Frame.Owner.SCHEDULER), frame.getTimestamp());
+                frame.release(Frame.Owner.CAPTURE);
+            }
+            image.close();
 
-                // 速度太慢，不能这样搞
-//                Matrix matrix = new Matrix();
-//                matrix.setScale(-1, 1);
-//                matrix.postRotate(270);
-//                Bitmap bitmap1 = Bitmap.createBitmap(bitmap,0, 0, bitmap.getWidth(), bitmap.getHeight(),matrix, true);
+            String stats = captureStats.onFrame(SystemClock.elapsedRealtimeNanos(),
+                    Debug.threadCpuTimeNanos() - cpuStart);
+            if (stats != null) {
+                Log.d(TAG, stats + ", " + bitmapPool + ", " + framePool + ", " + frameScheduler
+                        + ", " + renderScheduler + ", " + recognitionWorker);
+                framePool.checkLeaks(FRAME_LEAK_AGE_NANOS, frameLeakListener);
+                Log.d(TAG, PipelineStats.INSTANCE.summary());
+            }
+        }
+    };
 
+    /** send 线程上, 调度器的引用一直保留到结果回来, 推理阶段只在 send 期间持有 */
+    private void sendToHands(Frame<Bitmap> frame, long timestamp) {
+        frame.retain(Frame.Owner.INFERENCE);
+        try {
+            long sendStart = SystemClock.elapsedRealtimeNanos();
+            PipelineStats.INSTANCE.markSent(timestamp, sendStart);
+            startup.onSend();
+            hands.send(frame.getPixels(), timestamp);
+            PipelineStats.INSTANCE.record(PipelineStats.Stage.SEND,
+                    SystemClock.elapsedRealtimeNanos() - sendStart);
+        } finally {
+            frame.release(Frame.Owner.INFERENCE);
+        }
+    }
 
-                hands.send(bitmap, image.getTimestamp());
+    @Nullable
+    private Bitmap decodeJpeg(byte[] bytes, int length, int byteCount, int sampleSize) {
+        decodeOptions.inMutable = true;
+        decodeOptions.inSampleSize = sampleSize;
+        Bitmap reused = bitmapPool.acquire(byteCount);
+        decodeOptions.inBitmap = reused;
+        Bitmap decoded = null;
+        try {
+            decoded = BitmapFactory.decodeByteArray(bytes, 0, length, decodeOptions);
+        } catch (IllegalArgumentException e) {
+            // inBitmap 不能复用时退回到新建
+            decodeOptions.inBitmap = null;
+            decoded = BitmapFactory.decodeByteArray(bytes, 0, length, decodeOptions);
+        } finally {
+            decodeOptions.inBitmap = null;
+            // 退回新建或者帧损坏 (返回 null) 时没有用上池里的 Bitmap, 还回去, 否则池会慢慢被取空
+            if (reused != null && decoded != reused) {
+                bitmapPool.recycle(reused);
             }
-            image.close();
         }
-    };
+        return decoded;
+    }
 
     private void initCamera2() {
         camera2Input = new Camera2Input();
+        camera2Input.setImageFormat(captureFormat);
+        captureStats = new CaptureStats(captureFormat == ImageFormat.YUV_420_888 ? "YUV_420_888" : "JPEG");
 
         camera2Input.setOnCameraErrorListener(new Camera2Helper.OnCameraErrorListener() {
             @Override
@@ -224,6 +516,7 @@ public class MainActivity extends AppCompatActivity {
         });
 
         camera2Input.setOnImageAvailableListener(imageAvailableListener);
+        camera2Input.setOnCameraStartedListener(surfaceTexture -> startup.onCameraReady());
 
 
     }
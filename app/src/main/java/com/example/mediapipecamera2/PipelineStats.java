@@ -0,0 +1,115 @@
+package com.example.mediapipecamera2;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 帧处理各阶段的耗时统计.
+ *
+ * <p>时间统一用 SystemClock.elapsedRealtimeNanos(), 由调用方传入.
+ * 记录过程只有原子操作, 不分配内存; {@link #summary()} 只在输出日志时调用.
+ */
+public final class PipelineStats {
+
+    public enum Stage {
+        /** 传感器曝光 (image.getTimestamp()) 到 acquireLatestImage */
+        SENSOR_TO_ACQUIRE,
+        /** JPEG 解码或 YUV 转换 */
+        DECODE,
+        /** hands.send 调用本身 */
+        SEND,
+        /** send 到结果回调 */
+        INFERENCE,
+        /** 识别线程上的 HandTranslate.handGesture */
+        RECOGNITION,
+        /** HandsResultGlRenderer.renderResult */
+        RENDER,
+        /** 传感器曝光到绘制完成 */
+        END_TO_END,
+        /** 摄像头从暂停恢复出流到收到第一帧 */
+        RESUME_TO_FIRST_FRAME
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    // 传感器时间戳和 elapsedRealtimeNanos 不同源时差值没有意义, 超出这个范围的不记录
+    private static final long MAX_SENSOR_DELTA_NANOS = 10_000_000_000L;
+
+    // 在途帧的 send 时间, 按帧时间戳查找
+    private static final int SLOTS = 32;
+
+    public static final PipelineStats INSTANCE = new PipelineStats();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+    private final AtomicLongArray slotTimestamps = new AtomicLongArray(SLOTS);
+    private final AtomicLongArray slotSendNanos = new AtomicLongArray(SLOTS);
+    private final LatencyHistogram.Snapshot snapshot = new LatencyHistogram.Snapshot();
+
+    PipelineStats() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    /** 以传感器时间戳为起点记录, 时钟不同源时忽略 */
+    public void recordSinceSensor(Stage stage, long sensorTimestamp, long nowNanos) {
+        long delta = nowNanos - sensorTimestamp;
+        if (delta >= 0 && delta < MAX_SENSOR_DELTA_NANOS) {
+            record(stage, delta);
+        }
+    }
+
+    /** 帧已 send, 记下时间用于计算 {@link Stage#INFERENCE} */
+    public void markSent(long frameTimestamp, long nowNanos) {
+        int slot = slotOf(frameTimestamp);
+        slotSendNanos.set(slot, nowNanos);
+        slotTimestamps.set(slot, frameTimestamp);
+    }
+
+    /**
+     * 帧的结果回来了
+     * @return 这一帧的推理耗时, 找不到 send 时间时为 -1
+     */
+    public long markResult(long frameTimestamp, long nowNanos) {
+        int slot = slotOf(frameTimestamp);
+        long sendNanos = slotSendNanos.get(slot);
+        if (slotTimestamps.get(slot) == frameTimestamp && sendNanos != 0) {
+            long inference = nowNanos - sendNanos;
+            record(Stage.INFERENCE, inference);
+            return inference;
+        }
+        return -1;
+    }
+
+    public void snapshot(Stage stage, LatencyHistogram.Snapshot out) {
+        histograms[stage.ordinal()].snapshot(out);
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /** 每个阶段一段 "名称 p50/p95/p99/max", 单位毫秒 */
+    public synchronized String summary() {
+        StringBuilder builder = new StringBuilder("latency ms (p50/p95/p99/max)");
+        for (Stage stage : STAGES) {
+            histograms[stage.ordinal()].snapshot(snapshot);
+            if (snapshot.count == 0) { continue; }
+            builder.append(String.format(Locale.US, " %s=%.1f/%.1f/%.1f/%.1f",
+                    stage.name().toLowerCase(Locale.US),
+                    snapshot.p50 / 1e6, snapshot.p95 / 1e6, snapshot.p99 / 1e6, snapshot.max / 1e6));
+        }
+        return builder.toString();
+    }
+
+    private static int slotOf(long frameTimestamp) {
+        long hash = frameTimestamp ^ (frameTimestamp >>> 17);
+        return (int) (hash & (SLOTS - 1));
+    }
+}
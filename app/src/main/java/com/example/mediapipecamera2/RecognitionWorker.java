@@ -0,0 +1,126 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 手势识别线程. 结果线程只把关键点快照拷进 {@link LandmarkRing} 并发布,
+ * 识别, 日志和录制都在这个线程上做, 不会拖慢 graph 的输出线程.
+ */
+public class RecognitionWorker {
+
+    private static final String TAG = "RecognitionWorker";
+
+    /** 在识别线程上回调, snapshot 已经过 {@link LandmarkTransform} 变换, 返回后会被复用 */
+    public interface Listener {
+        void onGesture(@NonNull LandmarkSnapshot snapshot, @Nullable Gesture gesture);
+    }
+
+    /** 取当前时间, 单位纳秒, 用于 {@link PipelineStats.Stage#RECOGNITION} */
+    public interface Clock {
+        long nanoTime();
+    }
+
+    private final LandmarkRing ring;
+    private final HandTranslate handTranslate;
+    private final Listener listener;
+    private final Clock clock;
+
+    // 识别前把关键点转到屏幕方向, 摄像头打开后才知道
+    private volatile LandmarkTransform transform = LandmarkTransform.IDENTITY;
+
+    @Nullable
+    private volatile Thread thread;
+    private volatile boolean running;
+
+    public RecognitionWorker(int capacity, @NonNull HandTranslate handTranslate,
+                             @NonNull Listener listener, @NonNull Clock clock) {
+        this.ring = new LandmarkRing(capacity);
+        this.handTranslate = handTranslate;
+        this.listener = listener;
+        this.clock = clock;
+    }
+
+    public synchronized void start() {
+        if (thread != null) { return; }
+        running = true;
+        Thread t = new Thread(this::run, "HandRecognition");
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+    }
+
+    /** 停止识别线程, 队列里没处理的帧直接丢弃 */
+    public synchronized void stop() {
+        Thread t = thread;
+        if (t == null) { return; }
+        running = false;
+        LockSupport.unpark(t);
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+        while (ring.peek() != null) {
+            ring.release();
+        }
+    }
+
+    /**
+     * 结果线程调用: 拷贝关键点并发布, 不等待
+     * @param source 结果线程从 proto 拷出来的快照, 这里再拷一份, 识别线程的变换不会影响调用方
+     * @return false 表示队列已满, 这一帧被丢弃
+     */
+    public boolean offer(@NonNull LandmarkSnapshot source) {
+        LandmarkSnapshot snapshot = ring.claim();
+        if (snapshot == null) {
+            return false;
+        }
+        snapshot.copyFrom(source);
+        ring.publish();
+        Thread t = thread;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+        return true;
+    }
+
+    /** 设置识别前对关键点做的旋转和镜像, 对之后取出的帧生效 */
+    public void setTransform(@NonNull LandmarkTransform transform) {
+        this.transform = transform;
+    }
+
+    public LandmarkRing getRing() {
+        return ring;
+    }
+
+    private void run() {
+        while (running) {
+            LandmarkSnapshot snapshot = ring.peek();
+            if (snapshot == null) {
+                // offer 先发布再 unpark, 两者之间 park 也会立即返回, 不会漏掉
+                LockSupport.park(this);
+                continue;
+            }
+
+            long start = clock.nanoTime();
+            transform.apply(snapshot);
+            Gesture gesture = handTranslate.handGesture(snapshot);
+            PipelineStats.INSTANCE.record(PipelineStats.Stage.RECOGNITION, clock.nanoTime() - start);
+            try {
+                listener.onGesture(snapshot, gesture);
+            } catch (RuntimeException e) {
+                HandLogUtil.loge(TAG, "listener failed", e);
+            }
+            ring.release();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return ring.toString();
+    }
+}
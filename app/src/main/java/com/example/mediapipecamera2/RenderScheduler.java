@@ -0,0 +1,143 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * 结果线程和显示刷新之间的绘制调度.
+ *
+ * <p>每个结果只拷贝关键点并请求下一次 vsync 回调, 不直接 requestRender. 一次 vsync 之内到达的多个结果
+ * 只保留最新的一个 (latest-wins), 被顶掉的记为合并. vsync 时如果关键点和上次绘制的相差都不超过 epsilon,
+ * 这一帧不画, 记为跳过; 但距上次绘制超过 maxSkipNanos 时照样画, 免得画面上的其他内容 (比如手势文字) 一直不刷新.
+ *
+ * <p>与 Android 无关: vsync 回调由 {@link FrameRequester} 请求, 时间由 {@link Clock} 提供,
+ * 实际上分别对应 Choreographer.postFrameCallback 和 SystemClock.elapsedRealtimeNanos().
+ * {@link #submit} 可以在任意线程调用, {@link #doFrame} 和 {@link Target#render} 在同一个线程上 (主线程).
+ */
+public class RenderScheduler {
+
+    /**
+     * 画一帧. 要画的数据由调用方在结果线程上直接交给渲染器 (和图像一起, 保证是同一个结果),
+     * 这里只决定什么时候重画; landmarks 是这次通过的结果, 在下一次 render 之前不会被改动
+     */
+    public interface Target {
+        void render(@NonNull LandmarkSnapshot landmarks);
+    }
+
+    /** 请求一次 vsync 回调, 回调时调用 {@link #doFrame} */
+    public interface FrameRequester {
+        void requestFrame();
+    }
+
+    /** 取当前时间, 单位纳秒 */
+    public interface Clock {
+        long nanoTime();
+    }
+
+    private final Target target;
+    private final FrameRequester frameRequester;
+    private final Clock clock;
+    private final float epsilon;
+    private final long maxSkipNanos;
+
+    // 输入图像也画在同一个 View 上时每帧都要画, 不能跳过
+    private boolean skipUnchanged = true;
+
+    // submit 写 pending, doFrame 把它和 rendered 交换
+    private LandmarkSnapshot pending = new LandmarkSnapshot();
+    private boolean hasPending;
+    private boolean frameRequested;
+    private LandmarkSnapshot rendered = new LandmarkSnapshot();
+    private boolean hasRendered;
+    private long lastRenderNanos;
+
+    private long renderedCount;
+    private long coalescedCount;
+    private long skippedCount;
+
+    /**
+     * @param epsilon 关键点归一化坐标的变化不超过它时视为没变
+     * @param maxSkipNanos 关键点没变时最多连续跳过多久
+     */
+    public RenderScheduler(@NonNull Target target, @NonNull FrameRequester frameRequester,
+                           @NonNull Clock clock, float epsilon, long maxSkipNanos) {
+        if (epsilon < 0f) {
+            throw new IllegalArgumentException("Invalid epsilon " + epsilon);
+        }
+        this.target = target;
+        this.frameRequester = frameRequester;
+        this.clock = clock;
+        this.epsilon = epsilon;
+        this.maxSkipNanos = maxSkipNanos;
+    }
+
+    /** 是否跳过关键点没变的帧, 默认跳过 */
+    public synchronized void setSkipUnchanged(boolean skipUnchanged) {
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    /** 来了一个结果, 拷贝关键点, 等下一次 vsync 再画 */
+    public synchronized void submit(@NonNull LandmarkSnapshot landmarks) {
+        if (hasPending) {
+            coalescedCount++;
+        }
+        pending.copyFrom(landmarks);
+        hasPending = true;
+        if (!frameRequested) {
+            frameRequested = true;
+            frameRequester.requestFrame();
+        }
+    }
+
+    /** vsync 回调, 画最新的结果 */
+    public void doFrame() {
+        LandmarkSnapshot next;
+        synchronized (this) {
+            frameRequested = false;
+            if (!hasPending) {
+                return;
+            }
+            hasPending = false;
+            long now = clock.nanoTime();
+            if (skipUnchanged && hasRendered && now - lastRenderNanos < maxSkipNanos
+                    && pending.sameLandmarks(rendered, epsilon)) {
+                skippedCount++;
+                return;
+            }
+            next = pending;
+            pending = rendered;
+            rendered = next;
+            hasRendered = true;
+            lastRenderNanos = now;
+            renderedCount++;
+        }
+        // rendered 只在这个线程上交换, submit 只写 pending, 可以在锁外画
+        target.render(next);
+    }
+
+    /** 丢掉还没画的结果, 下一帧一定会画, 用于重建 View 或 graph */
+    public synchronized void reset() {
+        hasPending = false;
+        hasRendered = false;
+    }
+
+    public synchronized long getRenderedCount() {
+        return renderedCount;
+    }
+
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public synchronized long getSkippedCount() {
+        return skippedCount;
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "RenderScheduler rendered=%d coalesced=%d skipped=%d",
+                renderedCount, coalescedCount, skippedCount);
+    }
+}
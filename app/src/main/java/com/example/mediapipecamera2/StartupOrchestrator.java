@@ -0,0 +1,143 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 冷启动时并行加载 Hands graph 和打开摄像头.
+ *
+ * <p>graph 在后台线程加载, 完成后在主线程上挂接 (创建 GL 视图等); 摄像头在调用线程上打开,
+ * 出流后调用 {@link #onCameraReady()}. 两者都完成才算就绪, 就绪之前到达的帧由
+ * {@link #admitFrame()} 拒绝并计数, 不排队, 调用方直接丢掉.
+ *
+ * <p>各阶段耗时记录在 {@link StartupTrace} 中.
+ */
+public final class StartupOrchestrator {
+
+    private static final String TAG = "StartupOrchestrator";
+
+    private static final int TASKS = 2;
+
+    private final StartupTrace trace;
+    private final Executor background;
+    private final Executor main;
+
+    private final AtomicInteger pending = new AtomicInteger(TASKS);
+    private volatile boolean cameraReady;
+    private volatile boolean ready;
+    private final AtomicLong droppedFrames = new AtomicLong();
+    // 每帧都会调用 onSend/onResult, 只在第一次进 trace 的锁
+    private volatile boolean sent;
+    private volatile boolean resulted;
+
+    /**
+     * @param background 加载 graph 的线程
+     * @param main 主线程, graph 加载完之后在上面挂接
+     */
+    public StartupOrchestrator(@NonNull StartupTrace trace, @NonNull Executor background, @NonNull Executor main) {
+        this.trace = trace;
+        this.background = background;
+        this.main = main;
+    }
+
+    /**
+     * 开始启动, 在主线程调用
+     * @param loadGraph 后台线程上执行, 创建 Hands
+     * @param openCamera 当前线程上执行, 发起打开摄像头, 出流后需要调用 {@link #onCameraReady()}
+     * @param attachGraph loadGraph 完成后在主线程上执行
+     */
+    public void start(@NonNull Runnable loadGraph, @NonNull Runnable openCamera, @NonNull Runnable attachGraph) {
+        trace.begin(StartupTrace.Phase.GRAPH_LOAD);
+        background.execute(() -> {
+            try {
+                loadGraph.run();
+            } catch (RuntimeException e) {
+                // 在主线程上重新抛出, 与在主线程上加载失败时一样
+                HandLogUtil.loge(TAG, "load graph failed", e);
+                main.execute(() -> { throw e; });
+                return;
+            }
+            trace.end(StartupTrace.Phase.GRAPH_LOAD);
+            main.execute(() -> {
+                trace.begin(StartupTrace.Phase.GRAPH_ATTACH);
+                attachGraph.run();
+                trace.end(StartupTrace.Phase.GRAPH_ATTACH);
+                taskDone();
+            });
+        });
+
+        trace.begin(StartupTrace.Phase.CAMERA_OPEN);
+        openCamera.run();
+    }
+
+    /** 摄像头开始出流; 只有第一次有效 */
+    public void onCameraReady() {
+        if (cameraReady) {
+            return;
+        }
+        cameraReady = true;
+        trace.end(StartupTrace.Phase.CAMERA_OPEN);
+        taskDone();
+    }
+
+    private void taskDone() {
+        if (pending.decrementAndGet() == 0) {
+            trace.mark(StartupTrace.Phase.READY);
+            ready = true;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 一帧到达, 决定是否 send
+     * @return false 表示还没就绪, 这一帧已计入丢弃, 调用方直接释放
+     */
+    public boolean admitFrame() {
+        if (!ready) {
+            droppedFrames.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /** 就绪之前丢弃的帧数 */
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    /** 帧 send 了, 记录第一帧 */
+    public void onSend() {
+        if (!sent) {
+            sent = true;
+            trace.mark(StartupTrace.Phase.FIRST_SEND);
+        }
+    }
+
+    /**
+     * 结果回来了
+     * @return 是否是第一帧结果, 调用方可以在这时输出启动耗时
+     */
+    public boolean onResult() {
+        if (resulted) {
+            return false;
+        }
+        resulted = true;
+        return trace.mark(StartupTrace.Phase.FIRST_RESULT);
+    }
+
+    @NonNull
+    public StartupTrace getTrace() {
+        return trace;
+    }
+
+    @Override
+    public String toString() {
+        return trace.summary() + ", early frames dropped " + droppedFrames.get();
+    }
+}
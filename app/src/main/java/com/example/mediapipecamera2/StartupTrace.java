@@ -0,0 +1,95 @@
+package com.example.mediapipecamera2;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * 冷启动各阶段的耗时, 用于跟踪不同版本的首个关键点时间.
+ *
+ * <p>时间都相对创建时刻 (onCreate), 由 {@link Clock} 提供, 不依赖 Android.
+ * 各阶段可能在不同线程上开始和结束, 方法都是同步的; 只在启动时调用几次, 不在意分配.
+ */
+public final class StartupTrace {
+
+    public enum Phase {
+        /** new Hands(...), 加载模型和 graph, 在后台线程 */
+        GRAPH_LOAD,
+        /** 打开摄像头到会话配置好开始出流 */
+        CAMERA_OPEN,
+        /** graph 加载完成后在主线程上挂接, 例如创建 GL 视图 */
+        GRAPH_ATTACH,
+        /** graph 和摄像头都就绪, 之后的帧才会 send */
+        READY,
+        /** 第一帧 send */
+        FIRST_SEND,
+        /** 第一帧结果回来 */
+        FIRST_RESULT
+    }
+
+    /** 取当前时间, 单位纳秒 */
+    public interface Clock {
+        long nanoTime();
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final Clock clock;
+    private final long originNanos;
+    // 相对 origin 的开始和结束时间, 未发生时为 -1
+    private final long[] begin = new long[PHASES.length];
+    private final long[] end = new long[PHASES.length];
+
+    public StartupTrace(@NonNull Clock clock) {
+        this.clock = clock;
+        this.originNanos = clock.nanoTime();
+        for (int i = 0; i < PHASES.length; i++) {
+            begin[i] = -1;
+            end[i] = -1;
+        }
+    }
+
+    public synchronized void begin(@NonNull Phase phase) {
+        begin[phase.ordinal()] = clock.nanoTime() - originNanos;
+    }
+
+    public synchronized void end(@NonNull Phase phase) {
+        end[phase.ordinal()] = clock.nanoTime() - originNanos;
+    }
+
+    /** 瞬时事件, 开始和结束相同; 只记第一次, 返回是否是第一次 */
+    public synchronized boolean mark(@NonNull Phase phase) {
+        if (end[phase.ordinal()] >= 0) {
+            return false;
+        }
+        long now = clock.nanoTime() - originNanos;
+        begin[phase.ordinal()] = now;
+        end[phase.ordinal()] = now;
+        return true;
+    }
+
+    /** 阶段耗时, 还没结束时为 -1 */
+    public synchronized long getDuration(@NonNull Phase phase) {
+        long b = begin[phase.ordinal()];
+        long e = end[phase.ordinal()];
+        return b < 0 || e < 0 ? -1 : e - b;
+    }
+
+    /** 阶段结束时刻, 相对创建时刻, 还没结束时为 -1 */
+    public synchronized long getEnd(@NonNull Phase phase) {
+        return end[phase.ordinal()];
+    }
+
+    /** 每个已结束的阶段一段 "名称 耗时/结束时刻", 单位毫秒 */
+    @NonNull
+    public synchronized String summary() {
+        StringBuilder builder = new StringBuilder("startup ms (duration/at)");
+        for (Phase phase : PHASES) {
+            long e = end[phase.ordinal()];
+            if (e < 0) { continue; }
+            builder.append(String.format(Locale.US, " %s=%.1f/%.1f",
+                    phase.name().toLowerCase(Locale.US), getDuration(phase) / 1e6, e / 1e6));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.mediapipecamera2;
+
+import java.nio.ByteBuffer;
+
+/**
+ * YUV_420_888 三个平面转 ARGB_8888 像素, BT.601 limited range, 定点运算, 不分配内存.
+ *
+ * <p>只处理 ByteBuffer 和 int[], 不依赖 Image 和 Bitmap, 可以在 JVM 上测试和跑 benchmark.
+ */
+public final class Yuv420ToArgb {
+
+    private Yuv420ToArgb() {}
+
+    /**
+     * 转换一帧, out 按行紧密排列, 长度至少 width * height.
+     * U/V 平面共用 rowStride 和 pixelStride, 这是 YUV_420_888 的约定.
+     */
+    public static void convert(ByteBuffer yPlane, int yRowStride,
+                               ByteBuffer uPlane, ByteBuffer vPlane,
+                               int uvRowStride, int uvPixelStride,
+                               int width, int height, int[] out) {
+        for (int row = 0; row < height; row++) {
+            int yRow = row * yRowStride;
+            int uvRow = (row >> 1) * uvRowStride;
+            int outRow = row * width;
+            for (int col = 0; col < width; col++) {
+                int y = (yPlane.get(yRow + col) & 0xFF) - 16;
+                if (y < 0) { y = 0; }
+                int uvOffset = uvRow + (col >> 1) * uvPixelStride;
+                int u = (uPlane.get(uvOffset) & 0xFF) - 128;
+                int v = (vPlane.get(uvOffset) & 0xFF) - 128;
+
+                int y1192 = 1192 * y;
+                int r = clamp(y1192 + 1634 * v);
+                int g = clamp(y1192 - 833 * v - 400 * u);
+                int b = clamp(y1192 + 2066 * u);
+
+                out[outRow + col] = 0xFF000000
+                        | ((r << 6) & 0xFF0000)
+                        | ((g >> 2) & 0xFF00)
+                        | ((b >> 10) & 0xFF);
+            }
+        }
+    }
+
+    private static int clamp(int value) {
+        if (value < 0) { return 0; }
+        return Math.min(value, 262143);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.mediapipecamera2;
+
+import android.graphics.Bitmap;
+import android.graphics.ImageFormat;
+import android.media.Image;
+
+/**
+ * YUV_420_888 转 ARGB_8888, 用来跳过 JPEG 编码再解码的过程.
+ *
+ * <p>像素缓冲区按尺寸复用, 只在分辨率变化时重新分配. 转换本身在 {@link Yuv420ToArgb}.
+ */
+public class YuvToRgbConverter {
+
+    private int[] argb = new int[0];
+    private int[] scaled = new int[0];
+
+    /**
+     * 把一帧 {@link ImageFormat#YUV_420_888} 转到 out 中
+     * @param out ARGB_8888 Bitmap, 比 image 小时用 {@link ArgbScaler} 缩小
+     */
+    public void convert(Image image, Bitmap out) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (argb.length != width * height) {
+            argb = new int[width * height];
+        }
+
+        Image.Plane[] planes = image.getPlanes();
+        Yuv420ToArgb.convert(planes[0].getBuffer(), planes[0].getRowStride(),
+                planes[1].getBuffer(), planes[2].getBuffer(),
+                planes[1].getRowStride(), planes[1].getPixelStride(),
+                width, height, argb);
+
+        int outWidth = out.getWidth();
+        int outHeight = out.getHeight();
+        if (outWidth == width && outHeight == height) {
+            out.setPixels(argb, 0, width, 0, 0, width, height);
+            return;
+        }
+        if (scaled.length != outWidth * outHeight) {
+            scaled = new int[outWidth * outHeight];
+        }
+        ArgbScaler.scale(argb, width, height, scaled, outWidth, outHeight);
+        out.setPixels(scaled, 0, outWidth, 0, 0, outWidth, outHeight);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.mediapipecamera2;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ArgbScalerTest {
+
+    private static int gray(int v) {
+        return 0xFF000000 | (v << 16) | (v << 8) | v;
+    }
+
+    private static int channel(int argb, int shift) {
+        return (argb >>> shift) & 0xFF;
+    }
+
+    @Test
+    public void scaledSizeIsEvenAndNeverGrows() {
+        assertEquals(640, ArgbScaler.scaledSize(640, 1f));
+        assertEquals(480, ArgbScaler.scaledSize(640, 0.75f));
+        assertEquals(240, ArgbScaler.scaledSize(480, 0.5f));
+        assertEquals(360, ArgbScaler.scaledSize(480, 0.75f));
+        assertEquals(2, ArgbScaler.scaledSize(3, 0.1f));
+    }
+
+    @Test
+    public void keepsUniformColor() {
+        int color = 0x80FF4010;
+        int[] src = new int[64 * 48];
+        Arrays.fill(src, color);
+        int[] dst = new int[48 * 36];
+        ArgbScaler.scale(src, 64, 48, dst, 48, 36);
+        for (int pixel : dst) {
+            assertEquals(color, pixel);
+        }
+    }
+
+    @Test
+    public void halvingAveragesEachTwoByTwoBlock() {
+        // 每个 2x2 块内是 0, 100, 200, 100, 均值 100
+        int width = 8;
+        int height = 6;
+        int[] src = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                src[y * width + x] = gray(((x & 1) + (y & 1)) * 100);
+            }
+        }
+        int[] dst = new int[4 * 3];
+        ArgbScaler.scale(src, width, height, dst, 4, 3);
+        for (int pixel : dst) {
+            assertEquals(255, channel(pixel, 24));
+            assertEquals(100, channel(pixel, 16), 1);
+            assertEquals(100, channel(pixel, 0), 1);
+        }
+    }
+
+    @Test
+    public void preservesHorizontalGradient() {
+        int width = 100;
+        int[] src = new int[width * 4];
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < width; x++) {
+                src[y * width + x] = gray(x * 2);
+            }
+        }
+        int[] dst = new int[75 * 3];
+        ArgbScaler.scale(src, width, 4, dst, 75, 3);
+        for (int x = 1; x < 75; x++) {
+            assertTrue(channel(dst[x], 8) >= channel(dst[x - 1], 8));
+        }
+        // 两端贴近原图两端
+        assertEquals(0, channel(dst[0], 8), 2);
+        assertEquals(198, channel(dst[74], 8), 2);
+    }
+
+    @Test
+    public void copiesWhenSizeIsUnchanged() {
+        int[] src = {1, 2, 3, 4, 5, 6};
+        int[] dst = new int[6];
+        ArgbScaler.scale(src, 3, 2, dst, 3, 2);
+        assertArrayEquals(src, dst);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.mediapipecamera2;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AsyncLogWriterTest {
+
+    private final List<String> lines = new ArrayList<>();
+
+    private AsyncLogWriter newWriter(int capacity) {
+        return new AsyncLogWriter(capacity, (priority, tag, message) -> {
+            synchronized (lines) {
+                lines.add(tag + ": " + message);
+            }
+        }, "AsyncLogWriterTest");
+    }
+
+    @Test
+    public void formatsPlaceholdersOnWriterSide() throws InterruptedException {
+        AsyncLogWriter writer = newWriter(16);
+        writer.write(3, "T", "plain");
+        writer.write(3, "T", "mask={} gesture={}", 5L, Gesture.FIVE);
+        writer.write(3, "T", "a={} b={}", 1L, 2L);
+        writer.write(3, "T", "x={}", 0.5);
+        writer.write(3, "T", "missing {} {}", "only");
+        waitForDrain(writer);
+
+        synchronized (lines) {
+            assertEquals("T: plain", lines.get(0));
+            assertEquals("T: mask=5 gesture=FIVE", lines.get(1));
+            assertEquals("T: a=1 b=2", lines.get(2));
+            assertEquals("T: x=0.5", lines.get(3));
+            assertEquals("T: missing only {}", lines.get(4));
+        }
+    }
+
+    @Test
+    public void dropsWhenFullAndReportsCount() throws InterruptedException {
+        AsyncLogWriter writer = newWriter(2);
+        // 写线程可能已经取走一部分, 多写一些确保会溢出
+        synchronized (writer) {
+            for (int i = 0; i < 10; i++) {
+                writer.write(3, "T", "line {}", i);
+            }
+        }
+        assertEquals(8, writer.getDroppedCount());
+        waitForDrain(writer);
+
+        synchronized (lines) {
+            assertTrue(lines.contains("T: dropped 8 log lines"));
+            assertTrue(lines.contains("T: line 0"));
+            assertTrue(lines.contains("T: line 1"));
+        }
+    }
+
+    private static void waitForDrain(AsyncLogWriter writer) throws InterruptedException {
+        for (int i = 0; i < 200 && writer.getPendingCount() > 0; i++) {
+            Thread.sleep(5);
+        }
+        writer.flush();
+        // 写线程可能正在输出最后一行
+        Thread.sleep(20);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.mediapipecamera2;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CameraCapabilityCacheTest {
+
+    // ImageFormat.JPEG / ImageFormat.YUV_420_888
+    private static final int JPEG = 0x100;
+    private static final int YUV = 0x23;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static CameraCapabilities back() {
+        return new CameraCapabilities("0", 1, 90,
+                new int[]{JPEG, YUV},
+                new int[][]{{4032, 1920, 640}, {1920, 640}},
+                new int[][]{{3024, 1080, 480}, {1080, 480}},
+                new int[]{15, 30, 30}, new int[]{15, 24, 30});
+    }
+
+    private static CameraCapabilities front() {
+        return new CameraCapabilities("1", CameraCapabilities.LENS_FACING_FRONT, 270,
+                new int[]{JPEG, YUV},
+                new int[][]{{1280, 640}, {640}},
+                new int[][]{{960, 480}, {480}},
+                new int[]{15}, new int[]{30});
+    }
+
+    private File cacheFile() {
+        return new File(folder.getRoot(), CameraCapabilityCache.FILE_NAME);
+    }
+
+    @Test
+    public void emptyWithoutFile() {
+        CameraCapabilityCache cache = new CameraCapabilityCache(cacheFile(), "build-1");
+        assertTrue(cache.getCameraIds().isEmpty());
+        assertNull(cache.get("0"));
+    }
+
+    @Test
+    public void persistsAcrossInstances() throws IOException {
+        List<CameraCapabilities> cameras = Arrays.asList(back(), front());
+        assertTrue(new CameraCapabilityCache(cacheFile(), "build-1").update(cameras));
+
+        CameraCapabilityCache cache = new CameraCapabilityCache(cacheFile(), "build-1");
+        assertEquals(Arrays.asList("0", "1"), cache.getCameraIds());
+        CameraCapabilities front = cache.get("1");
+        assertEquals(front(), front);
+        assertTrue(front.isFrontFacing());
+        assertEquals(270, front.getSensorOrientation());
+        assertArrayEquals(new int[]{640}, front.getWidths(YUV));
+        assertArrayEquals(new int[]{480}, front.getHeights(YUV));
+        assertEquals(back(), cache.get("0"));
+        assertEquals(24, cache.get("0").getMaxFps(1));
+    }
+
+    @Test
+    public void keepsValuesBeyondShortAndByteRange() throws IOException {
+        // 高速录像的帧率超过 255, 2 亿像素的尺寸接近 short 上限
+        CameraCapabilities highSpeed = new CameraCapabilities("3", 1, 90,
+                new int[]{YUV}, new int[][]{{16320, 70000}}, new int[][]{{12240, 1}},
+                new int[]{30, 960}, new int[]{240, 960});
+        new CameraCapabilityCache(cacheFile(), "build-1").update(Collections.singletonList(highSpeed));
+
+        CameraCapabilities read = new CameraCapabilityCache(cacheFile(), "build-1").get("3");
+        assertEquals(highSpeed, read);
+        assertEquals(960, read.getMaxFps(1));
+        assertArrayEquals(new int[]{16320, 70000}, read.getWidths(YUV));
+    }
+
+    @Test
+    public void ignoresCacheWithOldVersion() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(cacheFile())) {
+            out.write(new byte[]{0x43, 0x43, 0x50, 0x43, 0, 0, 0, 1});
+        }
+        CameraCapabilityCache cache = new CameraCapabilityCache(cacheFile(), "build-1");
+        assertTrue(cache.getCameraIds().isEmpty());
+    }
+
+    @Test
+    public void ignoresCacheFromAnotherFingerprint() throws IOException {
+        new CameraCapabilityCache(cacheFile(), "build-1").update(Collections.singletonList(back()));
+        CameraCapabilityCache cache = new CameraCapabilityCache(cacheFile(), "build-2");
+        assertNull(cache.get("0"));
+        // 后台校验后按新指纹重写
+        assertTrue(cache.update(Collections.singletonList(back())));
+        assertEquals(back(), new CameraCapabilityCache(cacheFile(), "build-2").get("0"));
+    }
+
+    @Test
+    public void updateOnlyWritesWhenChanged() throws IOException {
+        CameraCapabilityCache cache = new CameraCapabilityCache(cacheFile(), "build-1");
+        assertTrue(cache.update(Arrays.asList(back(), front())));
+        long modified = cacheFile().lastModified();
+        assertTrue(cacheFile().setLastModified(modified - 10_000));
+
+        assertFalse(cache.update(Arrays.asList(back(), front())));
+        assertEquals(modified - 10_000, cacheFile().lastModified());
+
+        assertTrue(cache.update(Collections.singletonList(front())));
+        assertEquals(Collections.singletonList("1"), cache.getCameraIds());
+    }
+
+    @Test
+    public void treatsCorruptFileAsEmpty() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(cacheFile())) {
+            out.write(new byte[]{0x43, 0x43, 0x50, 0x43, 0, 0, 0, (byte) CameraCapabilityCache.VERSION, 0});
+        }
+        CameraCapabilityCache cache = new CameraCapabilityCache(cacheFile(), "build-1");
+        assertTrue(cache.getCameraIds().isEmpty());
+    }
+
+    @Test
+    public void reportsMissingFormatAndFpsRanges() {
+        CameraCapabilities camera = new CameraCapabilities("2", 2, 0,
+                new int[]{JPEG}, new int[][]{{640}}, new int[][]{{480}}, new int[0], new int[0]);
+        assertNull(camera.getWidths(YUV));
+        assertNull(camera.createFrameRateGovernor());
+        assertNotNull(back().createFrameRateGovernor());
+    }
+}
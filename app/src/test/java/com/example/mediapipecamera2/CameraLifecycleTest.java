@@ -0,0 +1,104 @@
+package com.example.mediapipecamera2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CameraLifecycleTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void coldStartStreamsWithoutResumeLatency() {
+        CameraLifecycle lifecycle = new CameraLifecycle();
+        assertEquals(CameraLifecycle.State.CLOSED, lifecycle.getState());
+        assertTrue(lifecycle.open());
+        assertFalse(lifecycle.open());
+        assertTrue(lifecycle.stream());
+        assertEquals(CameraLifecycle.State.STREAMING, lifecycle.getState());
+        assertEquals(-1, lifecycle.onFrame(130 * MS));
+        assertEquals(-1, lifecycle.getLastResumeLatency());
+    }
+
+    @Test
+    public void measuresResumeToFirstFrame() {
+        CameraLifecycle lifecycle = new CameraLifecycle();
+        lifecycle.open();
+        lifecycle.stream();
+        assertTrue(lifecycle.pause());
+        assertEquals(CameraLifecycle.State.PAUSED, lifecycle.getState());
+        // 暂停中还没停下来的帧不算
+        assertEquals(-1, lifecycle.onFrame(150 * MS));
+
+        assertFalse(lifecycle.stream());
+        assertTrue(lifecycle.resume(1000 * MS));
+        assertEquals(40 * MS, lifecycle.onFrame(1040 * MS));
+        assertEquals(-1, lifecycle.onFrame(1073 * MS));
+        assertEquals(40 * MS, lifecycle.getLastResumeLatency());
+    }
+
+    @Test
+    public void pauseWhileOpeningDefersStreaming() {
+        CameraLifecycle lifecycle = new CameraLifecycle();
+        lifecycle.open();
+        assertTrue(lifecycle.pause());
+        // 会话配置好时仍是 PAUSED, 恢复时才出流
+        assertFalse(lifecycle.stream());
+        assertEquals(CameraLifecycle.State.PAUSED, lifecycle.getState());
+        assertTrue(lifecycle.resume(10 * MS));
+        assertEquals(CameraLifecycle.State.STREAMING, lifecycle.getState());
+    }
+
+    @Test
+    public void notifiesFirstStreamingOncePerOpen() {
+        CameraLifecycle lifecycle = new CameraLifecycle();
+        int[] started = new int[1];
+        lifecycle.setOnStartedListener(() -> started[0]++);
+
+        lifecycle.open();
+        lifecycle.stream();
+        assertEquals(1, started[0]);
+        lifecycle.pause();
+        lifecycle.resume(10 * MS);
+        assertEquals(1, started[0]);
+
+        // 重新打开后, 打开过程中被暂停, 第一次出流发生在 resume
+        lifecycle.close();
+        lifecycle.open();
+        lifecycle.pause();
+        assertFalse(lifecycle.stream());
+        assertEquals(1, started[0]);
+        assertTrue(lifecycle.resume(20 * MS));
+        assertEquals(2, started[0]);
+    }
+
+    @Test
+    public void rejectsInvalidTransitions() {
+        CameraLifecycle lifecycle = new CameraLifecycle();
+        assertFalse(lifecycle.stream());
+        assertFalse(lifecycle.resume(1));
+        assertFalse(lifecycle.pause());
+        assertFalse(lifecycle.close());
+
+        lifecycle.open();
+        assertFalse(lifecycle.resume(1));
+        lifecycle.stream();
+        assertFalse(lifecycle.stream());
+        assertFalse(lifecycle.resume(2));
+        lifecycle.pause();
+        assertFalse(lifecycle.pause());
+    }
+
+    @Test
+    public void closeDropsPendingResume() {
+        CameraLifecycle lifecycle = new CameraLifecycle();
+        lifecycle.open();
+        lifecycle.stream();
+        lifecycle.pause();
+        lifecycle.resume(100 * MS);
+        assertTrue(lifecycle.close());
+        assertEquals(CameraLifecycle.State.CLOSED, lifecycle.getState());
+        assertEquals(-1, lifecycle.onFrame(120 * MS));
+        assertTrue(lifecycle.open());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.mediapipecamera2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CaptureSizeSelectorTest {
+
+    // 典型的后置摄像头输出尺寸, 传感器方向
+    private static final int[] WIDTHS = {4032, 3840, 1920, 1440, 1280, 960, 800, 640, 352, 320};
+    private static final int[] HEIGHTS = {3024, 2160, 1080, 1080, 720, 720, 600, 480, 288, 240};
+
+    @Test
+    public void picksSmallestCoveringSizeWithMatchingAspect() {
+        CaptureSizeSelector selector = new CaptureSizeSelector(640, 480);
+        int index = selector.select(WIDTHS, HEIGHTS, false);
+        assertEquals(640, WIDTHS[index]);
+        assertEquals(480, HEIGHTS[index]);
+    }
+
+    @Test
+    public void swapsTargetWhenSensorIsRotated() {
+        // 竖屏显示, 传感器横向
+        CaptureSizeSelector selector = new CaptureSizeSelector(480, 640);
+        int index = selector.select(WIDTHS, HEIGHTS, true);
+        assertEquals(640, WIDTHS[index]);
+        assertEquals(480, HEIGHTS[index]);
+
+        // 不交换时没有竖向比例的尺寸, 退回到高度至少 640 的最小尺寸
+        index = selector.select(WIDTHS, HEIGHTS, false);
+        assertEquals(960, WIDTHS[index]);
+        assertEquals(720, HEIGHTS[index]);
+    }
+
+    @Test
+    public void prefersMatchingAspectOverSmallerArea() {
+        // 640x480 面积更小, 但 16:9 的目标优先选 1280x720
+        CaptureSizeSelector selector = new CaptureSizeSelector(640, 360);
+        int index = selector.select(WIDTHS, HEIGHTS, false);
+        assertEquals(1280, WIDTHS[index]);
+        assertEquals(720, HEIGHTS[index]);
+
+        // 960x720 比例与 9:7 相差超过容差, 但仍是覆盖目标的最小尺寸
+        selector = new CaptureSizeSelector(900, 700);
+        index = selector.select(WIDTHS, HEIGHTS, false);
+        assertEquals(960, WIDTHS[index]);
+    }
+
+    @Test
+    public void fallsBackToSmallestCoveringSize() {
+        CaptureSizeSelector selector = new CaptureSizeSelector(700, 700);
+        int index = selector.select(WIDTHS, HEIGHTS, false);
+        assertEquals(960, WIDTHS[index]);
+        assertEquals(720, HEIGHTS[index]);
+    }
+
+    @Test
+    public void fallsBackToLargestWhenNothingCovers() {
+        CaptureSizeSelector selector = new CaptureSizeSelector(8000, 6000);
+        int index = selector.select(WIDTHS, HEIGHTS, false);
+        assertEquals(4032, WIDTHS[index]);
+    }
+
+    @Test
+    public void emptySizes() {
+        assertEquals(-1, CaptureSizeSelector.DEFAULT.select(new int[0], new int[0], false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidTarget() {
+        new CaptureSizeSelector(0, 480);
+    }
+}
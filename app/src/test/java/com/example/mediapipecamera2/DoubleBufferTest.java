@@ -0,0 +1,120 @@
+package com.example.mediapipecamera2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DoubleBufferTest {
+
+    private final DoubleBuffer<String> buffers = new DoubleBuffer<>();
+
+    /** 画一次, 缓冲还没创建时创建 */
+    private String draw(String created) {
+        assertTrue(buffers.beginDraw());
+        String back = buffers.getBack();
+        if (back == null) {
+            back = created;
+            buffers.setBack(back);
+        }
+        buffers.endDraw();
+        return back;
+    }
+
+    /** 交换并马上换上, 和 update() 一样 */
+    private String show() {
+        String front = buffers.swap();
+        if (front != null) {
+            buffers.releaseFront();
+        }
+        return front;
+    }
+
+    @Test
+    public void alternatesBetweenTwoBuffers() {
+        assertNull(show());
+        assertNull(buffers.getFront());
+
+        assertEquals("a", draw("a"));
+        assertEquals("a", show());
+        assertEquals("b", draw("b"));
+        assertEquals("b", show());
+        // 之后不再创建, 两个缓冲轮流使用
+        assertEquals("a", draw("c"));
+        assertEquals("a", show());
+        assertEquals("b", draw("d"));
+        assertEquals("b", show());
+        assertEquals("b", buffers.getFront());
+        assertEquals(4, buffers.getSwapCount());
+    }
+
+    @Test
+    public void swapWithoutNewDrawKeepsFront() {
+        draw("a");
+        show();
+        assertNull(show());
+        assertEquals("a", buffers.getFront());
+    }
+
+    @Test
+    public void drawingBufferIsNotSwapped() {
+        draw("a");
+        show();
+        buffers.beginDraw();
+        buffers.setBack("b");
+        assertNull(buffers.swap());
+        buffers.endDraw();
+        assertEquals("b", show());
+    }
+
+    @Test
+    public void replacedFrontIsNotDrawnUntilReleased() {
+        draw("a");
+        show();
+        draw("b");
+        assertEquals("b", buffers.swap());
+        // "a" 可能还在屏幕上
+        assertFalse(buffers.beginDraw());
+        assertEquals("b", buffers.getFront());
+
+        assertTrue(buffers.releaseFront());
+        assertTrue(buffers.beginDraw());
+        assertEquals("a", buffers.getBack());
+        buffers.endDraw();
+        assertEquals("a", buffers.swap());
+        assertFalse(buffers.releaseFront());
+    }
+
+    @Test
+    public void firstSwapDoesNotBlockDrawing() {
+        draw("a");
+        assertEquals("a", buffers.swap());
+        assertTrue(buffers.beginDraw());
+        assertNull(buffers.getBack());
+    }
+
+    @Test
+    public void redrawBeforeSwapOverwritesSameBackBuffer() {
+        draw("a");
+        show();
+        assertEquals("b", draw("b"));
+        assertEquals("b", draw("c"));
+        assertEquals(1, buffers.getOverwrittenCount());
+        assertEquals("b", show());
+        assertTrue(buffers.beginDraw());
+        assertEquals("a", buffers.getBack());
+    }
+
+    @Test
+    public void cancelledDrawIsNotShown() {
+        draw("a");
+        show();
+        buffers.beginDraw();
+        buffers.cancelDraw();
+        assertNull(buffers.swap());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void setBackOutsideDrawIsRejected() {
+        buffers.setBack("a");
+    }
+}
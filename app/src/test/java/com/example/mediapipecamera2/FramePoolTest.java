@@ -0,0 +1,101 @@
+package com.example.mediapipecamera2;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FramePoolTest {
+
+    private long now;
+    private final List<String> recycled = new ArrayList<>();
+    private final FramePool<String> pool = new FramePool<>(recycled::add, () -> now, true);
+
+    private Frame<String> obtain(String pixels, long timestamp) {
+        return pool.obtain(pixels, timestamp, 640, 480, 90, true, Frame.Owner.CAPTURE);
+    }
+
+    @Test
+    public void pixelsReturnWhenLastOwnerReleases() {
+        Frame<String> frame = obtain("a", 1);
+        assertEquals(640, frame.getWidth());
+        assertEquals(90, frame.getRotation());
+        assertTrue(frame.isFrontFacing());
+
+        frame.retain(Frame.Owner.SCHEDULER);
+        frame.release(Frame.Owner.CAPTURE);
+        assertTrue(recycled.isEmpty());
+        assertEquals("a", frame.getPixels());
+
+        frame.retain(Frame.Owner.INFERENCE);
+        frame.release(Frame.Owner.INFERENCE);
+        frame.release(Frame.Owner.SCHEDULER);
+        assertEquals(1, recycled.size());
+        assertEquals("a", recycled.get(0));
+        assertEquals(0, pool.getLiveCount());
+    }
+
+    @Test
+    public void frameObjectsAreReused() {
+        for (int i = 0; i < 10; i++) {
+            Frame<String> frame = obtain("p" + i, i);
+            frame.release(Frame.Owner.CAPTURE);
+        }
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(10, recycled.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releasedFrameCannotBeRead() {
+        Frame<String> frame = obtain("a", 1);
+        frame.release(Frame.Owner.CAPTURE);
+        frame.getPixels();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releasedFrameCannotBeRetained() {
+        Frame<String> frame = obtain("a", 1);
+        frame.release(Frame.Owner.CAPTURE);
+        frame.retain(Frame.Owner.RENDERER);
+    }
+
+    @Test
+    public void releaseByOwnerNotHoldingIsRejected() {
+        Frame<String> frame = obtain("a", 1);
+        try {
+            frame.release(Frame.Owner.RENDERER);
+            fail();
+        } catch (IllegalStateException expected) {
+            // 计数不受影响
+        }
+        assertEquals(1, frame.getRefCount());
+        assertTrue(recycled.isEmpty());
+    }
+
+    @Test
+    public void checkLeaksReportsOldFramesAndTheirOwners() {
+        Frame<String> leaked = obtain("a", 1);
+        leaked.retain(Frame.Owner.RENDERER);
+        leaked.release(Frame.Owner.CAPTURE);
+        now += 2_000_000_000L;
+        obtain("b", 2);
+
+        List<String> owners = new ArrayList<>();
+        int leaks = pool.checkLeaks(1_000_000_000L, (frame, age, who) -> owners.add(frame.getTimestamp() + ":" + who));
+
+        assertEquals(1, leaks);
+        assertEquals("1:RENDERER", owners.get(0));
+    }
+
+    @Test
+    public void leakDetectionCanBeDisabled() {
+        FramePool<String> releasePool = new FramePool<>(recycled::add, () -> now, false);
+        Frame<String> frame = releasePool.obtain("a", 1, 1, 1, 0, false, Frame.Owner.CAPTURE);
+        now += 2_000_000_000L;
+        assertEquals(0, releasePool.checkLeaks(0, (f, age, who) -> fail()));
+        frame.release(Frame.Owner.CAPTURE);
+        assertEquals(1, recycled.size());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.mediapipecamera2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrameRateGovernorTest {
+
+    // 常见的前置摄像头 CONTROL_AE_AVAILABLE_TARGET_FPS_RANGES
+    private static final int[] MIN_FPS = {15, 7, 15, 24, 30, 10};
+    private static final int[] MAX_FPS = {15, 30, 30, 24, 30, 10};
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private long now;
+
+    /** 按 fps 的速率送 seconds 秒结果, 返回最后一次切换到的范围, 没有切换时为 -1 */
+    private int feed(FrameRateGovernor governor, float fps, int seconds) {
+        long interval = (long) (SECOND / fps);
+        long end = now + seconds * SECOND;
+        int switched = -1;
+        while (now < end) {
+            int range = governor.onResult(now);
+            if (range >= 0) {
+                switched = range;
+            }
+            now += interval;
+        }
+        return switched;
+    }
+
+    @Test
+    public void startsAtHighestSteadyRange() {
+        FrameRateGovernor governor = new FrameRateGovernor(MIN_FPS, MAX_FPS);
+        // 上限相同时选下限高的 [30, 30]
+        assertEquals(4, governor.getCurrentRange());
+    }
+
+    @Test
+    public void stepsDownToMatchSlowInference() {
+        FrameRateGovernor governor = new FrameRateGovernor(MIN_FPS, MAX_FPS);
+        int range = feed(governor, 11f, 6);
+        assertEquals(0, range);
+        assertEquals(15, governor.getMaxFps(governor.getCurrentRange()));
+        assertEquals(11f, governor.getThroughput(), 0.5f);
+    }
+
+    @Test
+    public void keepsRangeWhenInferenceHasHeadroom() {
+        FrameRateGovernor governor = new FrameRateGovernor(MIN_FPS, MAX_FPS);
+        // 22 * 1.2 > 24, 仍然需要 30
+        assertEquals(-1, feed(governor, 22f, 10));
+        assertEquals(4, governor.getCurrentRange());
+    }
+
+    @Test
+    public void waitsForSustainedChange() {
+        FrameRateGovernor governor = new FrameRateGovernor(MIN_FPS, MAX_FPS);
+        // 一个窗口的慢速不切换
+        feed(governor, 25f, 2);
+        assertEquals(-1, feed(governor, 8f, 2));
+        assertEquals(-1, feed(governor, 25f, 3));
+        assertEquals(4, governor.getCurrentRange());
+    }
+
+    @Test
+    public void probesUpWhenSensorIsTheBottleneck() {
+        FrameRateGovernor governor = new FrameRateGovernor(MIN_FPS, MAX_FPS);
+        assertEquals(0, feed(governor, 11f, 6));
+
+        // 推理变快后结果数被 15 fps 的传感器卡住, 先试 24 再试 30
+        assertEquals(3, feed(governor, 15f, 5));
+        assertEquals(4, feed(governor, 24f, 5));
+        assertEquals(-1, feed(governor, 28f, 10));
+        assertEquals(4, governor.getCurrentRange());
+    }
+
+    @Test
+    public void doesNotOscillateAroundBoundary() {
+        FrameRateGovernor governor = new FrameRateGovernor(MIN_FPS, MAX_FPS);
+        int switches = 0;
+        for (int i = 0; i < 20; i++) {
+            if (feed(governor, 13f, 1) >= 0) {
+                switches++;
+            }
+        }
+        // 13 * 1.2 > 15, 一直留在 24 或以上, 最多切一次
+        assertTrue(switches <= 1);
+        assertTrue(governor.getMaxFps(governor.getCurrentRange()) >= 24);
+    }
+
+    @Test
+    public void selectsLowestCoveringRange() {
+        FrameRateGovernor governor = new FrameRateGovernor(MIN_FPS, MAX_FPS);
+        assertEquals(5, governor.select(9f));
+        assertEquals(0, governor.select(12f));
+        assertEquals(3, governor.select(20f));
+        assertEquals(4, governor.select(100f));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyRanges() {
+        new FrameRateGovernor(new int[0], new int[0]);
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.mediapipecamera2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrameSchedulerTest {
+
+    /** 记录收到的帧, 代替 hands.send */
+    private static class FakeSink implements FrameScheduler.Sink<String> {
+        final List<String> frames = new ArrayList<>();
+        final List<Long> timestamps = new ArrayList<>();
+
+        @Override
+        public void send(String frame, long timestamp) {
+            frames.add(frame);
+            timestamps.add(timestamp);
+        }
+    }
+
+    private FakeSink sink;
+    private List<String> dropped;
+    private List<String> completed;
+    private FrameScheduler<String> scheduler;
+
+    @Before
+    public void setUp() {
+        sink = new FakeSink();
+        dropped = new ArrayList<>();
+        scheduler = new FrameScheduler<>(2, sink, Runnable::run);
+        scheduler.setOnFrameDroppedListener((frame, timestamp) -> dropped.add(frame));
+        completed = new ArrayList<>();
+        scheduler.setOnFrameCompletedListener((frame, timestamp) -> completed.add(frame));
+    }
+
+    @Test
+    public void sendsWhileBelowMaxInFlight() {
+        scheduler.submit("a", 1);
+        scheduler.submit("b", 2);
+
+        assertEquals(2, sink.frames.size());
+        assertEquals(2, scheduler.getInFlight());
+        assertEquals(0, scheduler.getDroppedCount());
+    }
+
+    @Test
+    public void keepsOnlyLatestPendingFrame() {
+        scheduler.submit("a", 1);
+        scheduler.submit("b", 2);
+        scheduler.submit("c", 3);
+        scheduler.submit("d", 4);
+        scheduler.submit("e", 5);
+
+        assertEquals(2, sink.frames.size());
+        assertEquals(2, scheduler.getDroppedCount());
+        assertEquals("c", dropped.get(0));
+        assertEquals("d", dropped.get(1));
+
+        // 结果回来后, 等待中的最新帧立即发送
+        scheduler.onResult(1);
+        assertEquals(3, sink.frames.size());
+        assertEquals("e", sink.frames.get(2));
+        assertEquals(2, scheduler.getInFlight());
+        assertEquals(1, scheduler.getCompletedCount());
+    }
+
+    @Test
+    public void resultCompletesEarlierFramesDroppedByGraph() {
+        scheduler.submit("a", 1);
+        scheduler.submit("b", 2);
+
+        // 第 1 帧在 graph 里被丢掉, 只有第 2 帧的结果
+        scheduler.onResult(2);
+        assertEquals(0, scheduler.getInFlight());
+        assertEquals(2, scheduler.getCompletedCount());
+    }
+
+    @Test
+    public void timestampsReachSinkInOrder() {
+        for (int i = 1; i <= 20; i++) {
+            scheduler.submit("f" + i, i);
+            if (i % 3 == 0) {
+                scheduler.onResult(sink.timestamps.get(sink.timestamps.size() - 1));
+            }
+        }
+        for (int i = 1; i < sink.timestamps.size(); i++) {
+            assertTrue(sink.timestamps.get(i) > sink.timestamps.get(i - 1));
+        }
+        // 每一帧要么发送, 要么丢弃, 最多还有一帧在等待
+        long pending = scheduler.getSubmittedCount() - scheduler.getSentCount() - scheduler.getDroppedCount();
+        assertEquals(20, scheduler.getSubmittedCount());
+        assertTrue(pending == 0 || pending == 1);
+    }
+
+    @Test
+    public void resetDropsPendingFrame() {
+        scheduler.submit("a", 1);
+        scheduler.submit("b", 2);
+        scheduler.submit("c", 3);
+
+        scheduler.reset();
+        assertEquals(0, scheduler.getInFlight());
+        assertEquals(1, scheduler.getDroppedCount());
+        assertEquals("c", dropped.get(0));
+
+        scheduler.submit("d", 4);
+        assertEquals("d", sink.frames.get(sink.frames.size() - 1));
+    }
+
+    @Test
+    public void everyFrameIsEitherDroppedOrCompleted() {
+        scheduler.submit("a", 1);
+        scheduler.submit("b", 2);
+        scheduler.submit("c", 3);
+        scheduler.onResult(2);
+        scheduler.submit("d", 4);
+        scheduler.submit("e", 5);
+        scheduler.reset();
+
+        // c 和 d 在途, e 在等待
+        assertEquals(Collections.singletonList("e"), dropped);
+        // 重置时在途的帧也算完成, 不会漏掉
+        assertEquals(Arrays.asList("a", "b", "c", "d"), completed);
+    }
+
+    @Test
+    public void resetCompletesInFlightFramesAfterQueuedSends() {
+        List<Runnable> queued = new ArrayList<>();
+        FrameScheduler<String> queuedScheduler = new FrameScheduler<>(2, sink, queued::add);
+        queuedScheduler.setOnFrameCompletedListener((frame, timestamp) -> completed.add(frame));
+        queuedScheduler.submit("a", 1);
+        queuedScheduler.reset();
+        assertTrue(completed.isEmpty());
+
+        for (Runnable r : queued) {
+            r.run();
+        }
+        assertEquals(Collections.singletonList("a"), sink.frames);
+        assertEquals(Collections.singletonList("a"), completed);
+    }
+
+    @Test
+    public void failedSendsFreeTheirSlots() {
+        List<Runnable> queued = new ArrayList<>();
+        List<Long> failures = new ArrayList<>();
+        // graph 已经关闭, 前两帧 send 抛出异常
+        FrameScheduler<String> failing = new FrameScheduler<>(2, (frame, timestamp) -> {
+            if (timestamp <= 2) {
+                throw new IllegalStateException("graph closed");
+            }
+            sink.send(frame, timestamp);
+        }, queued::add);
+        failing.setOnFrameCompletedListener((frame, timestamp) -> completed.add(frame));
+        failing.setOnSendFailedListener((timestamp, e) -> failures.add(timestamp));
+        failing.submit("a", 1);
+        failing.submit("b", 2);
+        failing.submit("c", 3);
+
+        while (!queued.isEmpty()) {
+            queued.remove(0).run();
+        }
+        assertEquals(Arrays.asList(1L, 2L), failures);
+        assertEquals(Arrays.asList("a", "b"), completed);
+        assertEquals(2, failing.getFailedCount());
+        // 失败的帧腾出位置, 等待的帧照常发送
+        assertEquals(Collections.singletonList("c"), sink.frames);
+        assertEquals(1, failing.getInFlight());
+
+        failing.submit("d", 4);
+        assertEquals(2, failing.getInFlight());
+        queued.remove(0).run();
+        assertEquals(Arrays.asList("c", "d"), sink.frames);
+    }
+
+    @Test
+    public void sendFailureAfterResetIsIgnored() {
+        scheduler.submit("a", 1);
+        scheduler.reset();
+        scheduler.onSendFailed(1);
+        assertEquals(0, scheduler.getFailedCount());
+        assertEquals(Collections.singletonList("a"), completed);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroMaxInFlight() {
+        new FrameScheduler<>(0, sink, Runnable::run);
+    }
+}
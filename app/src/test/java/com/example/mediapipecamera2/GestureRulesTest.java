@@ -0,0 +1,90 @@
+package com.example.mediapipecamera2;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class GestureRulesTest {
+
+    private static final int R0 = 1 << GestureTable.RELATION_SHIFT;
+    private static final int R1 = R0 << 1;
+
+    private static GestureTable parse(String rules) throws IOException {
+        return GestureRules.parse(new StringReader(rules));
+    }
+
+    private static String parseError(String rules) throws IOException {
+        try {
+            parse(rules);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        fail("expected error for " + rules);
+        return null;
+    }
+
+    @Test
+    public void countRuleMatchesCountingTable() throws IOException {
+        GestureTable rules = parse("# 数数\n\nCOUNT palm=front  # 反面不识别\n");
+        GestureTable counting = GestureTable.counting();
+        assertEquals(counting.size(), rules.size());
+        for (int features = 0; features < counting.size(); features++) {
+            assertEquals(counting.classify(features), rules.classify(features));
+        }
+    }
+
+    @Test
+    public void firstMatchingRuleWins() throws IOException {
+        GestureTable table = parse("THUMBS_UP thumb=straight index=bent\nNONE palm=back\nCOUNT");
+        assertEquals(Gesture.THUMBS_UP, table.classify(GestureTable.THUMB));
+        assertEquals(Gesture.THUMBS_UP, table.classify(GestureTable.THUMB | GestureTable.PALM_FRONT));
+        assertEquals(Gesture.TWO, table.classify(GestureTable.THUMB | GestureTable.INDEX | GestureTable.PALM_FRONT));
+        assertNull(table.classify(GestureTable.THUMB | GestureTable.INDEX));
+    }
+
+    @Test
+    public void sharesBitsBetweenEqualRelations() throws IOException {
+        GestureTable table = parse("OK near(4,8) above(8,4)\nROCK !near(4,8)\nFIVE above(4,8)");
+        assertEquals(3, table.getRelationCount());
+        assertEquals(1 << (GestureTable.RELATION_SHIFT + 3), table.size());
+        assertEquals(Gesture.OK, table.classify(R0 | R1));
+        assertEquals(Gesture.ROCK, table.classify(R1));
+        assertEquals(Gesture.ROCK, table.classify(0));
+        assertNull(table.classify(R0));
+        assertEquals(Gesture.FIVE, table.classify(R0 | R1 << 1));
+    }
+
+    @Test
+    public void definePatchesEveryRelationCombination() throws IOException {
+        GestureTable table = parse("OK near(4,8)\nCOUNT palm=front").define(GestureTable.INDEX, Gesture.ROCK);
+        assertEquals(Gesture.ROCK, table.classify(GestureTable.INDEX | GestureTable.PALM_FRONT));
+        assertEquals(Gesture.ROCK, table.classify(GestureTable.INDEX | GestureTable.PALM_FRONT | R0));
+        assertEquals(Gesture.OK, table.classify(GestureTable.INDEX | R0));
+    }
+
+    @Test
+    public void rejectsCountsOnlyTwoHandsCanShow() throws IOException {
+        assertTrue(parseError("FIVE\nSEVEN thumb=straight").startsWith("line 2: Gesture SEVEN is only a sum"));
+        assertTrue(parseError("TEN").contains("at most 5"));
+        assertEquals(Gesture.FIVE, parse("FIVE").classify(0));
+    }
+
+    @Test
+    public void reportsLineOfInvalidRule() throws IOException {
+        assertTrue(parseError("COUNT\n\nWAVE palm=front").startsWith("line 3: Unknown gesture"));
+        assertTrue(parseError("OK palm=up").startsWith("line 1: Expected front or back"));
+        assertTrue(parseError("OK index=straight index=bent").contains("Conflicting"));
+        assertTrue(parseError("OK near(4,21)").contains("Invalid landmark"));
+        assertTrue(parseError("OK touch(4,8)").contains("Unknown relation"));
+        assertTrue(parseError("OK wrist=front").contains("Unknown condition"));
+
+        StringBuilder rules = new StringBuilder();
+        for (int i = 0; i <= GestureTable.MAX_RELATIONS; i++) {
+            rules.append("OK above(0,").append(i + 1).append(")\n");
+        }
+        assertTrue(parseError(rules.toString()).startsWith("line 11: Too many relations"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.mediapipecamera2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GlyphAtlasTest {
+
+    private static final int F = GlyphAtlas.FLOATS_PER_VERTEX;
+    private static final int LINE_HEIGHT = 20;
+    private static final int PADDING = 2;
+
+    /** A 宽 10, B 宽 14, C 宽 9.5, 每行最多 32 像素 */
+    private final GlyphAtlas atlas = new GlyphAtlas("ABC", new float[]{10f, 14f, 9.5f}, LINE_HEIGHT, PADDING, 32);
+
+    @Test
+    public void packsCellsInsidePowerOfTwoAtlasWithoutOverlap() {
+        // 格子宽 14, 18, 14: A B 一行, C 换行
+        assertEquals(32, atlas.getWidth());
+        assertEquals(64, atlas.getHeight());
+        assertEquals(0, atlas.getCellX(0));
+        assertEquals(14, atlas.getCellX(1));
+        assertEquals(0, atlas.getCellY(1));
+        assertEquals(0, atlas.getCellX(2));
+        assertEquals(LINE_HEIGHT + 2 * PADDING, atlas.getCellY(2));
+        assertEquals(2, atlas.indexOf('C'));
+        assertEquals(-1, atlas.indexOf('D'));
+    }
+
+    @Test
+    public void layoutWritesQuadsWithAtlasUv() {
+        float[] out = new float[4 * GlyphAtlas.VERTICES_PER_GLYPH * F];
+        int count = atlas.layout("AB", 100f, 50f, out);
+
+        assertEquals(2 * GlyphAtlas.VERTICES_PER_GLYPH, count);
+        // A 的左上角, 含 padding
+        assertArrayEquals(new float[]{98f, 48f, 0f, 0f}, slice(out, 0), 1e-6f);
+        // A 的右下角
+        assertArrayEquals(new float[]{112f, 72f, 14f / 32, 24f / 64}, slice(out, 5), 1e-6f);
+        // B 紧跟在 A 的步进之后
+        assertArrayEquals(new float[]{108f, 48f, 14f / 32, 0f}, slice(out, 6), 1e-6f);
+        assertEquals(24f, atlas.measure("AB"), 0f);
+    }
+
+    @Test
+    public void unknownCharsAreSkippedAndOutputIsTruncated() {
+        float[] out = new float[2 * GlyphAtlas.VERTICES_PER_GLYPH * F];
+        int count = atlas.layout("A?C中B", 0f, 0f, out);
+
+        assertEquals(2 * GlyphAtlas.VERTICES_PER_GLYPH, count);
+        // ? 不占位置, C 紧跟在 A 之后
+        assertEquals(10f - PADDING, slice(out, 6)[0], 0f);
+        assertEquals(atlas.getCellY(2) / 64f, slice(out, 6)[3], 0f);
+        assertEquals(0, atlas.layout("", 0f, 0f, out));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateCharIsRejected() {
+        new GlyphAtlas("ABA", new float[]{1f, 1f, 1f}, LINE_HEIGHT, PADDING, 64);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void glyphWiderThanAtlasIsRejected() {
+        new GlyphAtlas("W", new float[]{40f}, LINE_HEIGHT, PADDING, 32);
+    }
+
+    private static float[] slice(float[] out, int vertex) {
+        float[] v = new float[F];
+        System.arraycopy(out, vertex * F, v, 0, F);
+        return v;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.mediapipecamera2;
+
+import com.google.mediapipe.formats.proto.ClassificationProto;
+import com.google.mediapipe.formats.proto.LandmarkProto;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HandSkeletonGeometryTest {
+
+    private static final int F = HandGeometryBuilder.FLOATS_PER_VERTEX;
+    private static final int SEGMENTS = 4;
+    private static final float[] LEFT_LINE = {0f, 1f, 0f, 1f};
+    private static final float[] LEFT_DOT = {1f, 0f, 0f, 1f};
+    private static final float[] LEFT_RING = {0f, 0f, 1f, 1f};
+    private static final float[] RIGHT = {1f, 1f, 1f, 0.5f};
+
+    private final HandSkeletonGeometry geometry = new HandSkeletonGeometry(new int[]{0, 1, 1, 2}, SEGMENTS, 0.01f, 0.02f)
+            .setColors(true, LEFT_LINE, LEFT_DOT, LEFT_RING)
+            .setColors(false, RIGHT, RIGHT, RIGHT);
+    private final float[] vertices = new float[geometry.getMaxVertexCount() * F];
+
+    /** 第 hand 只手的第 j 个点在 (0.1 * hand + 0.01 * j, 0.5) */
+    private static LandmarkSnapshot snapshot(String... labels) {
+        List<LandmarkProto.NormalizedLandmarkList> hands = new ArrayList<>();
+        List<ClassificationProto.Classification> handedness = new ArrayList<>();
+        for (int hand = 0; hand < labels.length; hand++) {
+            LandmarkProto.NormalizedLandmarkList.Builder builder = LandmarkProto.NormalizedLandmarkList.newBuilder();
+            for (int j = 0; j < HandFrame.NUM_LANDMARKS; j++) {
+                builder.addLandmark(LandmarkProto.NormalizedLandmark.newBuilder()
+                        .setX(0.1f * hand + 0.01f * j).setY(0.5f));
+            }
+            hands.add(builder.build());
+            handedness.add(ClassificationProto.Classification.newBuilder().setLabel(labels[hand]).setScore(0.9f).build());
+        }
+        LandmarkSnapshot snapshot = new LandmarkSnapshot();
+        snapshot.set(1L, 640, 480, hands, handedness);
+        return snapshot;
+    }
+
+    private void assertVertex(int v, float x, float y, float[] color) {
+        assertEquals("x of " + v, x, vertices[v * F], 1e-6f);
+        assertEquals("y of " + v, y, vertices[v * F + 1], 1e-6f);
+        for (int c = 0; c < 4; c++) {
+            assertEquals("color of " + v, color[c], vertices[v * F + 2 + c], 0f);
+        }
+    }
+
+    @Test
+    public void writesLinesThenTriangles() {
+        geometry.build(snapshot("Left"), vertices);
+        int n = HandFrame.NUM_LANDMARKS;
+        assertEquals(2 * 2 + n * SEGMENTS * 2, geometry.getLineVertexCount());
+        assertEquals(n * SEGMENTS * 3, geometry.getTriangleVertexCount());
+
+        // 连线 0 -> 1, 1 -> 2
+        assertVertex(0, 0f, 0.5f, LEFT_LINE);
+        assertVertex(1, 0.01f, 0.5f, LEFT_LINE);
+        assertVertex(3, 0.02f, 0.5f, LEFT_LINE);
+        // 关键点 0 的空心圆: 从 0 度到 90 度的一段
+        assertVertex(4, 0.02f, 0.5f, LEFT_RING);
+        assertVertex(5, 0f, 0.52f, LEFT_RING);
+        // 实心圆: 圆心和圆周上相邻两点
+        int t = geometry.getLineVertexCount();
+        assertVertex(t, 0f, 0.5f, LEFT_DOT);
+        assertVertex(t + 1, 0.01f, 0.5f, LEFT_DOT);
+        assertVertex(t + 2, 0f, 0.51f, LEFT_DOT);
+        // 最后一个三角形的最后一点回到 0 度
+        int last = t + geometry.getTriangleVertexCount() - 1;
+        assertVertex(last, 0.2f + 0.01f, 0.5f, LEFT_DOT);
+    }
+
+    @Test
+    public void colorsEachHandAndFitsTwoHands() {
+        geometry.build(snapshot("Left", "Right"), vertices);
+        int perHandLines = 2 * 2 + HandFrame.NUM_LANDMARKS * SEGMENTS * 2;
+        assertEquals(2 * perHandLines, geometry.getLineVertexCount());
+        // 两只完整的手正好用满预分配的顶点
+        assertEquals(geometry.getMaxVertexCount(),
+                geometry.getLineVertexCount() + geometry.getTriangleVertexCount());
+        assertVertex(perHandLines, 0.1f, 0.5f, RIGHT);
+        assertVertex(geometry.getLineVertexCount() + HandFrame.NUM_LANDMARKS * SEGMENTS * 3, 0.1f, 0.5f, RIGHT);
+    }
+
+    @Test
+    public void emptySnapshotWritesNothing() {
+        geometry.build(snapshot("Left"), vertices);
+        geometry.build(snapshot(), vertices);
+        assertEquals(0, geometry.getLineVertexCount());
+        assertEquals(0, geometry.getTriangleVertexCount());
+    }
+
+    @Test
+    public void skipsConnectionsToMissingLandmarks() {
+        LandmarkSnapshot snapshot = new LandmarkSnapshot();
+        LandmarkProto.NormalizedLandmarkList.Builder builder = LandmarkProto.NormalizedLandmarkList.newBuilder();
+        builder.addLandmark(LandmarkProto.NormalizedLandmark.newBuilder().setX(0.3f).setY(0.3f));
+        builder.addLandmark(LandmarkProto.NormalizedLandmark.newBuilder().setX(0.4f).setY(0.4f));
+        snapshot.set(1L, 640, 480, Collections.singletonList(builder.build()),
+                Collections.singletonList(ClassificationProto.Classification.newBuilder().setLabel("Right").build()));
+        geometry.build(snapshot, vertices);
+        assertEquals(2 + 2 * SEGMENTS * 2, geometry.getLineVertexCount());
+        assertVertex(0, 0.3f, 0.3f, RIGHT);
+        assertVertex(1, 0.4f, 0.4f, RIGHT);
+    }
+}
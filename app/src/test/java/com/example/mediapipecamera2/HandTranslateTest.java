@@ -0,0 +1,201 @@
+package com.example.mediapipecamera2;
+
+import com.google.mediapipe.formats.proto.ClassificationProto;
+import com.google.mediapipe.formats.proto.LandmarkProto;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HandTranslateTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    // 后置摄像头下张开的右手 (5)
+    private static final float[][] OPEN_RIGHT = {
+            {0.50f, 0.80f},
+            {0.56f, 0.75f}, {0.61f, 0.70f}, {0.65f, 0.65f}, {0.69f, 0.61f},
+            {0.56f, 0.55f}, {0.57f, 0.46f}, {0.58f, 0.40f}, {0.59f, 0.35f},
+            {0.50f, 0.54f}, {0.50f, 0.44f}, {0.50f, 0.37f}, {0.50f, 0.31f},
+            {0.45f, 0.56f}, {0.44f, 0.47f}, {0.43f, 0.41f}, {0.42f, 0.36f},
+            {0.40f, 0.60f}, {0.38f, 0.53f}, {0.37f, 0.49f}, {0.36f, 0.45f},
+    };
+
+    // 后置摄像头下比 "2" 的左手
+    private static final float[][] PEACE_LEFT = {
+            {0.25f, 0.82f},
+            {0.20f, 0.77f}, {0.16f, 0.73f}, {0.17f, 0.69f}, {0.20f, 0.67f},
+            {0.21f, 0.58f}, {0.19f, 0.49f}, {0.18f, 0.43f}, {0.17f, 0.38f},
+            {0.26f, 0.57f}, {0.27f, 0.47f}, {0.27f, 0.40f}, {0.28f, 0.34f},
+            {0.30f, 0.59f}, {0.31f, 0.55f}, {0.30f, 0.62f}, {0.29f, 0.66f},
+            {0.34f, 0.62f}, {0.35f, 0.59f}, {0.34f, 0.65f}, {0.33f, 0.68f},
+    };
+
+    // 后置摄像头下比 OK 的右手: 食指弯曲, 指尖与大拇指指尖捏在一起
+    private static final float[][] OK_RIGHT = {
+            {0.50f, 0.80f},
+            {0.56f, 0.75f}, {0.61f, 0.70f}, {0.65f, 0.65f}, {0.63f, 0.57f},
+            {0.56f, 0.55f}, {0.58f, 0.48f}, {0.61f, 0.50f}, {0.62f, 0.55f},
+            {0.50f, 0.54f}, {0.50f, 0.44f}, {0.50f, 0.37f}, {0.50f, 0.31f},
+            {0.45f, 0.56f}, {0.44f, 0.47f}, {0.43f, 0.41f}, {0.42f, 0.36f},
+            {0.40f, 0.60f}, {0.38f, 0.53f}, {0.37f, 0.49f}, {0.36f, 0.45f},
+    };
+
+    private final List<LandmarkProto.NormalizedLandmarkList> landmarks = new ArrayList<>();
+    private final List<ClassificationProto.Classification> handedness = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        HandTranslate.INSTANCE.setFaceingID(0);
+        HandTranslate.INSTANCE.setGestureTable(GestureTable.counting());
+    }
+
+    @After
+    public void tearDown() {
+        HandTranslate.INSTANCE.setFaceingID(1);
+        HandTranslate.INSTANCE.setGestureTable(GestureTable.counting());
+    }
+
+    private void addHand(float[][] points, String label) {
+        LandmarkProto.NormalizedLandmarkList.Builder builder = LandmarkProto.NormalizedLandmarkList.newBuilder();
+        for (float[] point : points) {
+            builder.addLandmark(LandmarkProto.NormalizedLandmark.newBuilder().setX(point[0]).setY(point[1]));
+        }
+        landmarks.add(builder.build());
+        handedness.add(ClassificationProto.Classification.newBuilder().setLabel(label).setScore(0.95f).build());
+    }
+
+    private Gesture recognize() {
+        return HandTranslate.INSTANCE.handGesture(landmarks, handedness, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void recognizesSingleHands() {
+        addHand(OPEN_RIGHT, "Right");
+        assertEquals(Gesture.FIVE, recognize());
+
+        landmarks.clear();
+        handedness.clear();
+        addHand(PEACE_LEFT, "Left");
+        assertEquals(Gesture.TWO, recognize());
+        assertEquals(1, HandTranslate.INSTANCE.getHandCount());
+    }
+
+    @Test
+    public void addsCountsOfBothHands() {
+        addHand(PEACE_LEFT, "Left");
+        addHand(OPEN_RIGHT, "Right");
+        assertEquals(Gesture.SEVEN, recognize());
+        assertEquals(2, HandTranslate.INSTANCE.getHandCount());
+        assertEquals(Gesture.TWO, HandTranslate.INSTANCE.getHandGesture(0));
+        assertEquals(Gesture.FIVE, HandTranslate.INSTANCE.getHandGesture(1));
+        assertEquals(HandFrame.Handedness.LEFT, HandTranslate.INSTANCE.getHand(0).getHandedness());
+    }
+
+    @Test
+    public void rightHandWinsForNonCountGestures() {
+        HandTranslate.INSTANCE.setGestureTable(GestureTable.counting()
+                .define(GestureTable.THUMB | GestureTable.INDEX | GestureTable.MIDDLE
+                        | GestureTable.RING | GestureTable.PINKY, Gesture.OK));
+        addHand(PEACE_LEFT, "Left");
+        addHand(OPEN_RIGHT, "Right");
+        assertEquals(Gesture.OK, recognize());
+    }
+
+    @Test
+    public void rulesRecognizeOkByFingertipDistance() throws IOException {
+        addHand(OK_RIGHT, "Right");
+        assertEquals(Gesture.THREE, recognize());
+
+        HandTranslate.INSTANCE.setGestureTable(GestureRules.parse(new StringReader(
+                "OK palm=front middle=straight ring=straight pinky=straight near(4,8)\nCOUNT palm=front")));
+        assertEquals(Gesture.OK, recognize());
+
+        // 指尖分开时仍然是 3
+        landmarks.clear();
+        handedness.clear();
+        float[][] apart = OK_RIGHT.clone();
+        apart[4] = new float[]{0.60f, 0.66f};
+        addHand(apart, "Right");
+        assertEquals(Gesture.THREE, recognize());
+    }
+
+    @Test
+    public void ignoresLowConfidenceHand() {
+        addHand(OPEN_RIGHT, "Right");
+        addHand(PEACE_LEFT, "Left");
+        handedness.set(1, handedness.get(1).toBuilder().setScore(0.5f).build());
+        assertEquals(Gesture.FIVE, recognize());
+        assertEquals(1, HandTranslate.INSTANCE.getHandCount());
+    }
+
+    private LandmarkSnapshot snapshot() {
+        LandmarkSnapshot snapshot = new LandmarkSnapshot();
+        snapshot.set(1L, WIDTH, HEIGHT, landmarks, handedness);
+        return snapshot;
+    }
+
+    @Test
+    public void mirroredSnapshotMatchesFrontCameraSwap() {
+        // 前置摄像头原始帧上模型给出的标签是反的, 原来靠 faceingID 交换
+        addHand(OPEN_RIGHT, "Left");
+        addHand(PEACE_LEFT, "Right");
+        HandTranslate.INSTANCE.setFaceingID(1);
+        Gesture expected = recognize();
+        assertEquals(Gesture.SEVEN, expected);
+
+        LandmarkSnapshot snapshot = snapshot();
+        new LandmarkTransform(0, true).apply(snapshot);
+        assertEquals(expected, HandTranslate.INSTANCE.handGesture(snapshot));
+        assertEquals(HandFrame.Handedness.RIGHT, HandTranslate.INSTANCE.getHand(0).getHandedness());
+    }
+
+    @Test
+    public void recognizesRotatedFrameAfterTransform() {
+        addHand(OPEN_RIGHT, "Right");
+        LandmarkSnapshot snapshot = snapshot();
+        // 模拟传感器方向的原始帧: 需要顺时针转 90 度才是正的
+        new LandmarkTransform(270, false).apply(snapshot);
+        assertNotEquals(Gesture.FIVE, HandTranslate.INSTANCE.handGesture(snapshot));
+
+        new LandmarkTransform(90, false).apply(snapshot);
+        assertEquals(WIDTH, snapshot.getWidth());
+        assertEquals(Gesture.FIVE, HandTranslate.INSTANCE.handGesture(snapshot));
+    }
+
+    @Test
+    public void copiedSnapshotIsIndependent() {
+        addHand(OPEN_RIGHT, "Right");
+        addHand(PEACE_LEFT, "Left");
+        LandmarkSnapshot original = snapshot();
+        LandmarkSnapshot copy = new LandmarkSnapshot();
+        copy.copyFrom(original);
+        assertEquals(2, copy.getHandCount());
+        assertEquals(original.getX(1, 20), copy.getX(1, 20), 0f);
+        assertEquals(HandFrame.Handedness.LEFT, copy.getHandedness(1));
+
+        new LandmarkTransform(90, true).apply(copy);
+        assertFalse(original.isMirrored());
+        assertEquals(OPEN_RIGHT[8][0], original.getX(0, 8), 0f);
+        assertEquals(Gesture.SEVEN, HandTranslate.INSTANCE.handGesture(original));
+    }
+
+    @Test
+    public void combinesCounts() {
+        assertEquals(Gesture.TEN, Gesture.combine(Gesture.FIVE, Gesture.FIVE));
+        // 超过 10 时不越界, 取 primary
+        assertEquals(Gesture.SEVEN, Gesture.combine(Gesture.SEVEN, Gesture.FIVE));
+        assertEquals(Gesture.ZERO, Gesture.combine(Gesture.ZERO, Gesture.ZERO));
+        assertEquals(Gesture.ROCK, Gesture.combine(Gesture.ROCK, Gesture.THREE));
+        assertEquals(Gesture.THREE, Gesture.combine(null, Gesture.THREE));
+        assertNull(Gesture.combine(null, null));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.mediapipecamera2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InputScaleControllerTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long TARGET = 40 * MS;
+
+    /** 送一个完整窗口的相同耗时, 返回窗口结束时是否切换 */
+    private static boolean window(InputScaleController controller, long nanos) {
+        boolean changed = false;
+        for (int i = 0; i < InputScaleController.WINDOW; i++) {
+            changed = controller.onInferenceLatency(nanos);
+        }
+        return changed;
+    }
+
+    @Test
+    public void startsAtFullScale() {
+        InputScaleController controller = new InputScaleController(TARGET, InputScaleController.DEFAULT_SCALES);
+        assertEquals(1f, controller.getScale(), 0f);
+    }
+
+    @Test
+    public void stepsDownOneLevelPerWindowWhileOverBudget() {
+        InputScaleController controller = new InputScaleController(TARGET, InputScaleController.DEFAULT_SCALES);
+        assertTrue(window(controller, 60 * MS));
+        assertEquals(0.75f, controller.getScale(), 0f);
+        assertTrue(window(controller, 50 * MS));
+        assertEquals(0.5f, controller.getScale(), 0f);
+        // 已经是最小一档
+        assertFalse(window(controller, 50 * MS));
+        assertEquals(0.5f, controller.getScale(), 0f);
+    }
+
+    @Test
+    public void decidesOnP95NotAverage() {
+        InputScaleController controller = new InputScaleController(TARGET, InputScaleController.DEFAULT_SCALES);
+        // 10% 的帧超预算, 平均值远低于目标, p95 超出
+        for (int i = 0; i < InputScaleController.WINDOW; i++) {
+            controller.onInferenceLatency(i % 10 == 0 ? 80 * MS : 10 * MS);
+        }
+        assertEquals(1, controller.getLevel());
+    }
+
+    @Test
+    public void stepsUpOnlyWithHeadroom() {
+        InputScaleController controller = new InputScaleController(TARGET, InputScaleController.DEFAULT_SCALES);
+        window(controller, 60 * MS);
+        assertEquals(1, controller.getLevel());
+
+        // 30 ms 放大到 1.0 约为 30 * 1.78 = 53 ms, 超出预算, 保持
+        assertFalse(window(controller, 30 * MS));
+        assertEquals(1, controller.getLevel());
+
+        // 15 ms 放大后约 27 ms, 低于 40 * 0.8, 升一档
+        assertTrue(window(controller, 15 * MS));
+        assertEquals(0, controller.getLevel());
+    }
+
+    @Test
+    public void waitsForFullWindow() {
+        InputScaleController controller = new InputScaleController(TARGET, InputScaleController.DEFAULT_SCALES);
+        for (int i = 0; i < InputScaleController.WINDOW - 1; i++) {
+            assertFalse(controller.onInferenceLatency(100 * MS));
+        }
+        assertEquals(0, controller.getLevel());
+    }
+
+    @Test
+    public void resetReturnsToFullScale() {
+        InputScaleController controller = new InputScaleController(TARGET, InputScaleController.DEFAULT_SCALES);
+        window(controller, 60 * MS);
+        controller.reset();
+        assertEquals(1f, controller.getScale(), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAscendingScales() {
+        new InputScaleController(TARGET, 0.5f, 1f);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.mediapipecamera2;
+
+import com.google.mediapipe.formats.proto.ClassificationProto;
+import com.google.mediapipe.formats.proto.LandmarkProto;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LandmarkRecordingTest {
+
+    // 16 位量化后的误差上限
+    private static final float EPSILON = 1e-4f;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static LandmarkProto.NormalizedLandmarkList hand(float offset, int count) {
+        LandmarkProto.NormalizedLandmarkList.Builder builder = LandmarkProto.NormalizedLandmarkList.newBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.addLandmark(LandmarkProto.NormalizedLandmark.newBuilder()
+                    .setX(offset + i * 0.01f)
+                    .setY(1f - i * 0.02f)
+                    .setZ(-0.05f + i * 0.004f));
+        }
+        return builder.build();
+    }
+
+    private static ClassificationProto.Classification handedness(String label, float score) {
+        return ClassificationProto.Classification.newBuilder().setLabel(label).setScore(score).build();
+    }
+
+    @Test
+    public void roundTripsLandmarks() throws IOException {
+        File file = folder.newFile("a.hlm");
+        List<LandmarkProto.NormalizedLandmarkList> hands = new ArrayList<>();
+        hands.add(hand(0.1f, 21));
+        hands.add(hand(0.5f, 21));
+        List<ClassificationProto.Classification> labels = new ArrayList<>();
+        labels.add(handedness("Left", 0.9f));
+        labels.add(handedness("Right\n", 0.85f));
+
+        try (LandmarkRecorder recorder = new LandmarkRecorder(file)) {
+            recorder.record(1000L, 640, 480, hands, labels);
+            recorder.record(2000L, 640, 480, Collections.emptyList(), Collections.emptyList());
+            assertEquals(2, recorder.getRecordCount());
+        }
+
+        try (LandmarkReplayer replayer = new LandmarkReplayer(file)) {
+            assertEquals(2, replayer.getFrameCount());
+            LandmarkSnapshot frame = replayer.read(0, new LandmarkSnapshot());
+            assertEquals(1000L, frame.getTimestamp());
+            assertEquals(640, frame.getWidth());
+            assertEquals(480, frame.getHeight());
+            assertEquals(2, frame.getHandCount());
+            assertEquals(HandFrame.Handedness.LEFT, frame.getHandedness(0));
+            assertEquals(HandFrame.Handedness.RIGHT, frame.getHandedness(1));
+            assertEquals(0.9f, frame.getScore(0), EPSILON);
+            assertEquals(0.85f, frame.getScore(1), EPSILON);
+            for (int h = 0; h < 2; h++) {
+                assertEquals(21, frame.getLandmarkCount(h));
+                for (int j = 0; j < 21; j++) {
+                    LandmarkProto.NormalizedLandmark expected = hands.get(h).getLandmark(j);
+                    assertEquals(expected.getX(), frame.getX(h, j), EPSILON);
+                    assertEquals(expected.getY(), frame.getY(h, j), EPSILON);
+                    assertEquals(expected.getZ(), frame.getZ(h, j), EPSILON);
+                }
+            }
+
+            replayer.read(1, frame);
+            assertEquals(2000L, frame.getTimestamp());
+            assertEquals(0, frame.getHandCount());
+        }
+    }
+
+    @Test
+    public void replayedProtosGiveSameGesture() throws IOException {
+        File file = folder.newFile("b.hlm");
+        List<LandmarkProto.NormalizedLandmarkList> hands = Collections.singletonList(hand(0.2f, 21));
+        List<ClassificationProto.Classification> labels = Collections.singletonList(handedness("Right", 0.95f));
+        try (LandmarkRecorder recorder = new LandmarkRecorder(file)) {
+            recorder.record(1L, 480, 640, hands, labels);
+        }
+        Gesture expected = HandTranslate.INSTANCE.handGesture(hands, labels, 480, 640);
+
+        List<LandmarkProto.NormalizedLandmarkList> replayedHands = new ArrayList<>();
+        List<ClassificationProto.Classification> replayedLabels = new ArrayList<>();
+        List<Gesture> gestures = new ArrayList<>();
+        try (LandmarkReplayer replayer = new LandmarkReplayer(file)) {
+            replayer.replay(frame -> {
+                frame.toProtos(replayedHands, replayedLabels);
+                gestures.add(HandTranslate.INSTANCE.handGesture(
+                        replayedHands, replayedLabels, frame.getWidth(), frame.getHeight()));
+            }, false);
+        }
+        assertEquals(Collections.singletonList(expected), gestures);
+    }
+
+    @Test
+    public void recordsTransformedCopyWithoutChangingSnapshot() throws IOException {
+        File file = folder.newFile("e.hlm");
+        LandmarkSnapshot snapshot = new LandmarkSnapshot();
+        snapshot.set(1L, 640, 480, Collections.singletonList(hand(0.1f, 21)),
+                Collections.singletonList(handedness("Left", 0.9f)));
+        try (LandmarkRecorder recorder = new LandmarkRecorder(file)) {
+            recorder.record(snapshot, new LandmarkTransform(90, true));
+        }
+        // 结果线程上的快照接着交给识别线程, 不能被改动
+        assertFalse(snapshot.isMirrored());
+        assertEquals(640, snapshot.getWidth());
+        try (LandmarkReplayer replayer = new LandmarkReplayer(file)) {
+            LandmarkSnapshot frame = replayer.read(0, new LandmarkSnapshot());
+            assertTrue(frame.isMirrored());
+            assertEquals(480, frame.getWidth());
+            assertEquals(HandFrame.Handedness.RIGHT, frame.getHandedness(0));
+        }
+    }
+
+    @Test
+    public void keepsMirroredFlag() throws IOException {
+        File file = folder.newFile("d.hlm");
+        LandmarkSnapshot snapshot = new LandmarkSnapshot();
+        snapshot.set(1L, 640, 480, Collections.singletonList(hand(0.1f, 21)),
+                Collections.singletonList(handedness("Left", 0.9f)));
+        try (LandmarkRecorder recorder = new LandmarkRecorder(file)) {
+            recorder.record(snapshot);
+            new LandmarkTransform(90, true).apply(snapshot);
+            recorder.record(snapshot);
+        }
+        try (LandmarkReplayer replayer = new LandmarkReplayer(file)) {
+            LandmarkSnapshot frame = replayer.read(0, new LandmarkSnapshot());
+            assertFalse(frame.isMirrored());
+            replayer.read(1, frame);
+            assertTrue(frame.isMirrored());
+            assertEquals(480, frame.getWidth());
+            assertEquals(HandFrame.Handedness.RIGHT, frame.getHandedness(0));
+        }
+    }
+
+    @Test
+    public void keepsPartialHands() throws IOException {
+        File file = folder.newFile("c.hlm");
+        try (LandmarkRecorder recorder = new LandmarkRecorder(file)) {
+            recorder.record(1L, 1, 1, Collections.singletonList(hand(0f, 5)),
+                    Collections.singletonList(handedness("Left", 1f)));
+        }
+        try (LandmarkReplayer replayer = new LandmarkReplayer(file)) {
+            LandmarkSnapshot frame = replayer.read(0, new LandmarkSnapshot());
+            assertEquals(5, frame.getLandmarkCount(0));
+            List<LandmarkProto.NormalizedLandmarkList> replayedHands = new ArrayList<>();
+            frame.toProtos(replayedHands, new ArrayList<>());
+            assertEquals(5, replayedHands.get(0).getLandmarkCount());
+        }
+    }
+
+    @Test
+    public void clampsOutOfRangeValues() {
+        assertEquals(LandmarkRecording.XY_MIN, LandmarkRecording.dequantizeXY(LandmarkRecording.quantizeXY(-3f)), EPSILON);
+        assertEquals(LandmarkRecording.XY_MAX, LandmarkRecording.dequantizeXY(LandmarkRecording.quantizeXY(3f)), EPSILON);
+        assertEquals(1f, LandmarkRecording.dequantizeUnit(LandmarkRecording.quantizeUnit(2f)), EPSILON);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignFile() throws IOException {
+        File file = folder.newFile("d.hlm");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[64]);
+        }
+        new LandmarkReplayer(file).close();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.mediapipecamera2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LandmarkRingTest {
+
+    private static void offer(LandmarkRing ring, long timestamp) {
+        LandmarkSnapshot snapshot = ring.claim();
+        assertNotNull(snapshot);
+        snapshot.timestamp = timestamp;
+        ring.publish();
+    }
+
+    @Test
+    public void roundsCapacityUpToPowerOfTwo() {
+        assertEquals(8, new LandmarkRing(5).capacity());
+        assertEquals(4, new LandmarkRing(4).capacity());
+        assertEquals(1, new LandmarkRing(1).capacity());
+    }
+
+    @Test
+    public void deliversInOrder() {
+        LandmarkRing ring = new LandmarkRing(4);
+        assertNull(ring.peek());
+        offer(ring, 1);
+        offer(ring, 2);
+        assertEquals(2, ring.depth());
+
+        assertEquals(1, ring.peek().getTimestamp());
+        ring.release();
+        assertEquals(2, ring.peek().getTimestamp());
+        ring.release();
+        assertNull(ring.peek());
+        assertEquals(0, ring.depth());
+    }
+
+    @Test
+    public void dropsNewestWhenFull() {
+        LandmarkRing ring = new LandmarkRing(2);
+        offer(ring, 1);
+        offer(ring, 2);
+        assertNull(ring.claim());
+        assertEquals(1, ring.getDroppedCount());
+
+        // 消费一条后又能写入, 已排队的帧不受影响
+        assertEquals(1, ring.peek().getTimestamp());
+        ring.release();
+        offer(ring, 3);
+        assertEquals(2, ring.peek().getTimestamp());
+        ring.release();
+        assertEquals(3, ring.peek().getTimestamp());
+        ring.release();
+    }
+
+    @Test
+    public void tracksQueueDepth() {
+        LandmarkRing ring = new LandmarkRing(4);
+        offer(ring, 1);
+        offer(ring, 2);
+        offer(ring, 3);
+        ring.peek();
+        ring.release();
+        offer(ring, 4);
+
+        assertEquals(4, ring.getPublishedCount());
+        assertEquals(3, ring.getMaxDepth());
+        // 发布时的深度依次为 1, 2, 3, 3
+        assertEquals(9f / 4, ring.getAverageDepth(), 1e-6f);
+    }
+
+    @Test
+    public void producerAndConsumerOnDifferentThreads() throws InterruptedException {
+        final int count = 100_000;
+        LandmarkRing ring = new LandmarkRing(8);
+        long[] received = new long[count];
+        int[] receivedCount = new int[1];
+
+        Thread consumer = new Thread(() -> {
+            while (receivedCount[0] < count) {
+                LandmarkSnapshot snapshot = ring.peek();
+                if (snapshot == null) {
+                    Thread.yield();
+                    continue;
+                }
+                received[receivedCount[0]++] = snapshot.getTimestamp();
+                ring.release();
+            }
+        });
+        consumer.start();
+
+        for (long i = 0; i < count; ) {
+            LandmarkSnapshot snapshot = ring.claim();
+            if (snapshot == null) {
+                Thread.yield();
+                continue;
+            }
+            snapshot.timestamp = i++;
+            ring.publish();
+        }
+        consumer.join(10_000);
+
+        assertEquals(count, receivedCount[0]);
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, received[i]);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.mediapipecamera2;
+
+import com.google.mediapipe.formats.proto.ClassificationProto;
+import com.google.mediapipe.formats.proto.LandmarkProto;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LandmarkTransformTest {
+
+    private static final float EPSILON = 1e-6f;
+
+    // 原始帧左上角附近的点
+    private static final float X = 0.2f;
+    private static final float Y = 0.1f;
+
+    private static void assertMaps(int rotation, boolean mirror, float expectedX, float expectedY) {
+        LandmarkTransform transform = new LandmarkTransform(rotation, mirror);
+        assertEquals(transform.toString(), expectedX, transform.mapX(X, Y), EPSILON);
+        assertEquals(transform.toString(), expectedY, transform.mapY(X, Y), EPSILON);
+    }
+
+    @Test
+    public void rotate0() {
+        assertMaps(0, false, 0.2f, 0.1f);
+    }
+
+    @Test
+    public void rotate90() {
+        // 顺时针 90 度, 左上角到右上角
+        assertMaps(90, false, 0.9f, 0.2f);
+    }
+
+    @Test
+    public void rotate180() {
+        assertMaps(180, false, 0.8f, 0.9f);
+    }
+
+    @Test
+    public void rotate270() {
+        assertMaps(270, false, 0.1f, 0.8f);
+    }
+
+    @Test
+    public void mirror0() {
+        assertMaps(0, true, 0.8f, 0.1f);
+    }
+
+    @Test
+    public void mirror90() {
+        assertMaps(90, true, 0.9f, 0.8f);
+    }
+
+    @Test
+    public void mirror180() {
+        assertMaps(180, true, 0.2f, 0.9f);
+    }
+
+    @Test
+    public void mirror270() {
+        assertMaps(270, true, 0.1f, 0.2f);
+    }
+
+    @Test
+    public void mirrorSwapsHandedness() {
+        for (int rotation = 0; rotation < 360; rotation += 90) {
+            assertEquals(HandFrame.Handedness.LEFT,
+                    new LandmarkTransform(rotation, false).mapHandedness(HandFrame.Handedness.LEFT));
+            assertEquals(HandFrame.Handedness.RIGHT,
+                    new LandmarkTransform(rotation, true).mapHandedness(HandFrame.Handedness.LEFT));
+        }
+    }
+
+    @Test
+    public void normalizesRotation() {
+        assertEquals(270, new LandmarkTransform(-90, false).getRotation());
+        assertEquals(90, new LandmarkTransform(450, false).getRotation());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOddRotation() {
+        new LandmarkTransform(45, false);
+    }
+
+    @Test
+    public void backCameraInPortrait() {
+        // 常见后置摄像头: 传感器 90 度, 竖屏
+        LandmarkTransform yuv = LandmarkTransform.forCamera(90, false, 0, 0);
+        assertEquals(90, yuv.getRotation());
+        assertFalse(yuv.isMirror());
+        // JPEG 已经按 JPEG_ORIENTATION 转正
+        LandmarkTransform jpeg = LandmarkTransform.forCamera(90, false, 0, 90);
+        assertEquals(0, jpeg.getRotation());
+        // 横屏时少转 90 度
+        assertEquals(0, LandmarkTransform.forCamera(90, false, 90, 0).getRotation());
+    }
+
+    @Test
+    public void frontCameraIsRotatedUprightThenMirrored() {
+        // 前置摄像头: 先顺时针转 sensor + display 度转正, 再镜像; 等价于先镜像再反方向旋转
+        for (int sensor = 0; sensor < 360; sensor += 90) {
+            for (int display = 0; display < 360; display += 90) {
+                LandmarkTransform front = LandmarkTransform.forCamera(sensor, true, display, 0);
+                assertTrue(front.isMirror());
+                LandmarkTransform upright = new LandmarkTransform(sensor + display, false);
+                LandmarkTransform mirror = new LandmarkTransform(0, true);
+                float ux = upright.mapX(X, Y);
+                float uy = upright.mapY(X, Y);
+                assertEquals(mirror.mapX(ux, uy), front.mapX(X, Y), EPSILON);
+                assertEquals(mirror.mapY(ux, uy), front.mapY(X, Y), EPSILON);
+            }
+        }
+    }
+
+    @Test
+    public void matchesPreviewDisplayRotation() {
+        // 与 Camera2PreviewHelper.getDisplayRotation 原来的公式一致
+        assertEquals(90, LandmarkTransform.displayRotation(270, true, 0));
+        assertEquals(0, LandmarkTransform.displayRotation(270, true, 90));
+        assertEquals(90, LandmarkTransform.displayRotation(90, false, 0));
+        assertEquals(270, LandmarkTransform.displayRotation(90, false, 180));
+    }
+
+    @Test
+    public void appliesToSnapshotInPlace() {
+        LandmarkSnapshot snapshot = new LandmarkSnapshot();
+        List<LandmarkProto.NormalizedLandmarkList> hands = new ArrayList<>();
+        hands.add(LandmarkProto.NormalizedLandmarkList.newBuilder()
+                .addLandmark(LandmarkProto.NormalizedLandmark.newBuilder().setX(X).setY(Y).setZ(-0.1f))
+                .build());
+        List<ClassificationProto.Classification> labels = new ArrayList<>();
+        labels.add(ClassificationProto.Classification.newBuilder().setLabel("Left").setScore(0.9f).build());
+        snapshot.set(1L, 640, 480, hands, labels);
+
+        new LandmarkTransform(90, true).apply(snapshot);
+        assertEquals(480, snapshot.getWidth());
+        assertEquals(640, snapshot.getHeight());
+        assertEquals(0.9f, snapshot.getX(0, 0), EPSILON);
+        assertEquals(0.8f, snapshot.getY(0, 0), EPSILON);
+        assertEquals(-0.1f, snapshot.getZ(0, 0), EPSILON);
+        assertEquals(HandFrame.Handedness.RIGHT, snapshot.getHandedness(0));
+        assertTrue(snapshot.isMirrored());
+
+        // 再镜像一次回到未镜像
+        new LandmarkTransform(0, true).apply(snapshot);
+        assertFalse(snapshot.isMirrored());
+        assertEquals(HandFrame.Handedness.LEFT, snapshot.getHandedness(0));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.mediapipecamera2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void percentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1 ~ 100 ms 各一次
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * MS);
+        }
+
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram.Snapshot();
+        histogram.snapshot(snapshot);
+        assertEquals(100, snapshot.count);
+        assertEquals(100 * MS, snapshot.max);
+        assertWithinPrecision(50 * MS, snapshot.p50);
+        assertWithinPrecision(95 * MS, snapshot.p95);
+        assertWithinPrecision(99 * MS, snapshot.p99);
+    }
+
+    @Test
+    public void bucketsAreContiguous() {
+        for (int i = 1; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            long lower = LatencyHistogram.bucketUpperMicros(i - 1) + 1;
+            assertEquals(i, LatencyHistogram.bucketIndex(lower));
+            assertEquals(i, LatencyHistogram.bucketIndex(LatencyHistogram.bucketUpperMicros(i)));
+        }
+    }
+
+    @Test
+    public void emptyAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram.Snapshot();
+        histogram.snapshot(snapshot);
+        assertEquals(0, snapshot.count);
+        assertEquals(0, snapshot.p99);
+
+        histogram.record(5 * MS);
+        histogram.record(-1);
+        assertEquals(1, histogram.getCount());
+        histogram.reset();
+        histogram.snapshot(snapshot);
+        assertEquals(0, snapshot.count);
+        assertEquals(0, snapshot.max);
+    }
+
+    @Test
+    public void hugeValuesGoToLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE / 2);
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram.Snapshot();
+        histogram.snapshot(snapshot);
+        assertEquals(1, snapshot.count);
+        assertTrue(snapshot.p50 > 0);
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual,
+                actual >= expected && actual <= expected + expected / 8);
+    }
+}
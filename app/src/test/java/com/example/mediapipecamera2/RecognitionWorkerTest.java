@@ -0,0 +1,62 @@
+package com.example.mediapipecamera2;
+
+import com.google.mediapipe.formats.proto.ClassificationProto;
+import com.google.mediapipe.formats.proto.LandmarkProto;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RecognitionWorkerTest {
+
+    @Test
+    public void workerRecognizesOffThread() throws InterruptedException {
+        HandTranslate.INSTANCE.setFaceingID(0);
+        List<Gesture> gestures = Collections.synchronizedList(new ArrayList<>());
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(2);
+        RecognitionWorker worker = new RecognitionWorker(4, HandTranslate.INSTANCE, (snapshot, gesture) -> {
+            gestures.add(gesture);
+            threads.add(Thread.currentThread().getName());
+            done.countDown();
+        }, System::nanoTime);
+        worker.start();
+        try {
+            // 结果线程复用同一个快照, offer 时已经拷贝
+            LandmarkSnapshot source = new LandmarkSnapshot();
+            source.set(1, 640, 480, Collections.singletonList(fist()),
+                    Collections.singletonList(ClassificationProto.Classification.newBuilder()
+                            .setLabel("Right").setScore(0.9f).build()));
+            assertTrue(worker.offer(source));
+            source.set(2, 640, 480, Collections.emptyList(), Collections.emptyList());
+            assertTrue(worker.offer(source));
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            worker.stop();
+            HandTranslate.INSTANCE.setFaceingID(1);
+        }
+        assertEquals(2, gestures.size());
+        assertEquals(Gesture.ZERO, gestures.get(0));
+        assertNull(gestures.get(1));
+        assertEquals("HandRecognition", threads.get(0));
+        assertEquals(2, worker.getRing().getPublishedCount());
+    }
+
+    /** 掌心朝前的右手, 手指全部弯曲 */
+    private static LandmarkProto.NormalizedLandmarkList fist() {
+        LandmarkProto.NormalizedLandmarkList.Builder builder = LandmarkProto.NormalizedLandmarkList.newBuilder();
+        for (int i = 0; i < HandFrame.NUM_LANDMARKS; i++) {
+            // 指尖 (4, 8, 12, 16, 20) 低于第二关节, 大拇指尖在小拇指尖右侧
+            float x = 0.6f - i * 0.01f;
+            float y = i % 4 == 0 && i > 0 ? 0.8f : 0.5f;
+            builder.addLandmark(LandmarkProto.NormalizedLandmark.newBuilder().setX(x).setY(y));
+        }
+        return builder.build();
+    }
+}
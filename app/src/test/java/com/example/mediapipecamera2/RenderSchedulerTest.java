@@ -0,0 +1,154 @@
+package com.example.mediapipecamera2;
+
+import com.google.mediapipe.formats.proto.ClassificationProto;
+import com.google.mediapipe.formats.proto.LandmarkProto;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RenderSchedulerTest {
+
+    private static final float EPSILON = 0.001f;
+    private static final long MAX_SKIP_NANOS = 500_000_000L;
+
+    private long now;
+    private int frameRequests;
+    // 每次 render 时拷下来的 x 和时间戳
+    private final List<Long> renderedTimestamps = new ArrayList<>();
+    private final List<Float> renderedX = new ArrayList<>();
+    private RenderScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new RenderScheduler(
+                landmarks -> {
+                    renderedTimestamps.add(landmarks.getTimestamp());
+                    renderedX.add(landmarks.getHandCount() > 0 ? landmarks.getX(0, 0) : Float.NaN);
+                },
+                () -> frameRequests++,
+                () -> now,
+                EPSILON,
+                MAX_SKIP_NANOS);
+    }
+
+    /** 一只右手, 所有点都在 (x, 0.5) */
+    private static LandmarkSnapshot hand(long timestamp, float x) {
+        LandmarkProto.NormalizedLandmarkList.Builder builder = LandmarkProto.NormalizedLandmarkList.newBuilder();
+        for (int j = 0; j < HandFrame.NUM_LANDMARKS; j++) {
+            builder.addLandmark(LandmarkProto.NormalizedLandmark.newBuilder().setX(x).setY(0.5f));
+        }
+        LandmarkSnapshot snapshot = new LandmarkSnapshot();
+        snapshot.set(timestamp, 640, 480, Collections.singletonList(builder.build()),
+                Collections.singletonList(ClassificationProto.Classification.newBuilder().setLabel("Right").build()));
+        return snapshot;
+    }
+
+    private static LandmarkSnapshot empty(long timestamp) {
+        LandmarkSnapshot snapshot = new LandmarkSnapshot();
+        snapshot.set(timestamp, 640, 480, Collections.emptyList(), Collections.emptyList());
+        return snapshot;
+    }
+
+    @Test
+    public void rendersOnlyNewestResultPerFrame() {
+        scheduler.submit(hand(1, 0.1f));
+        scheduler.submit(hand(2, 0.2f));
+        scheduler.submit(hand(3, 0.3f));
+        assertEquals(1, frameRequests);
+        assertTrue(renderedTimestamps.isEmpty());
+
+        scheduler.doFrame();
+
+        assertEquals(Collections.singletonList(3L), renderedTimestamps);
+        assertEquals(1, scheduler.getRenderedCount());
+        assertEquals(2, scheduler.getCoalescedCount());
+
+        // 没有新结果时 vsync 什么也不做, 也不再请求
+        scheduler.doFrame();
+        assertEquals(1, renderedTimestamps.size());
+        assertEquals(1, frameRequests);
+    }
+
+    @Test
+    public void submitAfterFrameRequestsAgain() {
+        scheduler.submit(hand(1, 0.1f));
+        scheduler.doFrame();
+        scheduler.submit(hand(2, 0.2f));
+        assertEquals(2, frameRequests);
+    }
+
+    @Test
+    public void skipsUnchangedLandmarksWithinEpsilon() {
+        scheduler.submit(hand(1, 0.1f));
+        scheduler.doFrame();
+        now += 16_000_000L;
+        scheduler.submit(hand(2, 0.1f + EPSILON / 2));
+        scheduler.doFrame();
+        now += 16_000_000L;
+        scheduler.submit(hand(3, 0.1f + EPSILON * 5));
+        scheduler.doFrame();
+
+        assertEquals(2, scheduler.getRenderedCount());
+        assertEquals(1, scheduler.getSkippedCount());
+        assertEquals(3L, (long) renderedTimestamps.get(1));
+    }
+
+    @Test
+    public void consecutiveEmptyResultsAreSkipped() {
+        scheduler.submit(hand(1, 0.1f));
+        scheduler.doFrame();
+        scheduler.submit(empty(2));
+        scheduler.doFrame();
+        scheduler.submit(empty(3));
+        scheduler.doFrame();
+
+        assertEquals(2, scheduler.getRenderedCount());
+        assertEquals(1, scheduler.getSkippedCount());
+        assertTrue(Float.isNaN(renderedX.get(1)));
+    }
+
+    @Test
+    public void unchangedLandmarksRedrawAfterMaxSkip() {
+        scheduler.submit(hand(1, 0.1f));
+        scheduler.doFrame();
+        now += MAX_SKIP_NANOS;
+        scheduler.submit(hand(2, 0.1f));
+        scheduler.doFrame();
+
+        assertEquals(2, scheduler.getRenderedCount());
+        assertEquals(0, scheduler.getSkippedCount());
+    }
+
+    @Test
+    public void rendersEveryFrameWhenSkippingDisabled() {
+        scheduler.setSkipUnchanged(false);
+        scheduler.submit(hand(1, 0.1f));
+        scheduler.doFrame();
+        scheduler.submit(hand(2, 0.1f));
+        scheduler.doFrame();
+
+        assertEquals(2, scheduler.getRenderedCount());
+        assertEquals(0, scheduler.getSkippedCount());
+    }
+
+    @Test
+    public void resetDropsPendingAndForcesNextRender() {
+        scheduler.submit(hand(1, 0.1f));
+        scheduler.doFrame();
+        scheduler.submit(hand(2, 0.1f));
+        scheduler.reset();
+        scheduler.doFrame();
+        assertEquals(1, scheduler.getRenderedCount());
+
+        scheduler.submit(hand(3, 0.1f));
+        scheduler.doFrame();
+        assertEquals(2, scheduler.getRenderedCount());
+        assertEquals(0, scheduler.getSkippedCount());
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.mediapipecamera2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class StartupOrchestratorTest {
+
+    private static final long MS = 1_000_000L;
+
+    private long now;
+    private final Queue<Runnable> backgroundQueue = new ArrayDeque<>();
+    private final Queue<Runnable> mainQueue = new ArrayDeque<>();
+    private final Executor background = backgroundQueue::add;
+    private final Executor main = mainQueue::add;
+    private final List<String> events = new ArrayList<>();
+
+    private StartupTrace trace;
+    private StartupOrchestrator startup;
+
+    @Before
+    public void setUp() {
+        now = 1000 * MS;
+        trace = new StartupTrace(() -> now);
+        startup = new StartupOrchestrator(trace, background, main);
+    }
+
+    private static void runAll(Queue<Runnable> queue) {
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void start() {
+        startup.start(
+                () -> events.add("load"),
+                () -> events.add("open"),
+                () -> events.add("attach"));
+    }
+
+    @Test
+    public void runsGraphLoadAndCameraOpenInParallel() {
+        start();
+        // 摄像头在调用线程上立即开始打开, graph 已经交给后台线程
+        assertEquals(1, backgroundQueue.size());
+        assertEquals(Arrays.asList("open"), events);
+
+        now += 300 * MS;
+        runAll(backgroundQueue);
+        assertEquals(Arrays.asList("open", "load"), events);
+        // 挂接在主线程上做
+        assertEquals(1, mainQueue.size());
+        now += 20 * MS;
+        runAll(mainQueue);
+        assertEquals(Arrays.asList("open", "load", "attach"), events);
+
+        assertFalse(startup.isReady());
+        now += 100 * MS;
+        startup.onCameraReady();
+        assertTrue(startup.isReady());
+
+        assertEquals(300 * MS, trace.getDuration(StartupTrace.Phase.GRAPH_LOAD));
+        assertEquals(420 * MS, trace.getDuration(StartupTrace.Phase.CAMERA_OPEN));
+        assertEquals(420 * MS, trace.getEnd(StartupTrace.Phase.READY));
+    }
+
+    @Test
+    public void readyOnlyAfterBothTasks() {
+        start();
+        startup.onCameraReady();
+        assertFalse(startup.isReady());
+        runAll(backgroundQueue);
+        assertFalse(startup.isReady());
+        runAll(mainQueue);
+        assertTrue(startup.isReady());
+        // 重复回调不影响计数
+        startup.onCameraReady();
+        assertTrue(startup.isReady());
+    }
+
+    @Test
+    public void dropsAndCountsEarlyFrames() {
+        start();
+        startup.onCameraReady();
+        assertFalse(startup.admitFrame());
+        assertFalse(startup.admitFrame());
+        runAll(backgroundQueue);
+        assertFalse(startup.admitFrame());
+        runAll(mainQueue);
+        assertTrue(startup.admitFrame());
+        assertEquals(3, startup.getDroppedFrames());
+    }
+
+    @Test
+    public void pauseWhileCameraOpensStillBecomesReadyOnResume() {
+        CameraLifecycle lifecycle = new CameraLifecycle();
+        lifecycle.setOnStartedListener(startup::onCameraReady);
+        startup.start(() -> {}, lifecycle::open, () -> {});
+        runAll(backgroundQueue);
+        runAll(mainQueue);
+
+        // 会话配置好之前 Activity 被暂停, 配置好时不出流
+        lifecycle.pause();
+        assertFalse(lifecycle.stream());
+        assertFalse(startup.admitFrame());
+
+        // 恢复时第一次出流, 之后的帧不再被丢弃
+        lifecycle.resume(now);
+        assertTrue(startup.isReady());
+        assertTrue(startup.admitFrame());
+    }
+
+    @Test
+    public void recordsFirstSendAndResultOnce() {
+        start();
+        startup.onCameraReady();
+        runAll(backgroundQueue);
+        runAll(mainQueue);
+
+        now += 10 * MS;
+        startup.onSend();
+        now += 30 * MS;
+        assertTrue(startup.onResult());
+        now += 30 * MS;
+        startup.onSend();
+        assertFalse(startup.onResult());
+
+        assertEquals(10 * MS, trace.getEnd(StartupTrace.Phase.FIRST_SEND));
+        assertEquals(40 * MS, trace.getEnd(StartupTrace.Phase.FIRST_RESULT));
+        String summary = startup.toString();
+        assertTrue(summary, summary.contains("first_result=0.0/40.0"));
+        assertTrue(summary, summary.endsWith("early frames dropped 0"));
+    }
+
+    @Test
+    public void graphLoadFailureIsRethrownOnMainThread() {
+        startup.start(() -> { throw new IllegalStateException("no model"); }, () -> {}, () -> fail("attached"));
+        runAll(backgroundQueue);
+        try {
+            runAll(mainQueue);
+            fail("expected failure");
+        } catch (IllegalStateException e) {
+            assertEquals("no model", e.getMessage());
+        }
+        assertFalse(startup.isReady());
+        assertEquals(-1, trace.getEnd(StartupTrace.Phase.GRAPH_LOAD));
+    }
+
+    @Test
+    public void summarySkipsUnfinishedPhases() {
+        start();
+        String summary = trace.summary();
+        assertFalse(summary, summary.contains("graph_load"));
+        runAll(backgroundQueue);
+        assertTrue(trace.summary().contains("graph_load"));
+    }
+}
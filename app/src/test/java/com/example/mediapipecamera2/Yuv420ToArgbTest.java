@@ -0,0 +1,59 @@
+package com.example.mediapipecamera2;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class Yuv420ToArgbTest {
+
+    private static int channel(int argb, int shift) {
+        return (argb >>> shift) & 0xFF;
+    }
+
+    private static ByteBuffer plane(int size, int value) {
+        byte[] bytes = new byte[size];
+        Arrays.fill(bytes, (byte) value);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    @Test
+    public void convertsBlackAndWhite() {
+        int[] out = new int[4 * 2];
+        Yuv420ToArgb.convert(plane(8, 16), 4, plane(2, 128), plane(2, 128), 2, 1, 4, 2, out);
+        for (int pixel : out) {
+            assertEquals(0xFF000000, pixel);
+        }
+        Yuv420ToArgb.convert(plane(8, 255), 4, plane(2, 128), plane(2, 128), 2, 1, 4, 2, out);
+        for (int pixel : out) {
+            assertEquals(0xFFFFFFFF, pixel);
+        }
+    }
+
+    @Test
+    public void samplesInterleavedChromaPerTwoByTwoBlock() {
+        // NV21 式排列: V/U 交错, pixelStride 2, 行跨度比宽度多出填充
+        int width = 4;
+        int height = 2;
+        int yRowStride = 8;
+        byte[] vu = {(byte) 128, (byte) 128, (byte) 255, (byte) 128};
+        ByteBuffer v = ByteBuffer.wrap(vu);
+        ByteBuffer u = ByteBuffer.wrap(Arrays.copyOfRange(vu, 1, vu.length));
+        int[] out = new int[width * height];
+        Yuv420ToArgb.convert(plane(yRowStride * height, 128), yRowStride, u, v, 4, 2, width, height, out);
+
+        for (int row = 0; row < height; row++) {
+            int gray = out[row * width];
+            assertEquals(channel(gray, 16), channel(gray, 8));
+            assertEquals(channel(gray, 8), channel(gray, 0));
+            assertEquals(gray, out[row * width + 1]);
+            // 右边一块 V 最大, 偏红
+            int red = out[row * width + 2];
+            assertTrue(channel(red, 16) > channel(gray, 16));
+            assertTrue(channel(red, 8) < channel(gray, 8));
+            assertEquals(red, out[row * width + 3]);
+        }
+    }
+}
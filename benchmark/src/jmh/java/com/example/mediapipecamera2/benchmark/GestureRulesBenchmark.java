@@ -0,0 +1,136 @@
+package com.example.mediapipecamera2.benchmark;
+
+import com.example.mediapipecamera2.Gesture;
+import com.example.mediapipecamera2.GestureRules;
+import com.example.mediapipecamera2.GestureTable;
+import com.example.mediapipecamera2.HandTranslate;
+import com.google.mediapipe.formats.proto.ClassificationProto;
+import com.google.mediapipe.formats.proto.LandmarkProto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 规则条数对识别耗时的影响.
+ *
+ * <p>生成 rules 条规则 (都要求小拇指弯曲, 张开的手一条也不匹配), 最后一条是 COUNT.
+ * {@link #handGesture} 走编译好的 {@link GestureTable}, 耗时应与 rules 无关;
+ * {@link #linearScan} 对同样的特征逐条匹配规则作为对照, 耗时随 rules 线性增长.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GestureRulesBenchmark {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    private static final String[] RELATIONS = {
+            "near(4,8)", "near(4,12)", "near(8,12)", "above(4,8)",
+            "above(8,0)", "above(12,9)", "left(4,20)", "left(8,12)",
+    };
+    private static final String[] GESTURES = {"OK", "ROCK", "THUMBS_UP"};
+
+    @Param({"1", "8", "32", "128"})
+    public int rules;
+
+    private final List<LandmarkProto.NormalizedLandmarkList> multiHandLandmarks = new ArrayList<>();
+    private final List<ClassificationProto.Classification> multiHandedness = new ArrayList<>();
+
+    // 与生成的规则一一对应, 给 linearScan 用; 最后一条是 COUNT
+    private int[] care;
+    private int[] value;
+    private Gesture[] gestures;
+    private int features;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        HandTranslate.INSTANCE.setFaceingID(0);
+        HandFixtures.build(1, false, multiHandLandmarks, multiHandedness);
+
+        // 第一条规则用到全部关系, 让关系的位序与 RELATIONS 一致; 张开的手不匹配它
+        StringBuilder text = new StringBuilder("NONE pinky=bent");
+        care = new int[rules + 2];
+        value = new int[rules + 2];
+        gestures = new Gesture[rules + 2];
+        care[0] = GestureTable.PINKY;
+        for (int r = 0; r < RELATIONS.length; r++) {
+            text.append(' ').append(RELATIONS[r]);
+            care[0] |= 1 << (GestureTable.RELATION_SHIFT + r);
+        }
+        value[0] = care[0] & ~GestureTable.PINKY;
+        text.append('\n');
+
+        String[] fingers = {"thumb", "index", "middle", "ring"};
+        for (int i = 0; i < rules; i++) {
+            int rule = i + 1;
+            String gesture = GESTURES[i % GESTURES.length];
+            text.append(gesture).append(" pinky=bent");
+            care[rule] = GestureTable.PINKY;
+            gestures[rule] = Gesture.valueOf(gesture);
+            // 低 4 位决定前 4 根手指, 其余位选两个关系, 奇数条时第一个取反
+            for (int f = 0; f < fingers.length; f++) {
+                boolean straight = (i >> f & 1) != 0;
+                text.append(' ').append(fingers[f]).append(straight ? "=straight" : "=bent");
+                care[rule] |= 1 << f;
+                value[rule] |= straight ? 1 << f : 0;
+            }
+            int first = (i >> 4) % RELATIONS.length;
+            int second = (first + 1 + (i >> 2) % (RELATIONS.length - 1)) % RELATIONS.length;
+            boolean negate = (i & 1) != 0;
+            text.append(negate ? " !" : " ").append(RELATIONS[first]).append(' ').append(RELATIONS[second]).append('\n');
+            int firstBit = 1 << (GestureTable.RELATION_SHIFT + first);
+            int secondBit = 1 << (GestureTable.RELATION_SHIFT + second);
+            care[rule] |= firstBit | secondBit;
+            value[rule] |= (negate ? 0 : firstBit) | secondBit;
+        }
+        text.append("COUNT palm=front\n");
+        care[rules + 1] = GestureTable.PALM_FRONT;
+        value[rules + 1] = GestureTable.PALM_FRONT;
+
+        GestureTable table = GestureRules.parse(new StringReader(text.toString()));
+        HandTranslate.INSTANCE.setGestureTable(table);
+
+        Gesture gesture = HandTranslate.INSTANCE.handGesture(multiHandLandmarks, multiHandedness, WIDTH, HEIGHT);
+        features = table.features(HandTranslate.INSTANCE.getHand(0), GestureTable.FINGER_MASK, true);
+        if (gesture != Gesture.FIVE || linearScan() != Gesture.FIVE) {
+            throw new IllegalStateException("open hand should fall through to COUNT: " + gesture);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        HandTranslate.INSTANCE.setGestureTable(GestureTable.counting());
+    }
+
+    @Benchmark
+    public Gesture handGesture() {
+        return HandTranslate.INSTANCE.handGesture(multiHandLandmarks, multiHandedness, WIDTH, HEIGHT);
+    }
+
+    @Benchmark
+    public Gesture linearScan() {
+        for (int i = 0; i < care.length; i++) {
+            if ((features & care[i]) == value[i]) {
+                return i == care.length - 1
+                        ? Gesture.ofCount(Integer.bitCount(features & GestureTable.FINGER_MASK))
+                        : gestures[i];
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.mediapipecamera2.benchmark;
+
+import com.google.mediapipe.formats.proto.ClassificationProto;
+import com.google.mediapipe.formats.proto.LandmarkProto;
+
+import java.util.List;
+
+/** 录制的手部关键点, 用来构造与 HandsResult 等价的输入 */
+final class HandFixtures {
+
+    // 张开的右手, 掌心朝向摄像头 (识别为 5)
+    static final float[][] OPEN_HAND = {
+            {0.50f, 0.80f},
+            {0.56f, 0.75f}, {0.61f, 0.70f}, {0.65f, 0.65f}, {0.69f, 0.61f},
+            {0.56f, 0.55f}, {0.57f, 0.46f}, {0.58f, 0.40f}, {0.59f, 0.35f},
+            {0.50f, 0.54f}, {0.50f, 0.44f}, {0.50f, 0.37f}, {0.50f, 0.31f},
+            {0.45f, 0.56f}, {0.44f, 0.47f}, {0.43f, 0.41f}, {0.42f, 0.36f},
+            {0.40f, 0.60f}, {0.38f, 0.53f}, {0.37f, 0.49f}, {0.36f, 0.45f},
+    };
+
+    // 比 "2" 的左手, 无名指和小拇指弯曲
+    static final float[][] PEACE_HAND = {
+            {0.25f, 0.82f},
+            {0.20f, 0.77f}, {0.16f, 0.73f}, {0.17f, 0.69f}, {0.20f, 0.67f},
+            {0.21f, 0.58f}, {0.19f, 0.49f}, {0.18f, 0.43f}, {0.17f, 0.38f},
+            {0.26f, 0.57f}, {0.27f, 0.47f}, {0.27f, 0.40f}, {0.28f, 0.34f},
+            {0.30f, 0.59f}, {0.31f, 0.55f}, {0.30f, 0.62f}, {0.29f, 0.66f},
+            {0.34f, 0.62f}, {0.35f, 0.59f}, {0.34f, 0.65f}, {0.33f, 0.68f},
+    };
+
+    private HandFixtures() {}
+
+    static LandmarkProto.NormalizedLandmarkList landmarks(float[][] points) {
+        LandmarkProto.NormalizedLandmarkList.Builder builder =
+                LandmarkProto.NormalizedLandmarkList.newBuilder();
+        for (float[] point : points) {
+            builder.addLandmark(LandmarkProto.NormalizedLandmark.newBuilder()
+                    .setX(point[0])
+                    .setY(point[1])
+                    .setZ(0f));
+        }
+        return builder.build();
+    }
+
+    static ClassificationProto.Classification handedness(String label, float score) {
+        return ClassificationProto.Classification.newBuilder()
+                .setIndex("Left".equals(label) ? 0 : 1)
+                .setLabel(label)
+                .setScore(score)
+                .build();
+    }
+
+    /**
+     * 构造 0 ~ 2 只手的输入.
+     *
+     * <p>前置摄像头的画面是镜像的, MediaPipe 给出的左右手标签和后置相反, 这里按摄像头给出对应标签,
+     * 让两条路径都走完完整的识别流程.
+     */
+    static void build(int hands, boolean frontCamera,
+                      List<LandmarkProto.NormalizedLandmarkList> multiHandLandmarks,
+                      List<ClassificationProto.Classification> multiHandedness) {
+        String first = frontCamera ? "Left" : "Right";
+        String second = frontCamera ? "Right" : "Left";
+        if (hands > 0) {
+            multiHandLandmarks.add(landmarks(OPEN_HAND));
+            multiHandedness.add(handedness(first, 0.97f));
+        }
+        if (hands > 1) {
+            multiHandLandmarks.add(landmarks(PEACE_HAND));
+            multiHandedness.add(handedness(second, 0.93f));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.mediapipecamera2.benchmark;
+
+import com.example.mediapipecamera2.HandTranslate;
+import com.google.mediapipe.formats.proto.ClassificationProto;
+import com.google.mediapipe.formats.proto.LandmarkProto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link HandTranslate#handRecognition} 的吞吐, 平均耗时和分配速率.
+ *
+ * <p>hands=2 时两只手各自识别后再合并, 耗时应不超过两只手分别单独识别之和.
+ * 第二只手是 {@link HandFixtures#PEACE_HAND}, 和第一只手姿势不同, 不能直接拿 hands=1 的两倍来比.
+ *
+ * <p>分配速率需要加上 gc profiler: {@code ./gradlew -p benchmark jmh} 默认已开启 ({@code -prof gc}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HandTranslateBenchmark {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    @Param({"0", "1", "2"})
+    public int hands;
+
+    @Param({"front", "back"})
+    public String camera;
+
+    private final List<LandmarkProto.NormalizedLandmarkList> multiHandLandmarks = new ArrayList<>();
+    private final List<ClassificationProto.Classification> multiHandedness = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        boolean frontCamera = "front".equals(camera);
+        HandTranslate.INSTANCE.setFaceingID(frontCamera ? 1 : 0);
+        multiHandLandmarks.clear();
+        multiHandedness.clear();
+        HandFixtures.build(hands, frontCamera, multiHandLandmarks, multiHandedness);
+    }
+
+    @Benchmark
+    public String handRecognition() {
+        return HandTranslate.INSTANCE.handRecognition(multiHandLandmarks, multiHandedness, WIDTH, HEIGHT);
+    }
+}
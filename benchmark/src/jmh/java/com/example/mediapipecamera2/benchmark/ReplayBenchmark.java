@@ -0,0 +1,100 @@
+package com.example.mediapipecamera2.benchmark;
+
+import com.example.mediapipecamera2.Gesture;
+import com.example.mediapipecamera2.HandTranslate;
+import com.example.mediapipecamera2.LandmarkRecorder;
+import com.example.mediapipecamera2.LandmarkReplayer;
+import com.example.mediapipecamera2.LandmarkSnapshot;
+import com.google.mediapipe.formats.proto.ClassificationProto;
+import com.google.mediapipe.formats.proto.LandmarkProto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把录制的关键点逐帧回放给 {@link HandTranslate}, 每次调用处理一帧.
+ *
+ * <p>默认回放由 {@link HandFixtures} 生成的录制; 指定 {@code -Dlandmarks.recording=<file>} 时回放真机录制的文件.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReplayBenchmark {
+
+    private static final int GENERATED_FRAMES = 300;
+
+    private File generated;
+    private LandmarkReplayer replayer;
+    private final LandmarkSnapshot frame = new LandmarkSnapshot();
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String path = System.getProperty("landmarks.recording");
+        File file;
+        if (path != null) {
+            file = new File(path);
+        } else {
+            generated = File.createTempFile("landmarks", ".hlm");
+            file = generated;
+            generate(file);
+        }
+        replayer = new LandmarkReplayer(file);
+        HandTranslate.INSTANCE.setFaceingID(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        replayer.close();
+        if (generated != null) {
+            generated.delete();
+        }
+    }
+
+    /** 0 ~ 2 只手轮流出现, 33 ms 一帧 */
+    private static void generate(File file) throws IOException {
+        List<LandmarkProto.NormalizedLandmarkList> hands = new ArrayList<>();
+        List<ClassificationProto.Classification> labels = new ArrayList<>();
+        try (LandmarkRecorder recorder = new LandmarkRecorder(file)) {
+            for (int i = 0; i < GENERATED_FRAMES; i++) {
+                hands.clear();
+                labels.clear();
+                HandFixtures.build(i % 3, false, hands, labels);
+                recorder.record(i * 33_000_000L, 640, 480, hands, labels);
+            }
+        }
+    }
+
+    private LandmarkSnapshot nextFrame() {
+        replayer.read(index, frame);
+        if (++index == replayer.getFrameCount()) {
+            index = 0;
+        }
+        return frame;
+    }
+
+    /** 只解码 mmap 里的一条记录 */
+    @Benchmark
+    public LandmarkSnapshot read() {
+        return nextFrame();
+    }
+
+    /** 解码后直接从快照识别手势, 与 App 里识别线程的路径一致 */
+    @Benchmark
+    public Gesture recognize() {
+        return HandTranslate.INSTANCE.handGesture(nextFrame());
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.mediapipecamera2.benchmark;
+
+import com.example.mediapipecamera2.ArgbScaler;
+import com.example.mediapipecamera2.Yuv420ToArgb;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * YUV 模式下每帧在 hands.send 之前的 CPU 开销: {@link Yuv420ToArgb} 转换, 以及按推理延迟缩小输入时
+ * 再加上 {@link ArgbScaler}.
+ *
+ * <p>平面是 direct ByteBuffer, 和 Image.Plane 一样. semiplanar 是大多数设备上 U/V 交错
+ * (pixelStride 2) 的排列, planar 是 I420 排列. JPEG 模式的开销 (硬件编码加 BitmapFactory 解码)
+ * 只能在设备上用 CaptureStats 量, 这里只给出 YUV 一侧.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class YuvToArgbBenchmark {
+
+    @Param({"640x480", "1280x720"})
+    public String size;
+
+    @Param({"semiplanar", "planar"})
+    public String layout;
+
+    private int width;
+    private int height;
+    private ByteBuffer yPlane;
+    private ByteBuffer uPlane;
+    private ByteBuffer vPlane;
+    private int uvRowStride;
+    private int uvPixelStride;
+    private int[] argb;
+    // InputScaleController 降一档后的 0.75
+    private int scaledWidth;
+    private int scaledHeight;
+    private int[] scaled;
+
+    @Setup
+    public void setUp() {
+        String[] parts = size.split("x");
+        width = Integer.parseInt(parts[0]);
+        height = Integer.parseInt(parts[1]);
+        Random random = new Random(42);
+        yPlane = randomPlane(width * height, random);
+        if ("semiplanar".equals(layout)) {
+            // 一块交错的 VU 数据, U 平面从第二个字节开始
+            ByteBuffer vu = randomPlane(width * height / 2, random);
+            vPlane = vu.duplicate();
+            vu.position(1);
+            uPlane = vu.slice();
+            uvRowStride = width;
+            uvPixelStride = 2;
+        } else {
+            uPlane = randomPlane(width * height / 4, random);
+            vPlane = randomPlane(width * height / 4, random);
+            uvRowStride = width / 2;
+            uvPixelStride = 1;
+        }
+        argb = new int[width * height];
+        scaledWidth = ArgbScaler.scaledSize(width, 0.75f);
+        scaledHeight = ArgbScaler.scaledSize(height, 0.75f);
+        scaled = new int[scaledWidth * scaledHeight];
+    }
+
+    private static ByteBuffer randomPlane(int size, Random random) {
+        byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        ByteBuffer plane = ByteBuffer.allocateDirect(size);
+        plane.put(bytes);
+        plane.flip();
+        return plane;
+    }
+
+    @Benchmark
+    public int[] convert() {
+        Yuv420ToArgb.convert(yPlane, width, uPlane, vPlane, uvRowStride, uvPixelStride, width, height, argb);
+        return argb;
+    }
+
+    @Benchmark
+    public int[] convertAndScale() {
+        Yuv420ToArgb.convert(yPlane, width, uPlane, vPlane, uvRowStride, uvPixelStride, width, height, argb);
+        ArgbScaler.scale(argb, width, height, scaled, scaledWidth, scaledHeight);
+        return scaled;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.mediapipecamera2;
+
+/** 代替 Android 构建生成的 BuildConfig, 按 release 配置测量 (debug 日志编译期关闭) */
+public final class BuildConfig {
+    public static final boolean DEBUG = false;
+
+    private BuildConfig() {}
+}